@@ -55,6 +55,8 @@ public class Automaton implements Serializable, Cloneable {
 	transitions = new HashSet();
 	finalStates = new HashSet();
 	initialState = null;
+	statesByID = new StateAutomaton[16];
+	clearSymbols();
     }
 
     /**
@@ -187,6 +189,7 @@ public class Automaton implements Serializable, Cloneable {
 	}
 	if (transitions.contains(trans)) return;
 	transitions.add(trans);
+	addSymbol(trans);
 	List list = (List) transitionFromStateMap.get(trans.getFromState());
 	list.add(trans);
 	list = (List) transitionToStateMap.get(trans.getToState());
@@ -194,6 +197,7 @@ public class Automaton implements Serializable, Cloneable {
  	transitionArrayFromStateMap.remove(trans.getFromState());
  	transitionArrayToStateMap.remove(trans.getToState());
 	cachedTransitions = null;
+	modifications++;
 
 	distributeTransitionEvent(new AutomataTransitionEvent(this, trans,
 							      true, false));
@@ -223,6 +227,8 @@ public class Automaton implements Serializable, Cloneable {
 		("Replacing transition that not already in the automaton!");
 	}
 	transitions.add(newTrans);
+	removeSymbol(oldTrans);
+	addSymbol(newTrans);
 	List list = (List) transitionFromStateMap.get(oldTrans.getFromState());
 	list.set(list.indexOf(oldTrans), newTrans);
 	list = (List) transitionToStateMap.get(oldTrans.getToState());
@@ -230,6 +236,7 @@ public class Automaton implements Serializable, Cloneable {
  	transitionArrayFromStateMap.remove(oldTrans.getFromState());
  	transitionArrayToStateMap.remove(oldTrans.getToState());
 	cachedTransitions = null;
+	modifications++;
 	distributeTransitionEvent
 	    (new AutomataTransitionEvent(this, newTrans, true, false));
     }
@@ -240,7 +247,7 @@ public class Automaton implements Serializable, Cloneable {
      * automaton.
      */
     public void removeTransition(Transition trans) {
-	transitions.remove(trans);
+	if (transitions.remove(trans)) removeSymbol(trans);
 	List l = (List) transitionFromStateMap.get(trans.getFromState());
 	l.remove(trans);
 	l = (List) transitionToStateMap.get(trans.getToState());
@@ -249,19 +256,197 @@ public class Automaton implements Serializable, Cloneable {
 	transitionArrayFromStateMap.remove(trans.getFromState());
 	transitionArrayToStateMap.remove(trans.getToState());
 	cachedTransitions = null;
+	modifications++;
 
 	distributeTransitionEvent(new AutomataTransitionEvent(this, trans,
 							      false, false));
     }
 
+    /**
+     * Removes many transitions from this automaton at once.  This is
+     * the same as removing each in turn, except that the list of
+     * transitions for each state is gone through once, rather than
+     * once for each transition removed.
+     * @param toRemove the transitions to remove from this automaton
+     */
+    public void removeTransitions(Transition[] toRemove) {
+	Set removed = new HashSet(), fromStates = new HashSet(),
+	    toStates = new HashSet();
+	for (int i=0; i<toRemove.length; i++) {
+	    if (!transitions.remove(toRemove[i])) continue;
+	    removed.add(toRemove[i]);
+	    removeSymbol(toRemove[i]);
+	    fromStates.add(toRemove[i].getFromState());
+	    toStates.add(toRemove[i].getToState());
+	}
+	if (removed.isEmpty()) return;
+	Iterator it = fromStates.iterator();
+	while (it.hasNext()) {
+	    Object state = it.next();
+	    ((List) transitionFromStateMap.get(state)).removeAll(removed);
+	    transitionArrayFromStateMap.remove(state);
+	}
+	it = toStates.iterator();
+	while (it.hasNext()) {
+	    Object state = it.next();
+	    ((List) transitionToStateMap.get(state)).removeAll(removed);
+	    transitionArrayToStateMap.remove(state);
+	}
+	cachedTransitions = null;
+	modifications++;
+	it = removed.iterator();
+	while (it.hasNext())
+	    distributeTransitionEvent(new AutomataTransitionEvent
+				      (this, (Transition) it.next(),
+				       false, false));
+    }
+
+    /**
+     * Adds many states and transitions to this automaton at once.
+     * This is used by {@link AutomatonBuilder}, which has already
+     * checked that each transition is of the right class and is
+     * between states of this automaton or new states.  Transitions
+     * already in the automaton are skipped with a single set
+     * operation each, the cached arrays are thrown out just once,
+     * and no events are distributed.
+     * @param newStates the list of states to add, none of which are
+     * in this automaton yet
+     * @param newTransitions the list of transitions to add
+     */
+    void addAll(List newStates, List newTransitions) {
+	for (int i=0; i<newStates.size(); i++) {
+	    StateAutomaton state = (StateAutomaton) newStates.get(i);
+	    states.add(state);
+	    indexState(state);
+	    transitionFromStateMap.put(state, new LinkedList());
+	    transitionToStateMap.put(state, new LinkedList());
+	}
+	for (int i=0; i<newTransitions.size(); i++) {
+	    Transition trans = (Transition) newTransitions.get(i);
+	    if (!transitions.add(trans)) continue;
+	    addSymbol(trans);
+	    ((List) transitionFromStateMap.get(trans.getFromState())).add(trans);
+	    ((List) transitionToStateMap.get(trans.getToState())).add(trans);
+	}
+	transitionArrayFromStateMap.clear();
+	transitionArrayToStateMap.clear();
+	cachedStates = null;
+	cachedTransitions = null;
+	modifications++;
+    }
+
+    /**
+     * Returns the number of changes made to the states and
+     * transitions of this automaton.  It goes up with every state or
+     * transition added or removed, whether or not events are sent, so
+     * that anything computed from the automaton may be kept as long as
+     * this number stays the same.
+     * @return the number of changes made to this automaton
+     */
+    public int getModificationCount() {
+	return modifications;
+    }
+
+    /**
+     * Returns the alphabet of this automaton, that is, the distinct
+     * nonempty symbols of its transitions, as given by {@link
+     * Transition#getSymbol}.  The symbol with ID <CODE>i</CODE> is at
+     * index <CODE>i</CODE>, so the IDs run from 0 to one less than the
+     * size of the alphabet, and arrays may be indexed by them.  The
+     * same array is returned until the alphabet changes, so it should
+     * not be modified.  IDs stay the same while their symbols are in
+     * use, but when the last transition on a symbol is removed, the
+     * symbol with the highest ID takes its ID.
+     * @return the alphabet of this automaton
+     */
+    public String[] getAlphabet() {
+	if (cachedAlphabet == null) {
+	    cachedAlphabet = new String[symbolCount];
+	    System.arraycopy(symbols, 0, cachedAlphabet, 0, symbolCount);
+	}
+	return cachedAlphabet;
+    }
+
+    /**
+     * Returns the ID of a symbol in the alphabet of this automaton.
+     * @param symbol the symbol
+     * @return the index of the symbol in {@link #getAlphabet}, or -1
+     * if no transition of this automaton is on the symbol
+     */
+    public int getSymbolID(String symbol) {
+	Integer id = (Integer) symbolIDs.get(symbol);
+	return id == null ? -1 : id.intValue();
+    }
+
+    /**
+     * Empties the table of symbols.
+     */
+    private void clearSymbols() {
+	symbolIDs = new HashMap();
+	symbols = new String[8];
+	symbolUses = new int[8];
+	symbolCount = 0;
+	cachedAlphabet = null;
+    }
+
+    /**
+     * Counts one more use of the symbol of a transition just added,
+     * giving the symbol the next ID if it is new.
+     * @param trans the transition
+     */
+    private void addSymbol(Transition trans) {
+	String symbol = trans.getSymbol();
+	if (symbol.length() == 0) return;
+	Integer id = (Integer) symbolIDs.get(symbol);
+	if (id == null) {
+	    if (symbolCount == symbols.length) {
+		String[] s = new String[symbolCount * 2];
+		System.arraycopy(symbols, 0, s, 0, symbolCount);
+		symbols = s;
+		int[] u = new int[symbolCount * 2];
+		System.arraycopy(symbolUses, 0, u, 0, symbolCount);
+		symbolUses = u;
+	    }
+	    id = new Integer(symbolCount);
+	    symbols[symbolCount++] = symbol;
+	    symbolIDs.put(symbol, id);
+	    cachedAlphabet = null;
+	}
+	symbolUses[id.intValue()]++;
+    }
+
+    /**
+     * Counts one less use of the symbol of a transition just removed.
+     * If it was the last, the symbol with the highest ID is moved into
+     * its place, so the IDs stay dense.
+     * @param trans the transition
+     */
+    private void removeSymbol(Transition trans) {
+	String symbol = trans.getSymbol();
+	if (symbol.length() == 0) return;
+	int id = ((Integer) symbolIDs.get(symbol)).intValue();
+	if (--symbolUses[id] > 0) return;
+	symbolIDs.remove(symbol);
+	int last = --symbolCount;
+	if (id != last) {
+	    symbols[id] = symbols[last];
+	    symbolUses[id] = symbolUses[last];
+	    symbolIDs.put(symbols[id], new Integer(id));
+	}
+	symbols[last] = null;
+	symbolUses[last] = 0;
+	cachedAlphabet = null;
+    }
+
     /**
      * Creates a state, inserts it in this automaton, and returns that
-     * state.  The ID for the state is set appropriately.
+     * state.  The ID for the state is the lowest ID not in use.
      * @param point the point to put the state at
      */
     public final StateAutomaton createState(Point point) {
-	int i = 0;
-	while (getStateWithID(i) != null) i++;
+	int i = lowestFreeID;
+	while (i < statesByID.length && statesByID[i] != null) i++;
+	lowestFreeID = i;
 	StateAutomaton state = new StateAutomaton(i, point, this);
 	addState(state);
 	return state;
@@ -274,9 +459,11 @@ public class Automaton implements Serializable, Cloneable {
      */
     protected final void addState(StateAutomaton state) {
 	states.add(state);
+	indexState(state);
 	transitionFromStateMap.put(state, new LinkedList());
 	transitionToStateMap.put(state, new LinkedList());
 	cachedStates = null;
+	modifications++;
 	distributeStateEvent(new AutomataStateEvent(this, state, true,
 						    false, false));
     }
@@ -296,6 +483,7 @@ public class Automaton implements Serializable, Cloneable {
 	distributeStateEvent(new AutomataStateEvent(this, state,
 						    false, false, false));
 	states.remove(state);
+	unindexState(state, state.getID());
 	finalStates.remove(state);
 	if (state == initialState) initialState = null;
 
@@ -307,6 +495,7 @@ public class Automaton implements Serializable, Cloneable {
 	//cachedTransitions = null;
 
 	cachedStates = null;
+	modifications++;
     }
 
     /**
@@ -405,12 +594,49 @@ public class Automaton implements Serializable, Cloneable {
      * with this ID, or <CODE>null</CODE> if no such state exists
      */
     public StateAutomaton getStateWithID(int id) {
-	Iterator it = states.iterator();
-	while (it.hasNext()) {
-	    StateAutomaton state = (StateAutomaton) it.next();
-	    if (state.getID() == id) return state;
+	if (id < 0 || id >= statesByID.length) return null;
+	return statesByID[id];
+    }
+
+    /**
+     * Puts a state in the table of states by ID, growing the table
+     * if need be.
+     * @param state the state to put in the table
+     */
+    private void indexState(StateAutomaton state) {
+	int id = state.getID();
+	if (id >= statesByID.length) {
+	    StateAutomaton[] grown = new StateAutomaton
+		[Math.max(id + 1, statesByID.length * 2)];
+	    System.arraycopy(statesByID, 0, grown, 0, statesByID.length);
+	    statesByID = grown;
 	}
-	return null;
+	statesByID[id] = state;
+    }
+
+    /**
+     * Takes a state out of the table of states by ID.
+     * @param state the state to take out of the table
+     * @param id the ID the state is in the table under
+     */
+    private void unindexState(StateAutomaton state, int id) {
+	if (id < 0 || id >= statesByID.length || statesByID[id] != state)
+	    return;
+	statesByID[id] = null;
+	if (id < lowestFreeID) lowestFreeID = id;
+    }
+
+    /**
+     * Called by a state of this automaton when its ID changes, so
+     * that it may be found by its new ID.
+     * @param state the state whose ID changed
+     * @param oldID the ID the state had before
+     */
+    void stateIDChanged(StateAutomaton state, int oldID) {
+	if (!states.contains(state)) return;
+	unindexState(state, oldID);
+	indexState(state);
+	cachedStates = null;
     }
     
     /**
@@ -481,10 +707,53 @@ public class Automaton implements Serializable, Cloneable {
     }
 
     /**
-     * Gives an automata state change event to all state listeners.
+     * Begins a batch of changes to this automaton.  Until the batch
+     * is committed, no state or transition events are distributed to
+     * listeners; instead, {@link #commitBatch} distributes at most one
+     * state event and one transition event for the whole batch.  This
+     * spares listeners, such as views of the automaton, from reacting
+     * to each edit of a large transformation.  Batches may nest, in
+     * which case the events wait for the outermost batch.  Callers
+     * should commit in a <CODE>finally</CODE> block.
+     */
+    public void beginBatch() {
+	batchDepth++;
+    }
+
+    /**
+     * Ends a batch of changes begun by {@link #beginBatch}.  When the
+     * outermost batch ends, if any state changed a single state event
+     * is distributed, and if any transition changed a single
+     * transition event is distributed, each of which is a batch event
+     * with no state or transition.
+     * @see automata.event.AutomataStateEvent#isBatch
+     * @see automata.event.AutomataTransitionEvent#isBatch
+     * @throws IllegalStateException if there is no batch to commit
+     */
+    public void commitBatch() {
+	if (batchDepth == 0)
+	    throw new IllegalStateException("No batch has begun!");
+	if (--batchDepth > 0) return;
+	if (batchStateChange) {
+	    batchStateChange = false;
+	    distributeStateEvent(new AutomataStateEvent(this));
+	}
+	if (batchTransitionChange) {
+	    batchTransitionChange = false;
+	    distributeTransitionEvent(new AutomataTransitionEvent(this));
+	}
+    }
+
+    /**
+     * Gives an automata state change event to all state listeners,
+     * or notes that a state changed if a batch is in progress.
      * @param event the event to distribute
      */
     void distributeStateEvent(AutomataStateEvent event) {
+	if (batchDepth > 0) {
+	    batchStateChange = true;
+	    return;
+	}
 	Iterator it = stateListeners.iterator();
 	while (it.hasNext()) {
 	    AutomataStateListener listener =
@@ -513,10 +782,15 @@ public class Automaton implements Serializable, Cloneable {
 
     /**
      * Gives an automata transition change event to all transition
-     * listeners.
+     * listeners, or notes that a transition changed if a batch is in
+     * progress.
      * @param event the event to distribute
      */
     void distributeTransitionEvent(AutomataTransitionEvent event) {
+	if (batchDepth > 0) {
+	    batchTransitionChange = true;
+	    return;
+	}
 	Iterator it = transitionListeners.iterator();
 	while (it.hasNext()) {
 	    AutomataTransitionListener listener =
@@ -542,6 +816,9 @@ public class Automaton implements Serializable, Cloneable {
 	transitionArrayToStateMap = new HashMap();
 	transitions = new HashSet();
 	states = new HashSet();
+	statesByID = new StateAutomaton[16];
+	lowestFreeID = 0;
+	clearSymbols();
 
 	// Do the reading in of objects.
 	int version = in.readInt();
@@ -590,10 +867,17 @@ public class Automaton implements Serializable, Cloneable {
     
     /** The collection of states in this automaton. */
     private Set states;
+    /** The states of this automaton indexed by ID, with
+     * <CODE>null</CODE> for IDs not in use. */
+    private transient StateAutomaton[] statesByID;
+    /** Every ID below this one is in use. */
+    private transient int lowestFreeID = 0;
     /** The cached array of states. */
     private StateAutomaton[] cachedStates = null;
     /** The cached array of transitions. */
     private Transition[] cachedTransitions = null;
+    /** The number of changes made to the states and transitions. */
+    private transient int modifications = 0;
     /** The cached array of final states. */
     private StateAutomaton[] cachedFinalStates = null;
 
@@ -624,4 +908,23 @@ public class Automaton implements Serializable, Cloneable {
     // addition of states and transtions.
     private transient HashSet transitionListeners = new HashSet();
     private transient HashSet stateListeners = new HashSet(); 
+    // SYMBOL TABLE
+    // The alphabet, kept as transitions are added and removed.
+    /** The map of symbols to their IDs. */
+    private transient HashMap symbolIDs;
+    /** The symbols, indexed by ID. */
+    private transient String[] symbols;
+    /** The number of transitions on each symbol, indexed by ID. */
+    private transient int[] symbolUses;
+    /** The number of symbols. */
+    private transient int symbolCount;
+    /** The cached array of symbols. */
+    private transient String[] cachedAlphabet;
+
+    /** The number of batches of changes begun and not committed. */
+    private transient int batchDepth = 0;
+    /** Whether a state changed during the current batch. */
+    private transient boolean batchStateChange = false;
+    /** Whether a transition changed during the current batch. */
+    private transient boolean batchTransitionChange = false;
 }
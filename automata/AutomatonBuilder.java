@@ -0,0 +1,188 @@
+/* -- JFLAP 4.0 --
+ *
+ * Copyright information:
+ *
+ * Susan H. Rodger, Thomas Finley
+ * Computer Science Department
+ * Duke University
+ * April 24, 2003
+ * Supported by National Science Foundation DUE-9752583.
+ *
+ * Copyright (c) 2003
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that the above copyright notice and this paragraph are
+ * duplicated in all such forms and that any documentation,
+ * advertising materials, and other materials related to such
+ * distribution and use acknowledge that the software was developed
+ * by the author.  The name of the author may not be used to
+ * endorse or promote products derived from this software without
+ * specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+ 
+package automata;
+
+import automata.turing.TMTransition;
+import automata.turing.TuringMachine;
+import java.awt.Point;
+import java.util.*;
+
+/**
+ * The automaton builder adds states and transitions to an automaton
+ * in bulk.  Adding a transition to an automaton directly checks it
+ * against the transitions already there, throws out the cached
+ * arrays of transitions, and tells every listener; this is fine for
+ * an edit at a time, but building a large automaton that way does a
+ * great deal of needless work.  The builder instead collects the new
+ * states and transitions, and at {@link #build} puts them all into
+ * the automaton at once, discarding duplicate transitions in a
+ * single pass and filling in the automaton's maps from states to
+ * transitions just once.  No events are distributed for anything the
+ * builder adds, so it is best used on automata no view is listening
+ * to yet.
+ *
+ * @author Thomas Finley
+ */
+
+public class AutomatonBuilder {
+    /**
+     * Instantiates a new builder.
+     * @param automaton the automaton to add states and transitions
+     * to, which is typically empty
+     */
+    public AutomatonBuilder(Automaton automaton) {
+	this.automaton = automaton;
+	transitionClass = automaton.getTransitionClass();
+	State[] existing = automaton.getStates();
+	if (existing.length != 0)
+	    nextID = existing[existing.length-1].getID() + 1;
+    }
+
+    /**
+     * Creates a state that will be added to the automaton.  The new
+     * states get consecutive IDs, starting after the largest ID in
+     * the automaton.
+     * @param point the point to put the state at
+     * @return the new state, of the same class as from {@link
+     * Automaton#createState}
+     * @throws IllegalStateException if the automaton is already built
+     */
+    public StateAutomaton createState(Point point) {
+	checkNotBuilt();
+	StateAutomaton state = new StateAutomaton(nextID++, point, automaton);
+	states.add(state);
+	return state;
+    }
+
+    /**
+     * Sets the initial state of the automaton.
+     * @param state the new initial state, either one created by this
+     * builder or one already in the automaton
+     */
+    public void setInitialState(State state) {
+	automaton.setInitialState(state);
+    }
+
+    /**
+     * Makes a state of the automaton final.
+     * @param state the new final state, either one created by this
+     * builder or one already in the automaton
+     */
+    public void addFinalState(State state) {
+	automaton.addFinalState(state);
+    }
+
+    /**
+     * Adds a transition that will be added to the automaton.  Adding
+     * a transition equal to one added before does nothing.
+     * @param transition the transition to add
+     * @throws IncompatibleTransitionException if the transition is not
+     * of the type the automaton takes
+     * @throws IllegalArgumentException if the transition is from or to
+     * a state that is neither in the automaton nor created by this
+     * builder, or needs a different number of tapes than the Turing
+     * machine being built uses
+     * @throws IllegalStateException if the automaton is already built
+     */
+    public void addTransition(Transition transition) {
+	checkNotBuilt();
+	if (!transitionClass.isInstance(transition))
+	    throw new IncompatibleTransitionException();
+	if (!isState(transition.getFromState()) ||
+	    !isState(transition.getToState()))
+	    throw new IllegalArgumentException
+		("Transition on a state not in the automaton!");
+	if (automaton instanceof TuringMachine) {
+	    TuringMachine machine = (TuringMachine) automaton;
+	    int tapes = ((TMTransition) transition).tapes();
+	    if (machine.tapes == 0) machine.tapes = tapes;
+	    if (tapes != machine.tapes)
+		throw new IllegalArgumentException
+		    ("Transition has "+tapes+" tapes while TM has "+
+		     machine.tapes);
+	}
+	transitions.add(transition);
+    }
+
+    /**
+     * Returns if a state is one transitions may be on, that is, if it
+     * is created by this builder or is in the automaton.
+     * @param state the state to check
+     * @return if transitions may be on the state
+     */
+    private boolean isState(State state) {
+	if (state.getAutomaton() != automaton) return false;
+	int id = state.getID();
+	return id >= firstID() && id < nextID &&
+	    states.get(id - firstID()) == state || automaton.isState(state);
+    }
+
+    /**
+     * Returns the ID of the first state created by this builder.
+     * @return the ID of the first state this builder creates
+     */
+    private int firstID() {
+	return nextID - states.size();
+    }
+
+    /**
+     * Puts the states and transitions added to this builder into the
+     * automaton.  The builder may not be used after this.
+     * @return the automaton
+     * @throws IllegalStateException if the automaton is already built
+     */
+    public Automaton build() {
+	checkNotBuilt();
+	automaton.addAll(states, transitions);
+	built = true;
+	states = null;
+	transitions = null;
+	return automaton;
+    }
+
+    /**
+     * Makes sure that the automaton is not built yet.
+     * @throws IllegalStateException if the automaton is already built
+     */
+    private void checkNotBuilt() {
+	if (built)
+	    throw new IllegalStateException("The automaton is already built!");
+    }
+
+    /** The automaton being built. */
+    private Automaton automaton;
+    /** The class of transitions the automaton takes. */
+    private Class transitionClass;
+    /** The states created, in order of ID. */
+    private ArrayList states = new ArrayList();
+    /** The transitions added, perhaps with duplicates. */
+    private ArrayList transitions = new ArrayList();
+    /** The ID of the next state created. */
+    private int nextID = 0;
+    /** Whether the automaton is already built. */
+    private boolean built = false;
+}
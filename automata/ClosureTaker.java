@@ -53,26 +53,16 @@ public class ClosureTaker {
      * @return the set of states that represent the closure of state.
      */
     public static StateAutomaton[] getClosure(StateAutomaton state, Automaton automaton) {
-	List list = new ArrayList();
-	list.add(state);
-	for (int i=0; i<list.size(); i++) {
-	    state = (StateAutomaton) list.get(i);
-	    Transition transitions[] =
-		automaton.getTransitionsFromState(state);
-	    for(int k = 0; k < transitions.length; k++) {
-		Transition transition = transitions[k];
-		LambdaTransitionChecker checker = 
-		    LambdaCheckerFactory.getLambdaChecker(automaton);
-		/** if lambda transition */
-		if(checker.isLambdaTransition(transition)) {
-		    StateAutomaton toState = transition.getToState();
-		    if(!list.contains(toState)) {
-			list.add(toState);
-		    }
+	final LambdaTransitionChecker checker =
+	    LambdaCheckerFactory.getLambdaChecker(automaton);
+	StateTraverser traverser =
+	    new StateTraverser(automaton, StateTraverser.FORWARD) {
+		protected boolean follows(Transition transition) {
+		    return checker.isLambdaTransition(transition);
 		}
-	    }
-	}
-	return (StateAutomaton[]) list.toArray(new StateAutomaton[0]);
+	    };
+	return traverser.breadthFirst(new StateAutomaton[] {state},
+				      new BitSet());
     }
 
 
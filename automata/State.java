@@ -51,6 +51,7 @@ public class State implements Serializable {
     public State(int id, Point point, Automaton automaton) {
 	this.point = point;
 	this.id = id;
+	this.hash = id;
 	this.automaton = automaton;
     }
 
@@ -96,11 +97,25 @@ public class State implements Serializable {
      */
     protected void setID(int id) {
 	if (("q"+this.id).equals(name)) name=null;
+	int oldID = this.id;
 	this.id = id;
+	getAutomaton().stateIDChanged(this, oldID);
 	getAutomaton().distributeStateEvent
 	    (new AutomataStateEvent(getAutomaton(), this, false, false, true));
     }
 
+    /**
+     * Returns the hash code for this state, which is the ID it was
+     * created with.  States are equal only to themselves, so this does
+     * not change if the state is given a new ID while it is a key in
+     * some map.  As IDs are small and dense, states spread evenly over
+     * hash tables without the virtual machine making an identity hash.
+     * @return the hash code for this state
+     */
+    public int hashCode() {
+	return hash;
+    }
+
     /**
      * Returns a string representation of this object.  The string
      * representation contains the ID and the point of the state.  If
@@ -195,6 +210,8 @@ public class State implements Serializable {
     Point point;
     /** The state ID. */
     int id;
+    /** The hash code, the ID this state was created with. */
+    private int hash;
     /** The name of the state. */
     String name = null;
     /** The subscript unicode start point. */
@@ -0,0 +1,285 @@
+/* -- JFLAP 4.0 --
+ *
+ * Copyright information:
+ *
+ * Susan H. Rodger, Thomas Finley
+ * Computer Science Department
+ * Duke University
+ * April 24, 2003
+ * Supported by National Science Foundation DUE-9752583.
+ *
+ * Copyright (c) 2003
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that the above copyright notice and this paragraph are
+ * duplicated in all such forms and that any documentation,
+ * advertising materials, and other materials related to such
+ * distribution and use acknowledge that the software was developed
+ * by the author.  The name of the author may not be used to
+ * endorse or promote products derived from this software without
+ * specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+ 
+package automata;
+
+import java.util.*;
+
+/**
+ * The state traverser walks the states of an automaton along its
+ * transitions, forwards, backwards, or both ways.  It offers breadth
+ * first and depth first search, topological ordering, and strongly
+ * connected components by Tarjan's algorithm.  None of these recurse;
+ * each keeps an explicit stack, so long chains of states cannot
+ * overflow the call stack.  States are marked in bit sets indexed by
+ * their IDs, which the automaton keeps dense, and their neighbors are
+ * found only as they are reached.
+ *
+ * Subclasses may follow only some transitions by overriding
+ * {@link #follows}.
+ *
+ * @author Thomas Finley
+ */
+
+public class StateTraverser {
+    /**
+     * Instantiates a new state traverser.
+     * @param automaton the automaton to traverse
+     * @param direction which way to follow transitions, one of
+     * {@link #FORWARD}, {@link #BACKWARD} and {@link #BOTH}
+     * @throws IllegalArgumentException if the direction is unknown
+     */
+    public StateTraverser(Automaton automaton, int direction) {
+	if(direction < FORWARD || direction > BOTH) {
+	    throw new IllegalArgumentException
+		("Unknown direction " + direction + ".");
+	}
+	this.automaton = automaton;
+	this.direction = direction;
+    }
+
+    /**
+     * Returns if a transition is followed.  By default every
+     * transition is.
+     * @param transition the transition
+     * @return <CODE>true</CODE> if the transition is followed,
+     * <CODE>false</CODE> otherwise
+     */
+    protected boolean follows(Transition transition) {
+	return true;
+    }
+
+    /**
+     * Returns the states one followed transition away from a state.
+     * A state may appear more than once.
+     * @param state the state
+     * @return the neighbors of the state
+     */
+    public State[] getNeighbors(State state) {
+	ArrayList list = new ArrayList();
+	if(direction != BACKWARD) {
+	    Transition[] transitions = automaton.getTransitionsFromState(state);
+	    for(int k = 0; k < transitions.length; k++) {
+		if(follows(transitions[k])) {
+		    list.add(transitions[k].getToState());
+		}
+	    }
+	}
+	if(direction != FORWARD) {
+	    Transition[] transitions = automaton.getTransitionsToState(state);
+	    for(int k = 0; k < transitions.length; k++) {
+		if(follows(transitions[k])) {
+		    list.add(transitions[k].getFromState());
+		}
+	    }
+	}
+	return (State[]) list.toArray(new State[0]);
+    }
+
+    /**
+     * Visits, breadth first, the states reachable from some sources
+     * that are not marked yet.
+     * @param sources the states to start from
+     * @param visited the IDs of the states already visited, which
+     * are not visited again or gone through; the newly visited states
+     * are marked in it
+     * @return the newly visited states, in the order visited
+     */
+    public State[] breadthFirst(State[] sources, BitSet visited) {
+	ArrayList list = new ArrayList();
+	for(int k = 0; k < sources.length; k++) {
+	    if(visited.get(sources[k].getID())) continue;
+	    visited.set(sources[k].getID());
+	    list.add(sources[k]);
+	}
+	for(int i = 0; i < list.size(); i++) {
+	    State[] neighbors = getNeighbors((State) list.get(i));
+	    for(int k = 0; k < neighbors.length; k++) {
+		if(visited.get(neighbors[k].getID())) continue;
+		visited.set(neighbors[k].getID());
+		list.add(neighbors[k]);
+	    }
+	}
+	return (State[]) list.toArray(new State[0]);
+    }
+
+    /**
+     * Visits, depth first, the states reachable from a source that
+     * are not marked yet.
+     * @param source the state to start from
+     * @param visited the IDs of the states already visited, which
+     * are not visited again or gone through; the newly visited states
+     * are marked in it
+     * @return the newly visited states, in the order first visited
+     */
+    public State[] depthFirst(State source, BitSet visited) {
+	ArrayList list = new ArrayList();
+	ArrayList stack = new ArrayList();
+	stack.add(source);
+	while(!stack.isEmpty()) {
+	    State state = (State) stack.remove(stack.size() - 1);
+	    if(visited.get(state.getID())) continue;
+	    visited.set(state.getID());
+	    list.add(state);
+	    State[] neighbors = getNeighbors(state);
+	    /** push in reverse so the first neighbor is visited first. */
+	    for(int k = neighbors.length - 1; k >= 0; k--) {
+		if(!visited.get(neighbors[k].getID())) stack.add(neighbors[k]);
+	    }
+	}
+	return (State[]) list.toArray(new State[0]);
+    }
+
+    /**
+     * Returns the states of the automaton in topological order, so
+     * that every followed transition goes from an earlier state to a
+     * later one.
+     * @return the states in topological order, or <CODE>null</CODE>
+     * if followed transitions make a cycle
+     */
+    public State[] getTopologicalOrder() {
+	State[] states = automaton.getStates();
+	State[] order = new State[states.length];
+	int placed = states.length;
+	BitSet visited = new BitSet(), onPath = new BitSet();
+	State[][] neighbors = new State[states.length][];
+	State[] path = new State[states.length];
+	int[] position = new int[states.length];
+	for(int k = 0; k < states.length; k++) {
+	    if(visited.get(states[k].getID())) continue;
+	    int depth = 0;
+	    path[0] = states[k];
+	    neighbors[0] = getNeighbors(states[k]);
+	    position[0] = 0;
+	    visited.set(states[k].getID());
+	    onPath.set(states[k].getID());
+	    while(depth >= 0) {
+		if(position[depth] == neighbors[depth].length) {
+		    /** every state after this one is placed. */
+		    onPath.clear(path[depth].getID());
+		    order[--placed] = path[depth--];
+		    continue;
+		}
+		State next = neighbors[depth][position[depth]++];
+		if(onPath.get(next.getID())) return null;
+		if(visited.get(next.getID())) continue;
+		visited.set(next.getID());
+		onPath.set(next.getID());
+		path[++depth] = next;
+		neighbors[depth] = getNeighbors(next);
+		position[depth] = 0;
+	    }
+	}
+	return order;
+    }
+
+    /**
+     * Returns the strongly connected components of the automaton, by
+     * Tarjan's algorithm.  Two states are in the same component if
+     * each can reach the other by followed transitions.
+     * @return the components, each an array of states; a component
+     * comes before the components that can reach it
+     */
+    public State[][] getStronglyConnectedComponents() {
+	State[] states = automaton.getStates();
+	int size = 0;
+	for(int k = 0; k < states.length; k++) {
+	    size = Math.max(size, states[k].getID() + 1);
+	}
+	/** the order each state was found in, by ID, or 0 if not yet. */
+	int[] found = new int[size];
+	int[] lowest = new int[size];
+	int count = 0;
+	BitSet onStack = new BitSet();
+	State[] stack = new State[states.length];
+	int top = 0;
+	State[][] neighbors = new State[states.length][];
+	State[] path = new State[states.length];
+	int[] position = new int[states.length];
+	ArrayList components = new ArrayList();
+	for(int k = 0; k < states.length; k++) {
+	    if(found[states[k].getID()] != 0) continue;
+	    int depth = 0;
+	    path[0] = states[k];
+	    neighbors[0] = getNeighbors(states[k]);
+	    position[0] = 0;
+	    found[states[k].getID()] = lowest[states[k].getID()] = ++count;
+	    stack[top++] = states[k];
+	    onStack.set(states[k].getID());
+	    while(depth >= 0) {
+		int id = path[depth].getID();
+		if(position[depth] < neighbors[depth].length) {
+		    State next = neighbors[depth][position[depth]++];
+		    int nextID = next.getID();
+		    if(found[nextID] == 0) {
+			found[nextID] = lowest[nextID] = ++count;
+			stack[top++] = next;
+			onStack.set(nextID);
+			path[++depth] = next;
+			neighbors[depth] = getNeighbors(next);
+			position[depth] = 0;
+		    } else if(onStack.get(nextID)) {
+			lowest[id] = Math.min(lowest[id], found[nextID]);
+		    }
+		    continue;
+		}
+		/** done with this state; pop its component if it is a
+		 * root, and pass its lowest number up. */
+		if(lowest[id] == found[id]) {
+		    ArrayList component = new ArrayList();
+		    State member;
+		    do {
+			member = stack[--top];
+			onStack.clear(member.getID());
+			component.add(member);
+		    } while(member != path[depth]);
+		    components.add(component.toArray(new State[0]));
+		}
+		neighbors[depth] = null;
+		depth--;
+		if(depth >= 0) {
+		    int parent = path[depth].getID();
+		    lowest[parent] = Math.min(lowest[parent], lowest[id]);
+		}
+	    }
+	}
+	return (State[][]) components.toArray(new State[0][]);
+    }
+
+    /** The direction for following transitions from their from state
+     * to their to state. */
+    public static final int FORWARD = 0;
+    /** The direction for following transitions from their to state
+     * to their from state. */
+    public static final int BACKWARD = 1;
+    /** The direction for following transitions both ways. */
+    public static final int BOTH = 2;
+
+    /** The automaton. */
+    protected Automaton automaton;
+    /** Which way transitions are followed. */
+    protected int direction;
+}
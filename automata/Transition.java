@@ -104,6 +104,16 @@ public abstract class Transition implements Serializable, Cloneable {
 	return "";
     }
 
+    /**
+     * Returns the input symbol this transition is on, which goes in
+     * the alphabet of its automaton.  This defaults to the empty
+     * string, meaning no symbol.  Subclasses should override.
+     * @return an empty string
+     */
+    public String getSymbol() {
+	return "";
+    }
+
     /**
      * Returns a string representation of this object.  The string
      * returned is the string representation of the first state, and
@@ -131,11 +141,13 @@ public abstract class Transition implements Serializable, Cloneable {
     }
 
     /**
-     * Returns the hash code for this transition.
+     * Returns the hash code for this transition.  The hash codes of
+     * states are their IDs, so the two are combined unevenly, lest a
+     * transition and its reverse, or every loop, hash alike.
      * @return the hash code for this transition
      */
     public int hashCode() {
-	return from.hashCode() ^ to.hashCode();
+	return 31 * from.hashCode() + to.hashCode();
     }
     
     /** The states this transition goes between. */
@@ -55,11 +55,13 @@ public class UnreachableStatesDetector {
      */
     public void initializeNodes(State[] states) {
 	myNodes = new Node[states.length];
+	nodeForState = new HashMap();
 	/** Color all vertices white. */
 	for(int k = 0; k < states.length; k++) {
 	    Node node = new Node(states[k]);
 	    node.colorWhite();
 	    myNodes[k] = node;
+	    nodeForState.put(states[k], node);
 	}
     }
 
@@ -98,40 +100,39 @@ public class UnreachableStatesDetector {
      * @return Node object that contains <CODE>state</CODE>.
      */
     public Node getNodeForState(State state) {
-	/** Search through all nodes for state. */
-	for(int k = 0; k < myNodes.length; k++) {
-	    Node node = myNodes[k];
-	    if(node.getState() == state) return node;
-	}
-	return null;
+	return (Node) nodeForState.get(state);
     }
 
     /**
      * The visit method from the standard DFS algorithm for directed
-     * graphs.  A recursive function which visits all neighbors of 
-     * <CODE>node</CODE> (i.e. all states reachable by transitions
-     * out of <CODE>node</CODE>), and then visits the neighbors of
-     * all those nodes and so on.  In the end, all nodes reachable
-     * from <CODE>node</CODE> will have been visited and colored
-     * black.
+     * graphs.  Visits all neighbors of <CODE>node</CODE> (i.e. all
+     * states reachable by transitions out of <CODE>node</CODE>), and
+     * then visits the neighbors of all those nodes and so on, skipping
+     * nodes that are not white.  In the end, all nodes reachable from
+     * <CODE>node</CODE> will have been visited and colored black.
+     * The search is done by a {@link StateTraverser}, so it does not
+     * recurse.
      */
     public void visit(Node node) {
-	node.colorGrey();
-	Transition[] transitions = 
-	    myAutomaton.getTransitionsFromState(node.getState());
-	for(int k = 0; k < transitions.length; k++) {
-	    Transition transition = transitions[k];
-	    State toState = transition.getToState();
-	    Node v = getNodeForState(toState);
-	    if(v.isWhite()) {
-		visit(v);
+	BitSet visited = new BitSet();
+	for(int k = 0; k < myNodes.length; k++) {
+	    if(!myNodes[k].isWhite()) {
+		visited.set(myNodes[k].getState().getID());
 	    }
 	}
-	node.colorBlack();
+	visited.clear(node.getState().getID());
+	StateTraverser traverser =
+	    new StateTraverser(myAutomaton, StateTraverser.FORWARD);
+	State[] reached = traverser.depthFirst(node.getState(), visited);
+	for(int k = 0; k < reached.length; k++) {
+	    getNodeForState(reached[k]).colorBlack();
+	}
     }
 
     /** The automaton. */
     protected Automaton myAutomaton;
     /** Set of nodes for dfs. */
     protected Node[] myNodes;
+    /** The map of states to their nodes. */
+    private HashMap nodeForState;
 }
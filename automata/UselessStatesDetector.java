@@ -95,17 +95,10 @@ public class UselessStatesDetector {
      * @return the set of state that can lead to a final state
      */
     private static Set findFinal(Automaton a) {
-	Set finalized = new HashSet();
-	finalized.addAll(Arrays.asList(a.getFinalStates()));
-	boolean added = finalized.size() != 0;
-	Transition[] t = a.getTransitions();
-	while (added) {
-	    added = false;
-	    for (int i=0; i<t.length; i++)
-		if (finalized.contains(t[i].getToState()))
-		    added = added || finalized.add(t[i].getFromState());
-	}
-	return finalized;
+	StateTraverser traverser =
+	    new StateTraverser(a, StateTraverser.BACKWARD);
+	return new HashSet(Arrays.asList(traverser.breadthFirst
+					 (a.getFinalStates(), new BitSet())));
     }
 
     /**
@@ -114,16 +107,10 @@ public class UselessStatesDetector {
      * @return the set of states reachable from an initial state
      */
     private static Set findInitial(Automaton a) {
-	Set initialized = new HashSet();
-	initialized.add(a.getInitialState());
-	boolean added = true;
-	Transition[] t = a.getTransitions();
-	while (added) {
-	    added = false;
-	    for (int i=0; i<t.length; i++)
-		if (initialized.contains(t[i].getFromState()))
-		    added = added || initialized.add(t[i].getToState());
-	}
-	return initialized;
+	StateTraverser traverser =
+	    new StateTraverser(a, StateTraverser.FORWARD);
+	State[] initial = new State[] {a.getInitialState()};
+	return new HashSet(Arrays.asList(traverser.breadthFirst
+					 (initial, new BitSet())));
     }
 }
@@ -62,6 +62,18 @@ public class AutomataStateEvent extends EventObject {
 	myLabel = label;
     }
 
+    /**
+     * Instantiates a new <CODE>AutomataStateEvent</CODE> that stands
+     * for a batch of changes, in which states may have been added,
+     * removed, moved, or relabeled.  Such an event has no state.
+     * @param auto the <CODE>Automaton</CODE> that generated the event
+     * @see automata.Automaton#commitBatch
+     */
+    public AutomataStateEvent(Automaton auto) {
+	this(auto, null, false, false, false);
+	myBatch = true;
+    }
+
     /**
      * Returns the <CODE>Automaton</CODE> that generated this event.
      * @return the <CODE>Automaton</CODE> that generated this event
@@ -111,7 +123,18 @@ public class AutomataStateEvent extends EventObject {
      * state, false otherwise
      */
     public boolean isDelete() {
-	return !(myMove || myAdd || myLabel);
+	return !(myMove || myAdd || myLabel || myBatch);
+    }
+
+    /**
+     * Returns if this stands for a batch of changes.  Listeners
+     * should then look at the whole automaton again, as any of its
+     * states may have changed in any way.
+     * @return <CODE>true</CODE> if this event stands for a batch of
+     * changes, <CODE>false</CODE> if it is about one state
+     */
+    public boolean isBatch() {
+	return myBatch;
     }
     
     /** Was this an add? */
@@ -120,6 +143,8 @@ public class AutomataStateEvent extends EventObject {
     private boolean myMove;
     /** Was the label for the state changed? */
     public boolean myLabel;
+    /** Is this for a batch of changes? */
+    private boolean myBatch = false;
     /** Which state did we add/remove? */
     private StateAutomaton myState;
 }
@@ -63,6 +63,19 @@ public class AutomataTransitionEvent extends EventObject {
 	myChange = change;
     }
 
+    /**
+     * Instantiates a new <CODE>AutomataTransitionEvent</CODE> that
+     * stands for a batch of changes, in which transitions may have
+     * been added, removed, or changed.  Such an event has no
+     * transition.
+     * @param auto the <CODE>Automaton</CODE> that generated the event
+     * @see automata.Automaton#commitBatch
+     */
+    public AutomataTransitionEvent(Automaton auto) {
+	this(auto, null, false, false);
+	myBatch = true;
+    }
+
     /**
      * Returns the <CODE>Automaton</CODE> that generated this event.
      * @return the <CODE>Automaton</CODE> that generated this event
@@ -94,7 +107,7 @@ public class AutomataTransitionEvent extends EventObject {
      * of a transition, <CODE>false</CODE> otherwise
      */
     public boolean isDelete() {
-	return !(myAdd || myChange);
+	return !(myAdd || myChange || myBatch);
     }
 
     /**
@@ -106,6 +119,17 @@ public class AutomataTransitionEvent extends EventObject {
     public boolean isChange() {
 	return myChange;
     }
+
+    /**
+     * Returns if this stands for a batch of changes.  Listeners
+     * should then look at all the transitions again, as any of them
+     * may have been added, removed, or changed.
+     * @return <CODE>true</CODE> if this event stands for a batch of
+     * changes, <CODE>false</CODE> if it is about one transition
+     */
+    public boolean isBatch() {
+	return myBatch;
+    }
     
     /** Was this an add? */
     private boolean myAdd;
@@ -113,4 +137,6 @@ public class AutomataTransitionEvent extends EventObject {
     private Transition myTransition;
     /** Is this a change in property? */
     private boolean myChange;
+    /** Is this for a batch of changes? */
+    private boolean myBatch = false;
 }
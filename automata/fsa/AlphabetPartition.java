@@ -0,0 +1,332 @@
+/* -- JFLAP 4.0 --
+ *
+ * Copyright information:
+ *
+ * Susan H. Rodger, Thomas Finley
+ * Computer Science Department
+ * Duke University
+ * April 24, 2003
+ * Supported by National Science Foundation DUE-9752583.
+ *
+ * Copyright (c) 2003
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that the above copyright notice and this paragraph are
+ * duplicated in all such forms and that any documentation,
+ * advertising materials, and other materials related to such
+ * distribution and use acknowledge that the software was developed
+ * by the author.  The name of the author may not be used to
+ * endorse or promote products derived from this software without
+ * specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+ 
+package automata.fsa;
+
+import automata.*;
+import java.util.*;
+
+/**
+ * An alphabet partition divides the characters read by the
+ * transitions of some finite state automata into minterms, the
+ * largest sets of characters that no transition tells apart: two
+ * characters are in the same minterm if every label either reads both
+ * or reads neither.  A label that is a symbol class reads the
+ * characters in the class, and a string label reads its characters.
+ * Characters that no label reads are in no minterm.
+ *
+ * The minterms are found by refining the partition by each label in
+ * turn, over the ranges between the ends of all the labels' ranges,
+ * so the time depends on the number of ranges, not the number of
+ * characters.  They are numbered from 0 in the order of their first
+ * characters.  After {@link #refine} replaces each symbol class by
+ * the minterms in it, the labels of different transitions read either
+ * the same characters or none in common, so algorithms that compare
+ * labels as strings, such as conversion to a DFA and minimization,
+ * apply to automata with symbol classes, and their alphabets are the
+ * minterms rather than every character.
+ *
+ * @author Thomas Finley
+ */
+
+public class AlphabetPartition {
+    /**
+     * Partitions the characters read by the transitions of some
+     * finite state automata.
+     * @param automata the automata
+     */
+    public AlphabetPartition(Automaton[] automata) {
+	// Gather the ranges of each label, as pairs of bounds.
+	ArrayList labels = new ArrayList();
+	HashSet seen = new HashSet();
+	for (int i=0; i<automata.length; i++) {
+	    Transition[] transitions = automata[i].getTransitions();
+	    for (int j=0; j<transitions.length; j++) {
+		FSATransition t = (FSATransition) transitions[j];
+		SymbolClass symbolClass = t.getSymbolClass();
+		if (symbolClass != null) {
+		    if (!seen.add(symbolClass)) continue;
+		    int[] bounds = new int[symbolClass.getRangeCount() * 2];
+		    for (int k=0; k<bounds.length; k+=2) {
+			bounds[k] = symbolClass.getLow(k/2);
+			bounds[k+1] = symbolClass.getHigh(k/2);
+		    }
+		    labels.add(bounds);
+		    continue;
+		}
+		String label = t.getLabel();
+		for (int k=0; k<label.length(); k++) {
+		    Character c = new Character(label.charAt(k));
+		    if (!seen.add(c)) continue;
+		    labels.add(new int[] {c.charValue(), c.charValue()});
+		}
+	    }
+	}
+
+	// The ends of the ranges cut the characters into pieces.
+	int[] cuts = new int[labels.size() * 4];
+	int count = 0;
+	for (int i=0; i<labels.size(); i++) {
+	    int[] bounds = (int[]) labels.get(i);
+	    for (int k=0; k<bounds.length; k+=2) {
+		if (count + 2 > cuts.length) cuts = grow(cuts);
+		cuts[count++] = bounds[k];
+		cuts[count++] = bounds[k+1] + 1;
+	    }
+	}
+	Arrays.sort(cuts, 0, count);
+	int distinct = 0;
+	for (int i=0; i<count; i++)
+	    if (distinct == 0 || cuts[i] != cuts[distinct-1])
+		cuts[distinct++] = cuts[i];
+	starts = new int[distinct];
+	System.arraycopy(cuts, 0, starts, 0, distinct);
+	int pieces = Math.max(0, distinct - 1);
+
+	// Refine by each label.  Block 0 holds the pieces no label has
+	// read yet; the pieces of each block that a label reads move to
+	// a new block of their own.
+	int[] block = new int[pieces];
+	int blocks = 1;
+	int[] moveTo = new int[16], movedFor = new int[16];
+	for (int i=0; i<labels.size(); i++) {
+	    int[] bounds = (int[]) labels.get(i);
+	    for (int k=0; k<bounds.length; k+=2) {
+		for (int p=getPiece(bounds[k]); p<pieces &&
+			 starts[p]<=bounds[k+1]; p++) {
+		    int b = block[p];
+		    if (movedFor[b] != i+1) {
+			if (blocks == moveTo.length) {
+			    moveTo = grow(moveTo);
+			    movedFor = grow(movedFor);
+			}
+			movedFor[b] = i+1;
+			moveTo[b] = blocks++;
+		    }
+		    block[p] = moveTo[b];
+		}
+	    }
+	}
+
+	// Number the blocks in the order of their first pieces.
+	int[] number = new int[blocks];
+	Arrays.fill(number, -1);
+	minterm = new int[pieces];
+	ArrayList lows = new ArrayList(), highs = new ArrayList();
+	for (int p=0; p<pieces; p++) {
+	    if (block[p] == 0) {
+		minterm[p] = -1;
+		continue;
+	    }
+	    if (number[block[p]] < 0) {
+		number[block[p]] = lows.size();
+		lows.add(new StringBuffer());
+		highs.add(new StringBuffer());
+	    }
+	    minterm[p] = number[block[p]];
+	    StringBuffer low = (StringBuffer) lows.get(minterm[p]);
+	    StringBuffer high = (StringBuffer) highs.get(minterm[p]);
+	    low.append((char) starts[p]);
+	    high.append((char) (starts[p+1]-1));
+	}
+	minterms = new SymbolClass[lows.size()];
+	for (int m=0; m<minterms.length; m++)
+	    minterms[m] = new SymbolClass
+		(lows.get(m).toString().toCharArray(),
+		 highs.get(m).toString().toCharArray());
+    }
+
+    /**
+     * Returns a copy of an array twice as long.
+     * @param array the array
+     * @return the longer copy
+     */
+    private static int[] grow(int[] array) {
+	int[] bigger = new int[array.length * 2];
+	System.arraycopy(array, 0, bigger, 0, array.length);
+	return bigger;
+    }
+
+    /**
+     * Returns the piece a character is in.
+     * @param c the character
+     * @return the index of the last piece starting at or before the
+     * character, which is -1 if there is none
+     */
+    private int getPiece(int c) {
+	int low = 0, high = starts.length - 1;
+	while (low <= high) {
+	    int middle = (low + high) >>> 1;
+	    if (starts[middle] <= c) low = middle + 1;
+	    else high = middle - 1;
+	}
+	return high;
+    }
+
+    /**
+     * Returns the number of minterms.
+     * @return the number of minterms
+     */
+    public int getMintermCount() {
+	return minterms.length;
+    }
+
+    /**
+     * Returns the characters in a minterm.
+     * @param id the number of the minterm
+     * @return the class of characters in the minterm
+     */
+    public SymbolClass getMinterm(int id) {
+	return minterms[id];
+    }
+
+    /**
+     * Returns the minterm a character is in.
+     * @param c the character
+     * @return the number of the minterm, or -1 if no label reads the
+     * character
+     */
+    public int getMintermID(char c) {
+	int p = getPiece(c);
+	return p < 0 || p >= minterm.length ? -1 : minterm[p];
+    }
+
+    /**
+     * Returns the minterms a transition reads.
+     * @param transition the transition, with a label of a symbol
+     * class, or of at most one character
+     * @return the numbers of the minterms the label reads, in order;
+     * this is empty for a lambda transition
+     * @throws IllegalArgumentException if the label is of more than
+     * one character
+     */
+    public int[] getMinterms(FSATransition transition) {
+	SymbolClass symbolClass = transition.getSymbolClass();
+	if (symbolClass == null) {
+	    String label = transition.getLabel();
+	    if (label.length() > 1)
+		throw new IllegalArgumentException
+		    ("Label "+label+" has more than one character!");
+	    if (label.length() == 0) return new int[0];
+	    return new int[] {getMintermID(label.charAt(0))};
+	}
+	BitSet read = new BitSet();
+	for (int k=0; k<symbolClass.getRangeCount(); k++) {
+	    int high = symbolClass.getHigh(k);
+	    for (int p=Math.max(0, getPiece(symbolClass.getLow(k)));
+		 p<minterm.length && starts[p]<=high; p++)
+		if (minterm[p] >= 0) read.set(minterm[p]);
+	}
+	int[] ids = new int[read.cardinality()];
+	for (int m=read.nextSetBit(0), i=0; m>=0; m=read.nextSetBit(m+1))
+	    ids[i++] = m;
+	return ids;
+    }
+
+    /**
+     * Returns a transition on a minterm.  If the minterm is one
+     * character, the label is that character; otherwise the label is
+     * the minterm's symbol class.
+     * @param from the state the transition comes from
+     * @param to the state the transition goes to
+     * @param id the number of the minterm
+     * @return the transition
+     */
+    public FSATransition getTransition(State from, State to, int id) {
+	SymbolClass symbolClass = minterms[id];
+	if (symbolClass.size() == 1)
+	    return new FSATransition(from, to, String.valueOf
+				     (symbolClass.getLow(0)));
+	return new FSATransition(from, to, symbolClass);
+    }
+
+    /**
+     * Returns the label of transitions on a minterm, as made by
+     * {@link #getTransition}.
+     * @param id the number of the minterm
+     * @return the label of transitions on the minterm
+     */
+    public String getLabel(int id) {
+	SymbolClass symbolClass = minterms[id];
+	if (symbolClass.size() == 1)
+	    return String.valueOf(symbolClass.getLow(0));
+	return symbolClass.toString();
+    }
+
+    /**
+     * Replaces each transition on a symbol class in an automaton with
+     * transitions on the minterms in the class, in one batch.  The
+     * automaton should be one of those partitioned, or have labels
+     * made of those minterms, and should have no labels of more than
+     * one character.
+     * @param automaton the automaton to change
+     */
+    public void refine(Automaton automaton) {
+	Transition[] transitions = automaton.getTransitions();
+	ArrayList list = new ArrayList();
+	for (int i=0; i<transitions.length; i++)
+	    if (((FSATransition) transitions[i]).getSymbolClass() != null)
+		list.add(transitions[i]);
+	if (list.isEmpty()) return;
+	transitions = (Transition[]) list.toArray(new Transition[0]);
+	automaton.beginBatch();
+	try {
+	    automaton.removeTransitions(transitions);
+	    for (int i=0; i<transitions.length; i++) {
+		int[] ids = getMinterms((FSATransition) transitions[i]);
+		for (int j=0; j<ids.length; j++)
+		    automaton.addTransition(getTransition
+					    (transitions[i].getFromState(),
+					     transitions[i].getToState(),
+					     ids[j]));
+	    }
+	} finally {
+	    automaton.commitBatch();
+	}
+    }
+
+    /**
+     * Returns if an automaton has transitions on symbol classes.
+     * @param automaton the automaton
+     * @return <CODE>true</CODE> if some transition is on a symbol
+     * class, <CODE>false</CODE> otherwise
+     */
+    public static boolean hasSymbolClasses(Automaton automaton) {
+	Transition[] transitions = automaton.getTransitions();
+	for (int i=0; i<transitions.length; i++)
+	    if (((FSATransition) transitions[i]).getSymbolClass() != null)
+		return true;
+	return false;
+    }
+
+    /** The first character of each piece, with one more entry for the
+     * character after the last piece. */
+    private int[] starts;
+    /** The minterm of each piece, or -1 if no label reads it. */
+    private int[] minterm;
+    /** The characters of each minterm. */
+    private SymbolClass[] minterms;
+}
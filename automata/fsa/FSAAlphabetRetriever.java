@@ -49,21 +49,16 @@ public class FSAAlphabetRetriever extends AlphabetRetriever{
     }
 
     /**
-     * Returns the alphabet of <CODE>automaton</CODE> by 
-     * analyzing all transitions and their labels.
+     * Returns the alphabet of <CODE>automaton</CODE>, the distinct
+     * nonempty labels of its transitions.  This is a copy of the
+     * alphabet the automaton keeps as transitions are added and
+     * removed, so the index of each label is its symbol ID, and the
+     * caller may modify the array.
      * @param automaton the automaton
      * @return the alphabet, in a string[].
+     * @see automata.Automaton#getAlphabet
      */
     public String[] getAlphabet(Automaton automaton) {
-	ArrayList list = new ArrayList();
-	Transition[] transitions = automaton.getTransitions();
-	for(int k = 0; k < transitions.length; k++) {
-	    FSATransition transition = (FSATransition) transitions[k];
-	    String label = transition.getLabel();
-	    if(!label.equals("") && !list.contains(label)) {
-		list.add(label);
-	    }
-	}
-	return (String[]) list.toArray(new String[0]);
+	return (String[]) automaton.getAlphabet().clone();
     }
 }
@@ -28,6 +28,8 @@ package automata.fsa;
 
 import automata.*;
 import automata.fsa.*;
+import java.awt.Point;
+import java.util.*;
 
 /**
  * The FSA label handler is an object that can convert a finite state
@@ -48,7 +50,8 @@ public class FSALabelHandler {
     
     /**
      * Returns true if <CODE>automaton</CODE> has labels with multiple
-     * characters, instead of single character labels.
+     * characters, instead of single character labels.  Symbol classes
+     * read one character, so they do not count.
      * @param automaton the automaton.
      * @return true if <CODE>automaton</CODE> has labels with multiple
      * characters, instead of single character labels.
@@ -58,7 +61,8 @@ public class FSALabelHandler {
 	for(int k = 0; k < transitions.length; k++) {
 	    FSATransition transition = (FSATransition) transitions[k];
 	    String label = transition.getLabel();
-	    if(label.length() > 1) return true;
+	    if(label.length() > 1 && transition.getSymbolClass() == null)
+		return true;
 	}
 	return false;
     }
@@ -116,32 +120,166 @@ public class FSALabelHandler {
     public FiniteStateAutomaton removeMultipleCharacterLabels
 	(Automaton automaton) {
 	FiniteStateAutomaton fsa = (FiniteStateAutomaton) automaton.clone();
-	Transition[] transitions = fsa.getTransitions();
-	for(int k = 0; k < transitions.length; k++) {
-	    FSATransition transition = (FSATransition) transitions[k];
-	    String label = transition.getLabel();
-	    if(label.length() > 1) {
-		handleLabel(transition, fsa);
-	    } 
-	}
+	removeMultipleCharacterLabelsFromAutomaton(fsa);
 	return fsa;
     }
 
     /**
      * Changes all transitions in <CODE>automaton</CODE> into transitions
      * with at most one character per label.  This could introduce more
-     * states into <CODE>automaton</CODE>.
+     * states into <CODE>automaton</CODE>.  The labels leaving each state
+     * are put in a trie, so that labels with a common prefix share the
+     * states introduced for that prefix; as each introduced state has
+     * just the one transition into it, this does not change the
+     * language.  All the changes are made in one batch, so listeners
+     * hear of them once.
      * @param automaton the automaton.
      */
     public void removeMultipleCharacterLabelsFromAutomaton
 	(Automaton automaton) {
 	Transition[] transitions = automaton.getTransitions();
+	ArrayList list = new ArrayList();
 	for(int k = 0; k < transitions.length; k++) {
 	    FSATransition transition = (FSATransition) transitions[k];
-	    String label = transition.getLabel();
-	    if(label.length() > 1) {
-		handleLabel(transition, automaton);
-	    } 
+	    if(transition.getLabel().length() > 1 &&
+	       transition.getSymbolClass() == null) list.add(transition);
+	}
+	if(list.isEmpty()) return;
+	transitions = (Transition[]) list.toArray(new Transition[0]);
+	/** the root of the trie of labels from each state. */
+	HashMap roots = new HashMap();
+	automaton.beginBatch();
+	try {
+	    automaton.removeTransitions(transitions);
+	    for(int k = 0; k < transitions.length; k++) {
+		FSATransition transition = (FSATransition) transitions[k];
+		State from = transition.getFromState();
+		TrieNode root = (TrieNode) roots.get(from);
+		if(root == null) {
+		    root = new TrieNode(from);
+		    roots.put(from, root);
+		}
+		handleLabel(transition, root, automaton);
+	    }
+	} finally {
+	    automaton.commitBatch();
+	}
+    }
+
+    /**
+     * Merges the transitions in <CODE>automaton</CODE> that read one
+     * character, by a label or a symbol class, and go between the same
+     * two states, into one transition on the symbol class of all their
+     * characters.  This undoes the splitting of symbol classes by an
+     * {@link AlphabetPartition}, and keeps automata made from those
+     * with symbol classes small.  The changes are made in one batch.
+     * @param automaton the automaton.
+     */
+    public void mergeLabelsIntoSymbolClasses(Automaton automaton) {
+	State[] states = automaton.getStates();
+	ArrayList removed = new ArrayList(), added = new ArrayList();
+	for(int k = 0; k < states.length; k++) {
+	    Transition[] transitions =
+		automaton.getTransitionsFromState(states[k]);
+	    /** the transitions to each state, and their characters. */
+	    HashMap groups = new HashMap(), classes = new HashMap();
+	    for(int i = 0; i < transitions.length; i++) {
+		FSATransition transition = (FSATransition) transitions[i];
+		SymbolClass symbolClass = transition.getSymbolClass();
+		if(symbolClass == null) {
+		    String label = transition.getLabel();
+		    if(label.length() != 1) continue;
+		    symbolClass =
+			new SymbolClass(label.charAt(0), label.charAt(0));
+		}
+		State to = transition.getToState();
+		List group = (List) groups.get(to);
+		if(group == null) {
+		    group = new ArrayList();
+		    groups.put(to, group);
+		    classes.put(to, symbolClass);
+		} else {
+		    classes.put(to, symbolClass.union
+				((SymbolClass) classes.get(to)));
+		}
+		group.add(transition);
+	    }
+	    Iterator it = groups.entrySet().iterator();
+	    while(it.hasNext()) {
+		Map.Entry entry = (Map.Entry) it.next();
+		List group = (List) entry.getValue();
+		if(group.size() < 2) continue;
+		removed.addAll(group);
+		added.add(new FSATransition
+		    (states[k], (State) entry.getKey(),
+		     (SymbolClass) classes.get(entry.getKey())));
+	    }
 	}
+	if(removed.isEmpty()) return;
+	automaton.beginBatch();
+	try {
+	    automaton.removeTransitions
+		((Transition[]) removed.toArray(new Transition[0]));
+	    for(int k = 0; k < added.size(); k++) {
+		automaton.addTransition((Transition) added.get(k));
+	    }
+	} finally {
+	    automaton.commitBatch();
+	}
+    }
+
+    /**
+     * Adds transitions of one character each in place of
+     * <CODE>transition</CODE>, which is already removed, following and
+     * extending a trie of the labels already broken up from the same
+     * state.  A new state is placed on the line between the states of
+     * the transition that first needs it.
+     * @param transition the transition to break up
+     * @param root the root of the trie for the state the transition
+     * comes from
+     * @param automaton the automaton that has the transition
+     */
+    private void handleLabel(FSATransition transition, TrieNode root,
+			     Automaton automaton) {
+	String label = transition.getLabel();
+	int length = label.length();
+	Point f = transition.getFromState().getPoint();
+	Point t = transition.getToState().getPoint();
+	TrieNode node = root;
+	for(int i = 0; i < length - 1; i++) {
+	    Character c = new Character(label.charAt(i));
+	    TrieNode child = (TrieNode) node.children.get(c);
+	    if(child == null) {
+		int x = (f.x * (length - i - 1) + t.x * (i + 1)) / length;
+		int y = (f.y * (length - i - 1) + t.y * (i + 1)) / length;
+		child = new TrieNode(automaton.createState(new Point(x, y)));
+		node.children.put(c, child);
+		automaton.addTransition(new FSATransition
+		    (node.state, child.state, label.substring(i, i + 1)));
+	    }
+	    node = child;
+	}
+	automaton.addTransition(new FSATransition
+	    (node.state, transition.getToState(), label.substring(length - 1)));
+    }
+
+    /**
+     * A node of the trie of labels leaving a state.  The root is the
+     * state itself, and every other node is a state introduced for
+     * a prefix of some label.
+     */
+    private static class TrieNode {
+	/**
+	 * Instantiates a node for a state.
+	 * @param state the state for the node
+	 */
+	public TrieNode(State state) {
+	    this.state = state;
+	}
+
+	/** the state reached by the prefix. */
+	public State state;
+	/** the map of characters to the nodes they lead to. */
+	public HashMap children = new HashMap();
     }
 }
@@ -48,7 +48,8 @@ public class FSANondeterminismDetector extends NondeterminismDetector {
      * Returns true if the transitions are identical (i.e. the
      * labels are equivalent), or if they introduce nondeterminism
      * (e.g. the label of one could be a prefix of the label of 
-     * the other).
+     * the other, or a symbol class of one has the first character
+     * the other reads).
      * @param t1 a transition
      * @param t2 a transition
      * @return true if the transitions are nondeterministic.
@@ -56,6 +57,18 @@ public class FSANondeterminismDetector extends NondeterminismDetector {
     public boolean areNondeterministic(Transition t1, Transition t2) {
 	FSATransition transition1 = (FSATransition) t1;
 	FSATransition transition2 = (FSATransition) t2;
+	SymbolClass class1 = transition1.getSymbolClass();
+	SymbolClass class2 = transition2.getSymbolClass();
+	if(class1 != null || class2 != null) {
+	    String label1 = transition1.getLabel();
+	    String label2 = transition2.getLabel();
+	    /** lambda transitions go with anything. */
+	    if(class1 == null && label1.length() == 0) return true;
+	    if(class2 == null && label2.length() == 0) return true;
+	    if(class1 == null) return class2.contains(label1.charAt(0));
+	    if(class2 == null) return class1.contains(label2.charAt(0));
+	    return class1.intersects(class2);
+	}
 	if(transition1.getLabel().equals(transition2.getLabel())) 
 	    return true;
 	else if(transition1.getLabel().startsWith(transition2.getLabel()))
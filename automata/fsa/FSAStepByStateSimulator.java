@@ -83,11 +83,11 @@ public class FSAStepByStateSimulator extends AutomatonSimulator {
 	for (int k = 0; k < transitions.length; k++) {
 	    FSATransition transition = (FSATransition) transitions[k];
 	    /** get all information from transition. */
-	    String transLabel = transition.getLabel();
-	    if(unprocessedInput.startsWith(transLabel)) {
+	    int length = transition.getMatchLength(unprocessedInput);
+	    if(length >= 0) {
 		String input = "";
-		if(transLabel.length() < unprocessedInput.length()) {
-		    input = unprocessedInput.substring(transLabel.length()); 
+		if(length < unprocessedInput.length()) {
+		    input = unprocessedInput.substring(length); 
 		}
 		State toState = transition.getToState();
 		FSAConfiguration configurationToAdd = 
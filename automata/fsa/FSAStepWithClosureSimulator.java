@@ -86,25 +86,23 @@ public class FSAStepWithClosureSimulator extends FSAStepByStateSimulator {
 	for (int k = 0; k < transitions.length; k++) {
 	    FSATransition transition = (FSATransition) transitions[k];
 	    /** get all information from transition. */
-	    String transLabel = transition.getLabel();
-	    if(transLabel.length() > 0) {
-		if(unprocessedInput.startsWith(transLabel)) {
-		    String input = "";
-		    if(transLabel.length() < unprocessedInput.length()) {
-			input = 
-			    unprocessedInput.substring(transLabel.length()); 
-		    }
-		    State toState = transition.getToState();
-		    State[] closure = 
-			ClosureTaker.getClosure(toState,myAutomaton);
-		    for(int i = 0; i < closure.length; i++) {
-			FSAConfiguration configurationToAdd = 
-			    new FSAConfiguration(closure[i], 
-						 configuration,
-						 totalInput,
-						 input);
-			list.add(configurationToAdd);
-		    }
+	    int length = transition.getMatchLength(unprocessedInput);
+	    /** lambda transitions are taken by the closure. */
+	    if(length > 0) {
+		String input = "";
+		if(length < unprocessedInput.length()) {
+		    input = unprocessedInput.substring(length); 
+		}
+		State toState = transition.getToState();
+		State[] closure = 
+		    ClosureTaker.getClosure(toState,myAutomaton);
+		for(int i = 0; i < closure.length; i++) {
+		    FSAConfiguration configurationToAdd = 
+			new FSAConfiguration(closure[i], 
+					     configuration,
+					     totalInput,
+					     input);
+		    list.add(configurationToAdd);
 		}
 	    }
 	}
@@ -30,6 +30,8 @@ import automata.*;
 import automata.fsa.*;
 import java.util.*;
 import regular.Discretizer;
+import regular.ExpressionNode;
+import regular.ExpressionParser;
 
 /**
  * The fsa to regular expression converter can be used to convert a
@@ -78,13 +80,16 @@ public class FSAToRegularExpressionConverter {
      * Returns true if <CODE>automaton</CODE> can be converted to
      * a regular expression (i.e. it has a unique initial and 
      * final state and it is a finite state automaton, and the
-     * initial state is not the final state).
+     * initial state is not the final state).  An automaton with
+     * transitions on symbol classes cannot be, as the string label of
+     * a class would be read as a string of characters.
      * @param automaton the automaton to convert
      * @return true if <CODE>automaton</CODE> can be converted to 
      * a regular expression.
      */
     public boolean isConvertable(Automaton automaton) {
 	if(!(automaton instanceof FiniteStateAutomaton)) return false;
+	if(AlphabetPartition.hasSymbolClasses(automaton)) return false;
 	State[] finalStates = automaton.getFinalStates();
 	if(finalStates.length != 1) {
 	    return false;
@@ -158,15 +163,33 @@ public class FSAToRegularExpressionConverter {
      * @return the expression on the transition between
      * <CODE>fromState</CODE> and <CODE>toState</CODE> in
      * <CODE>automaton</CODE>.
+     * @throws IllegalArgumentException if the transition is on a
+     * symbol class
      */
     public String getExpressionBetweenStates
 	(State fromState, State toState, Automaton automaton) {
 	Transition[] transitions =
 	    automaton.getTransitionsFromStateToState(fromState,toState);
 	FSATransition trans = (FSATransition) transitions[0];
+	checkNoSymbolClass(trans);
 	return trans.getLabel();
     } 
 
+    /**
+     * Makes sure a transition is not on a symbol class.  A class has
+     * no expression here: its label, such as <CODE>[a-z]</CODE>,
+     * would parse as a string of five characters.
+     * @param transition the transition
+     * @throws IllegalArgumentException if the transition is on a
+     * symbol class
+     */
+    private static void checkNoSymbolClass(FSATransition transition) {
+	if(transition.getSymbolClass() != null)
+	    throw new IllegalArgumentException
+		("Transitions on symbol classes cannot be converted "+
+		 "to regular expressions!");
+    }
+
     /**
      * Returns the expression obtained from evaluating the following
      * equation: r(pq) = r(pq) + r(pk)r(kk)*r(kq), where p, q, and 
@@ -261,7 +284,8 @@ public class FSAToRegularExpressionConverter {
     /**
      * Completely reconstructs <CODE>automaton</CODE>, removing
      * all transitions and <CODE>state</CODE> and adding
-     * all transitions in <CODE>transitions</CODE>.
+     * all transitions in <CODE>transitions</CODE>.  This is done as
+     * one batch, so listeners hear of it once.
      * @param state the state to remove.
      * @param transitions the transitions returned for removing
      * <CODE>state</CODE>.
@@ -269,15 +293,20 @@ public class FSAToRegularExpressionConverter {
      */
     public void removeState 
 	(State state, Transition[] transitions, Automaton automaton) {
-	Transition[] oldTransitions = automaton.getTransitions();
-	for(int k = 0; k < oldTransitions.length; k++) {
-	    automaton.removeTransition(oldTransitions[k]);
-	}
-	
-	automaton.removeState(state);
-       
-	for(int i = 0; i < transitions.length; i++) {
-	    automaton.addTransition(transitions[i]);
+	automaton.beginBatch();
+	try {
+	    Transition[] oldTransitions = automaton.getTransitions();
+	    for(int k = 0; k < oldTransitions.length; k++) {
+		automaton.removeTransition(oldTransitions[k]);
+	    }
+
+	    automaton.removeState(state);
+
+	    for(int i = 0; i < transitions.length; i++) {
+		automaton.addTransition(transitions[i]);
+	    }
+	} finally {
+	    automaton.commitBatch();
 	}
     }
 
@@ -393,21 +422,27 @@ public class FSAToRegularExpressionConverter {
      * @param automaton the automaton.
      */
     public void convertToSimpleAutomaton(Automaton automaton) {
-	if(!isConvertable(automaton)) getSingleFinalState(automaton);
-	State[] states = automaton.getStates();
-	for(int k = 0; k < states.length; k++) {
-	    for(int j = 0; j < states.length; j++) {
-		Transition[] transitions =
-		    automaton.getTransitionsFromStateToState
-		    (states[k], states[j]);
-		if(transitions.length == 0) {
-		    addTransitionOnEmptySet(states[k],states[j],automaton);
-		}
-		if(transitions.length > 1) {
-		    combineToSingleTransition(states[k],states[j],
-					      transitions,automaton);
+	automaton.beginBatch();
+	try {
+	    if(!isConvertable(automaton)) getSingleFinalState(automaton);
+	    State[] states = automaton.getStates();
+	    for(int k = 0; k < states.length; k++) {
+		for(int j = 0; j < states.length; j++) {
+		    Transition[] transitions =
+			automaton.getTransitionsFromStateToState
+			(states[k], states[j]);
+		    if(transitions.length == 0) {
+			addTransitionOnEmptySet(states[k],states[j],
+						automaton);
+		    }
+		    if(transitions.length > 1) {
+			combineToSingleTransition(states[k],states[j],
+						  transitions,automaton);
+		    }
 		}
 	    }
+	} finally {
+	    automaton.commitBatch();
 	}
     }
 
@@ -422,13 +457,18 @@ public class FSAToRegularExpressionConverter {
 	State finalState = finalStates[0];
 	State initialState = automaton.getInitialState();
 	State[] states = automaton.getStates();
-	for(int k = 0; k < states.length; k++) {
-	    State state = states[k];
-	    if(state != finalState && state != initialState) {
-		Transition[] transitions = 
-		    getTransitionsForRemoveState(state, automaton);
-		removeState(state,transitions,automaton);
+	automaton.beginBatch();
+	try {
+	    for(int k = 0; k < states.length; k++) {
+		State state = states[k];
+		if(state != finalState && state != initialState) {
+		    Transition[] transitions = 
+			getTransitionsForRemoveState(state, automaton);
+		    removeState(state,transitions,automaton);
+		}
 	    }
+	} finally {
+	    automaton.commitBatch();
 	}
     }
 
@@ -588,15 +628,207 @@ public class FSAToRegularExpressionConverter {
 
     /**
      * Returns the regular expression that represents 
-     * <CODE>automaton</CODE>.
+     * <CODE>automaton</CODE>.  The states are eliminated as in
+     * {@link #convertToGTG}, but over expression trees rather than
+     * strings, so the automaton itself is left as it is.
      * @param automaton the automaton
      * @return the regular expression that represents
      * <CODE>automaton</CODE>.
      */
     public String convertToRegularExpression(Automaton automaton) {
 	if(!isConvertable(automaton)) return null;
-	convertToGTG(automaton);
-	return getExpressionFromGTG(automaton);
+	ExpressionNode expression = convertToExpressionTree(automaton);
+	if(expression.getKind() == ExpressionNode.LAMBDA) return LAMBDA;
+	return expression.toString();
+    }
+
+    /**
+     * Returns the expression tree that represents
+     * <CODE>automaton</CODE>.  Each transition label is parsed once,
+     * and the expressions between each pair of states are kept in
+     * maps from each state to its successors and predecessors.  Every
+     * state other than the initial and final states is then
+     * eliminated by evaluating r(pq) = r(pq) + r(pk)r(kk)*r(kq) for
+     * just those p and q with arcs into and out of k.  The state
+     * eliminated next is always the one with the least {@link
+     * #getEliminationCost elimination cost}, and only the costs of
+     * the neighbors of an eliminated state are figured again.  The
+     * expression trees simplify as they are built, so they stay far
+     * smaller than the strings would.
+     * @param automaton an automaton with a unique initial state and a
+     * different unique final state
+     * @return the expression tree that represents
+     * <CODE>automaton</CODE>
+     * @throws IllegalArgumentException if a transition is on a symbol
+     * class
+     */
+    public ExpressionNode convertToExpressionTree(Automaton automaton) {
+	State[] states = automaton.getStates();
+	HashMap index = new HashMap();
+	for(int k = 0; k < states.length; k++)
+	    index.put(states[k], new Integer(k));
+	HashMap[] out = new HashMap[states.length];
+	HashMap[] in = new HashMap[states.length];
+	for(int k = 0; k < states.length; k++) {
+	    out[k] = new HashMap();
+	    in[k] = new HashMap();
+	}
+	Transition[] transitions = automaton.getTransitions();
+	for(int k = 0; k < transitions.length; k++) {
+	    FSATransition t = (FSATransition) transitions[k];
+	    checkNoSymbolClass(t);
+	    Integer p = (Integer) index.get(t.getFromState());
+	    Integer q = (Integer) index.get(t.getToState());
+	    ExpressionNode label = ExpressionParser.parse(t.getLabel());
+	    setArc(out, in, p, q, ExpressionNode.or(getArc(out, p, q), label));
+	}
+
+	State initialState = automaton.getInitialState();
+	State finalState = automaton.getFinalStates()[0];
+	boolean[] removable = new boolean[states.length];
+	long[] cost = new long[states.length];
+	int remaining = 0;
+	for(int k = 0; k < states.length; k++) {
+	    if(states[k] == initialState || states[k] == finalState)
+		continue;
+	    removable[k] = true;
+	    cost[k] = getEliminationCost(out, in, k);
+	    remaining++;
+	}
+	for(; remaining > 0; remaining--) {
+	    int k = -1;
+	    for(int c = 0; c < states.length; c++)
+		if(removable[c] && (k == -1 || cost[c] < cost[k])) k = c;
+	    removable[k] = false;
+	    Integer removed = new Integer(k);
+	    ExpressionNode kk = ExpressionNode.star
+		(getArc(out, removed, removed));
+	    out[k].remove(removed);
+	    in[k].remove(removed);
+	    Iterator from = in[k].entrySet().iterator();
+	    while(from.hasNext()) {
+		Map.Entry pk = (Map.Entry) from.next();
+		Integer p = (Integer) pk.getKey();
+		ExpressionNode pkkk = ExpressionNode.cat
+		    ((ExpressionNode) pk.getValue(), kk);
+		Iterator to = out[k].entrySet().iterator();
+		while(to.hasNext()) {
+		    Map.Entry kq = (Map.Entry) to.next();
+		    Integer q = (Integer) kq.getKey();
+		    ExpressionNode path = ExpressionNode.cat
+			(pkkk, (ExpressionNode) kq.getValue());
+		    setArc(out, in, p, q,
+			   ExpressionNode.or(getArc(out, p, q), path));
+		}
+		out[p.intValue()].remove(removed);
+	    }
+	    Iterator to = out[k].keySet().iterator();
+	    while(to.hasNext())
+		in[((Integer) to.next()).intValue()].remove(removed);
+	    HashSet neighbors = new HashSet(in[k].keySet());
+	    neighbors.addAll(out[k].keySet());
+	    Iterator it = neighbors.iterator();
+	    while(it.hasNext()) {
+		int c = ((Integer) it.next()).intValue();
+		if(removable[c]) cost[c] = getEliminationCost(out, in, c);
+	    }
+	    out[k] = null;
+	    in[k] = null;
+	}
+
+	Integer i = (Integer) index.get(initialState);
+	Integer j = (Integer) index.get(finalState);
+	return getFinalExpression(getArc(out, i, i), getArc(out, i, j),
+				  getArc(out, j, j), getArc(out, j, i));
+    }
+
+    /**
+     * Returns the cost of eliminating a state, an estimate of how
+     * much the expressions on the remaining arcs grow by.  The
+     * expression on each arc into the state is copied once for each
+     * arc out of it but the first, and the other way around, while
+     * the expression on the loop is copied once for each new arc
+     * but the first.  A state with no arcs in or no arcs out costs
+     * less than nothing, since eliminating it only removes arcs.
+     * @param out the maps from each state to the states it has arcs to
+     * @param in the maps from each state to the states with arcs to it
+     * @param k the index of the state
+     * @return the cost of eliminating the state
+     */
+    private long getEliminationCost(HashMap[] out, HashMap[] in, int k) {
+	Integer state = new Integer(k);
+	ExpressionNode loop = (ExpressionNode) out[k].get(state);
+	int self = loop == null ? 0 : 1;
+	long ins = in[k].size() - self, outs = out[k].size() - self;
+	long cost = loop == null ? 0 : loop.getSize() * (ins * outs - 1);
+	Iterator it = in[k].entrySet().iterator();
+	while(it.hasNext()) {
+	    Map.Entry entry = (Map.Entry) it.next();
+	    if(entry.getKey().equals(state)) continue;
+	    cost += ((ExpressionNode) entry.getValue()).getSize() * (outs - 1);
+	}
+	it = out[k].entrySet().iterator();
+	while(it.hasNext()) {
+	    Map.Entry entry = (Map.Entry) it.next();
+	    if(entry.getKey().equals(state)) continue;
+	    cost += ((ExpressionNode) entry.getValue()).getSize() * (ins - 1);
+	}
+	return cost;
+    }
+
+    /**
+     * Returns the expression tree for the values of ii, ij, jj, and
+     * ji, as {@link #getFinalExpression(String,String,String,String)}
+     * does for strings.
+     * @param ii the expression on the loop off the initial state
+     * @param ij the expression on the arc from the initial state to
+     * the final state.
+     * @param jj the expression on the loop off the final state.
+     * @param ji the expression on the arc from the final state to the
+     * initial state.
+     * @return the expression tree for the two state generalized
+     * transition graph
+     */
+    public ExpressionNode getFinalExpression
+	(ExpressionNode ii, ExpressionNode ij, ExpressionNode jj,
+	 ExpressionNode ji) {
+	ExpressionNode iiStar = ExpressionNode.star(ii);
+	ExpressionNode jjStar = ExpressionNode.star(jj);
+	ExpressionNode loop = ExpressionNode.cat
+	    (new ExpressionNode[] {iiStar, ij, jjStar, ji});
+	return ExpressionNode.cat(new ExpressionNode[]
+	    {ExpressionNode.star(loop), iiStar, ij, jjStar});
+    }
+
+    /**
+     * Returns the expression on the arc between two states in the
+     * maps of {@link #convertToExpressionTree}.
+     * @param out the maps from each state to the states it has arcs to
+     * @param p the index of the from state
+     * @param q the index of the to state
+     * @return the expression on the arc, or the empty set if there is
+     * no arc
+     */
+    private ExpressionNode getArc(HashMap[] out, Integer p, Integer q) {
+	ExpressionNode arc = (ExpressionNode) out[p.intValue()].get(q);
+	return arc == null ? ExpressionNode.emptySet() : arc;
+    }
+
+    /**
+     * Sets the expression on the arc between two states in the maps
+     * of {@link #convertToExpressionTree}.  Arcs on the empty set are
+     * not kept.
+     * @param out the maps from each state to the states it has arcs to
+     * @param in the maps from each state to the states with arcs to it
+     * @param p the index of the from state
+     * @param q the index of the to state
+     * @param expression the new expression on the arc
+     */
+    private void setArc(HashMap[] out, HashMap[] in, Integer p, Integer q,
+			ExpressionNode expression) {
+	if(expression.getKind() == ExpressionNode.EMPTY_SET) return;
+	out[p.intValue()].put(q, expression);
+	in[q.intValue()].put(p, expression);
     }
 
     /* the string for the empty set. */
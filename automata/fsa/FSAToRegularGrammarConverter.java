@@ -99,9 +99,15 @@ public class FSAToRegularGrammarConverter {
      * @param transition the transition.
      * @return a produciton object that is equivalent to
      * <CODE>transition</CODE>.
+     * @throws IllegalArgumentException if the transition is on a
+     * symbol class, whose label would be read as terminals
      */
     public Production getProductionForTransition(Transition transition) {
 	FSATransition trans = (FSATransition) transition;
+	if(trans.getSymbolClass() != null)
+	    throw new IllegalArgumentException
+		("Transitions on symbol classes cannot be converted "+
+		 "to productions!");
 	
 	State toState = trans.getToState();
 	State fromState = trans.getFromState();
@@ -139,6 +145,8 @@ public class FSAToRegularGrammarConverter {
      * equivalent to <CODE>automaton</CODE>.
      * @param automaton the automaton.
      * @return a regular grammar equivalent to <CODE>automaton</CODE>
+     * @throws IllegalArgumentException if the automaton has
+     * transitions on symbol classes
      */
     public RegularGrammar convertToRegularGrammar(Automaton automaton) {
 	/** check if automaton is fsa. */
@@ -148,6 +156,11 @@ public class FSAToRegularGrammarConverter {
 	    return null;
 	}
 	
+	if(AlphabetPartition.hasSymbolClasses(automaton)) {
+	    throw new IllegalArgumentException
+		("Transitions on symbol classes cannot be converted "+
+		 "to productions!");
+	}
 	RegularGrammar grammar = new RegularGrammar();
 	/** map states in automaton to variables in grammar. */
 	initializeConverter(automaton);
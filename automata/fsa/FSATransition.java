@@ -53,6 +53,20 @@ public class FSATransition extends Transition {
 	setLabel(label);
     }
 
+    /**
+     * Instantiates a new <CODE>FSATransition</CODE> object on a symbol
+     * class, which reads any one character in the class.  The label
+     * is the string representation of the class.
+     * @param from the state this transition comes from
+     * @param to the state this transition goes to
+     * @param symbolClass the class of characters this transition reads
+     */
+    public FSATransition(State from, State to, SymbolClass symbolClass) {
+	super(from, to);
+	mySymbolClass = symbolClass;
+	setLabel(symbolClass.toString());
+    }
+
     /**
      * Produces a copy of this transition with new from and to states.
      * @param from the new from state
@@ -60,6 +74,8 @@ public class FSATransition extends Transition {
      * @return a copy of this transition with the new states
      */
     public Transition copy(State from, State to) {
+	if (mySymbolClass != null)
+	    return new FSATransition(from, to, mySymbolClass);
 	return new FSATransition(from, to, myLabel);
     }
 
@@ -71,13 +87,41 @@ public class FSATransition extends Transition {
     }
 
     /**
-     * Sets the label for this transition.
+     * Returns the symbol class this transition reads a character of.
+     * @return the symbol class, or <CODE>null</CODE> if this transition
+     * is on its label string instead
+     */
+    public SymbolClass getSymbolClass() {
+	return mySymbolClass;
+    }
+
+    /**
+     * Returns how much of the start of some input this transition
+     * reads.  A transition on a string reads that string, and one on
+     * a symbol class reads a character in the class.
+     * @param input the input
+     * @return the number of characters read, or -1 if this transition
+     * cannot be taken on the input
+     */
+    public int getMatchLength(String input) {
+	if (mySymbolClass == null)
+	    return input.startsWith(myLabel) ? myLabel.length() : -1;
+	if (input.length() == 0 || !mySymbolClass.contains(input.charAt(0)))
+	    return -1;
+	return 1;
+    }
+
+    /**
+     * Sets the label for this transition.  The label is interned, and
+     * the hash code of this transition found once here, since
+     * transitions are hashed far more often than they are made.
      * @param label the new label for this transition
      * @throws IllegalArgumentException if the label contains any
      * "bad" characters, i.e., not alphanumeric
      */
     protected void setLabel(String label) {
-	myLabel = label;
+	myLabel = label.intern();
+	myHashCode = super.hashCode() * 31 + myLabel.hashCode();
     }
 
     /**
@@ -90,6 +134,14 @@ public class FSATransition extends Transition {
 	return getLabel();
     }
 
+    /**
+     * Returns the symbol for this transition.
+     * @return the symbol, in this case, simply the label
+     */
+    public String getSymbol() {
+	return myLabel;
+    }
+
     /**
      * Returns a string representation of this object.  This is the
      * same as the string representation for a regular transition
@@ -110,7 +162,9 @@ public class FSATransition extends Transition {
     public boolean equals(Object object) {
 	try {
 	    FSATransition t = (FSATransition) object;
-	    return super.equals(t) && myLabel.equals(t.myLabel);
+	    return myHashCode == t.myHashCode && super.equals(t) &&
+		myLabel.equals(t.myLabel) &&
+		(mySymbolClass == null) == (t.mySymbolClass == null);
 	} catch (ClassCastException e) {
 	    return false;
 	}
@@ -121,11 +175,16 @@ public class FSATransition extends Transition {
      * @return the hash code for this transition
      */
     public int hashCode() {
-	return super.hashCode() ^ myLabel.hashCode();
+	return myHashCode;
     }
 
     /** The label for this transition, which is intended to be used as
      * the precondition that a string must satisfy before the machine
      * continues. */
     protected String myLabel = "";
+    /** The symbol class this transition reads, or <CODE>null</CODE> if
+     * it reads its label. */
+    protected SymbolClass mySymbolClass = null;
+    /** The hash code for this transition. */
+    private int myHashCode;
 }
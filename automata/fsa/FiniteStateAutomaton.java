@@ -27,6 +27,9 @@
 package automata.fsa;
 
 import automata.Automaton;
+import automata.State;
+import automata.Transition;
+import java.util.*;
 
 /**
  * This subclass of <CODE>Automaton</CODE> is specifically for a
@@ -53,4 +56,76 @@ public class FiniteStateAutomaton extends Automaton {
     protected Class getTransitionClass() {
 	return automata.fsa.FSATransition.class;
     }
+
+    /**
+     * Returns the states that a state goes to on a label.  Each state
+     * has an index of its transitions by label, built when first
+     * needed.  The index is rebuilt when the transitions from the
+     * state change, which is known because the automaton then makes a
+     * new array for {@link #getTransitionsFromState}, so apart from
+     * that this is a constant time lookup.
+     * @param from the state the transitions come from
+     * @param label the label of the transitions
+     * @return the states that transitions from <CODE>from</CODE> on
+     * <CODE>label</CODE> go to, each once, in an array that should not
+     * be modified
+     */
+    public State[] getSuccessors(State from, String label) {
+	Transition[] transitions = getTransitionsFromState(from);
+	if (labelIndices == null) labelIndices = new HashMap();
+	LabelIndex index = (LabelIndex) labelIndices.get(from);
+	if (index == null || index.transitions != transitions) {
+	    // Throw out the indices of removed states now and then.
+	    if (labelIndices.size() > 2 * getStates().length + 16) {
+		Iterator it = labelIndices.keySet().iterator();
+		while (it.hasNext())
+		    if (!isState((State) it.next())) it.remove();
+	    }
+	    index = new LabelIndex(transitions);
+	    labelIndices.put(from, index);
+	}
+	State[] successors = (State[]) index.successors.get(label);
+	return successors == null ? NO_STATES : successors;
+    }
+
+    /**
+     * The index of the transitions from a state by their labels.
+     */
+    private static class LabelIndex {
+	/**
+	 * Builds the index of some transitions.
+	 * @param transitions the transitions from a state
+	 */
+	public LabelIndex(Transition[] transitions) {
+	    this.transitions = transitions;
+	    HashMap lists = new HashMap();
+	    for (int i=0; i<transitions.length; i++) {
+		String label = ((FSATransition) transitions[i]).getLabel();
+		List list = (List) lists.get(label);
+		if (list == null) {
+		    list = new ArrayList();
+		    lists.put(label, list);
+		}
+		list.add(transitions[i].getToState());
+	    }
+	    successors = new HashMap();
+	    Iterator it = lists.entrySet().iterator();
+	    while (it.hasNext()) {
+		Map.Entry entry = (Map.Entry) it.next();
+		successors.put(entry.getKey(), ((List) entry.getValue())
+			       .toArray(new State[0]));
+	    }
+	}
+
+	/** The transitions the index was built from. */
+	public Transition[] transitions;
+	/** The map of labels to the arrays of states they go to. */
+	public HashMap successors;
+    }
+
+    /** The map of states to the indices of their transitions. */
+    private transient HashMap labelIndices = null;
+
+    /** The empty array of states. */
+    private static final State[] NO_STATES = new State[0];
 }
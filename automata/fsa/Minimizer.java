@@ -111,8 +111,7 @@ public class Minimizer {
      */
     public String getTerminalToSplit
 	(State[] group, Automaton automaton, DefaultTreeModel tree) {
-	AlphabetRetriever far = new FSAAlphabetRetriever();
-	String[] alphabet = far.getAlphabet(automaton);
+	String[] alphabet = automaton.getAlphabet();
 	for(int k = 0; k < alphabet.length; k++) {
 	    if(isSplittableOnTerminal(group,alphabet[k],automaton,tree)) {
 		return alphabet[k];
@@ -151,8 +150,7 @@ public class Minimizer {
 	(State[] group, Automaton automaton, DefaultTreeModel tree) {
 	/** if only one state in group, can't be split. */
 	if(group.length <= 1) return false;
-	AlphabetRetriever far = new FSAAlphabetRetriever();
-	String[] alphabet = far.getAlphabet(automaton);
+	String[] alphabet = automaton.getAlphabet();
 	for(int k = 0; k < alphabet.length; k++) {
 	    /** if group splittable on a terminal in alphabet.*/
 	    if(isSplittableOnTerminal(group,alphabet[k],automaton,tree)) {
@@ -223,13 +221,11 @@ public class Minimizer {
      */
     public boolean stateGoesToGroupOnTerminal
 	(State state, State[] group, String terminal, Automaton automaton) {
-	for(int k = 0; k < group.length; k++) {
-	    Transition[] transitions = 
-		automaton.getTransitionsFromStateToState(state, group[k]);
-	    for(int j = 0; j < transitions.length; j++) {
-		FSATransition trans = (FSATransition) transitions[j];
-		String label = trans.getLabel();
-		if(label.equals(terminal)) {
+	State[] toStates =
+	    ((FiniteStateAutomaton) automaton).getSuccessors(state, terminal);
+	for(int j = 0; j < toStates.length; j++) {
+	    for(int k = 0; k < group.length; k++) {
+		if(toStates[j] == group[k]) {
 		    return true;
 		}
 	    }
@@ -253,16 +249,12 @@ public class Minimizer {
 	for(int k = 0; k < group.length; k++) {
 	    if (group[k].getAutomaton() != automaton)
 		System.err.println("BADNESS!  BADNESS!");
-	    Transition[] transitions = 
-		automaton.getTransitionsFromState(group[k]);
-	    for(int j = 0; j < transitions.length; j++) {
-		FSATransition trans = (FSATransition) transitions[j];
-		if(trans.getLabel().equals(terminal)) {
-		    State[] node = 
-			getGroupForState(transitions[j].getToState(),tree);
-		    if(!list.contains(node)) {
-			list.add(node);
-		    }
+	    State[] toStates = ((FiniteStateAutomaton) automaton)
+		.getSuccessors(group[k], terminal);
+	    for(int j = 0; j < toStates.length; j++) {
+		State[] node = getGroupForState(toStates[j],tree);
+		if(!list.contains(node)) {
+		    list.add(node);
 		}
 	    }
 	}
@@ -391,8 +383,7 @@ public class Minimizer {
      * @return true if automaton needs a trap state.
      */
     public boolean needsTrapState(Automaton automaton) {
-	AlphabetRetriever far = new FSAAlphabetRetriever();
-       	String[] alphabet = far.getAlphabet(automaton);
+	String[] alphabet = automaton.getAlphabet();
 	State[] states = automaton.getStates();
 	for(int k = 0; k < states.length; k++) {
 	    Transition[] transitions = 
@@ -419,16 +410,22 @@ public class Minimizer {
 	Point point = sp.getPointForState(automaton);
 	State trapState = automaton.createState(point);
 	TRAP_STATE = trapState;
-	AlphabetRetriever far = new FSAAlphabetRetriever();
-	String[] alphabet = far.getAlphabet(automaton);
+	String[] alphabet = automaton.getAlphabet();
+	/** a transition on each terminal, to copy, so that symbol
+	 * classes stay symbol classes. */
+	Transition[] examples = new Transition[alphabet.length];
+	Transition[] all = automaton.getTransitions();
+	for(int k = 0; k < all.length; k++) {
+	    int id = automaton.getSymbolID(((FSATransition) all[k]).getLabel());
+	    if(id >= 0) examples[id] = all[k];
+	}
 	State[] states = automaton.getStates();
 	for(int k = 0; k < states.length; k++) {
 	    Transition[] transitions = 
 		automaton.getTransitionsFromState(states[k]);
 	    for(int j = 0; j < alphabet.length; j++) {
 		if(!isTransitionOnTerminal(transitions, alphabet[j])) {
-		    FSATransition trans = 
-			new FSATransition(states[k],trapState,alphabet[j]);
+		    Transition trans = examples[j].copy(states[k],trapState);
 		    automaton.addTransition(trans);
 		}
 	    }
@@ -459,6 +456,9 @@ public class Minimizer {
 	/** Remove all multiple character labels. */
 	FSALabelHandler fsalh = new FSALabelHandler();
 	fsalh.removeMultipleCharacterLabelsFromAutomaton(a);
+	/** Split symbol classes into minterms, so that labels are
+	 * either the same or read no character in common. */
+	new AlphabetPartition(new Automaton[] {a}).refine(a);
 	/** Remove the unnecessary states. */
 	//StateCleaner.clean(a);
 	/** Add trap state if necessary. */
@@ -716,8 +716,7 @@ public class Minimizer {
 		if(!containsTrapState(toGroup)) {
 		    State to = getStateMappedToGroup(toGroup, minDfa);
 		    
-		    Transition transition =
-			new FSATransition(state, to, trans.getLabel()); 
+		    Transition transition = trans.copy(state, to);
 		    list.add(transition);
 		}
 	}
@@ -155,20 +155,16 @@ public class NFAToDFA {
     public State[] getStatesOnTerminal(String terminal, State[] states, 
 				       Automaton automaton) {
 	ArrayList list = new ArrayList();
+	HashSet found = new HashSet();
+	FiniteStateAutomaton fsa = (FiniteStateAutomaton) automaton;
 	for(int k = 0; k < states.length; k++) {
-	    State state = states[k];
-	    Transition[] transitions = 
-		automaton.getTransitionsFromState(state);
-	    for(int i = 0; i < transitions.length; i++) {
-		FSATransition transition = (FSATransition) transitions[i];
-		if(transition.getLabel().equals(terminal)) {
-		    State toState = transition.getToState();
-		    ClosureTaker fct = new ClosureTaker();
-		    State[] closure = fct.getClosure(toState, automaton);
-		    for(int j = 0; j < closure.length; j++) {
-			if(!list.contains(closure[j])) { 
-			    list.add(closure[j]);
-			}
+	    State[] toStates = fsa.getSuccessors(states[k], terminal);
+	    for(int i = 0; i < toStates.length; i++) {
+		ClosureTaker fct = new ClosureTaker();
+		State[] closure = fct.getClosure(toStates[i], automaton);
+		for(int j = 0; j < closure.length; j++) {
+		    if(found.add(closure[j])) { 
+			list.add(closure[j]);
 		    }
 		}
 	    }
@@ -250,8 +246,7 @@ public class NFAToDFA {
      */
     public ArrayList expandState(State state, Automaton nfa, Automaton dfa) {
 	ArrayList list = new ArrayList();
-	AlphabetRetriever far = new FSAAlphabetRetriever();
-	String[] alphabet = far.getAlphabet(nfa);
+	String[] alphabet = nfa.getAlphabet();
 	/** for each letter in the alphabet.*/
 	for(int k = 0; k < alphabet.length; k++) {
 	    /** get states reachable on terminal from all states
@@ -308,13 +303,40 @@ public class NFAToDFA {
 
     /**
      * Returns a deterministic finite state automaton equivalent
-     * to <CODE>automaton</CODE>.  <CODE>automaton</CODE> is not
+     * to <CODE>automaton</CODE>, using as many threads as there are
+     * processors.  <CODE>automaton</CODE> is not
      * at all affected by this conversion.
      * @param automaton the automaton to convert to a dfa.
      * @return a deterministic finite state automaton equivalent
      * to <CODE>automaton</CODE>.
+     * @see #convertToDFA(Automaton, int)
      */
     public FiniteStateAutomaton convertToDFA(Automaton automaton) {
+	return convertToDFA(automaton,
+			    Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns a deterministic finite state automaton equivalent
+     * to <CODE>automaton</CODE>.  Rather than expanding one dfa state
+     * at a time as {@link #expandState} does, this numbers the states
+     * of the nfa and works on sets of them as bit sets.  First, for
+     * each state and terminal, the states reachable on the terminal
+     * (closure included) are found once.  Then each level of new dfa
+     * states is expanded by splitting it among
+     * <CODE>threads</CODE> threads, which find the successor sets of
+     * their dfa states on every terminal and look them up in the map
+     * of sets found on earlier levels; the map is only read while
+     * the threads run.  Once they finish, the sets not found are
+     * numbered in order, so the dfa is the same no matter how many
+     * threads there are.
+     * @param automaton the automaton to convert to a dfa.
+     * @param threads the most threads to use
+     * @return a deterministic finite state automaton equivalent
+     * to <CODE>automaton</CODE>.
+     */
+    public FiniteStateAutomaton convertToDFA(Automaton automaton,
+					     int threads) {
 	/** check if actually nfa. */
 	AutomatonChecker ac = new AutomatonChecker();
 	if(!ac.isNFA(automaton)) {
@@ -325,27 +347,242 @@ public class NFAToDFA {
 	if(fsalh.hasMultipleCharacterLabels(automaton)) {
 	    fsalh.removeMultipleCharacterLabelsFromAutomaton(automaton);
 	}
-	/** create new finite state automaton. */
-	FiniteStateAutomaton dfa = new FiniteStateAutomaton();
-	State initialState = createInitialState(automaton, dfa);
-	/** get initial state and add to list of states that 
-	 * need to be expanded. */
-	ArrayList list = new ArrayList();
-	list.add(initialState);
-	/** while still more states to be expanded. */
-	while(!list.isEmpty()) {
-	    ArrayList statesToExpand = new ArrayList();
-	    Iterator it = list.iterator();
-	    while(it.hasNext()) {
-		State state = (State) it.next();
-		/** expand state. */
-		statesToExpand.addAll(expandState(state, automaton, dfa));
-		it.remove();
+	/** replace symbol classes by their minterms, which are then
+	 * the terminals, in a copy so the caller's automaton and its
+	 * views are left alone. */
+	boolean symbolClasses = AlphabetPartition.hasSymbolClasses(automaton);
+	if(symbolClasses) {
+	    automaton = (Automaton) automaton.clone();
+	    new AlphabetPartition(new Automaton[] {automaton})
+		.refine(automaton);
+	}
+	/** number the states and terminals of the nfa. */
+	State[] states = automaton.getStates();
+	HashMap stateIndex = new HashMap();
+	for(int k = 0; k < states.length; k++) {
+	    stateIndex.put(states[k], new Integer(k));
+	}
+	/** the terminals are numbered by their symbol IDs. */
+	String[] alphabet = automaton.getAlphabet();
+	/** find the closure of each state, and where each state goes
+	 * on each terminal. */
+	BitSet[] closures = new BitSet[states.length];
+	BitSet finalStates = new BitSet();
+	for(int k = 0; k < states.length; k++) {
+	    closures[k] = getBitSet
+		(ClosureTaker.getClosure(states[k], automaton), stateIndex);
+	    if(automaton.isFinalState(states[k])) finalStates.set(k);
+	}
+	BitSet[][] step = new BitSet[states.length][alphabet.length];
+	/** a transition on each terminal, to copy for the dfa. */
+	Transition[] examples = new Transition[alphabet.length];
+	for(int k = 0; k < states.length; k++) {
+	    Transition[] transitions =
+		automaton.getTransitionsFromState(states[k]);
+	    for(int i = 0; i < transitions.length; i++) {
+		FSATransition transition = (FSATransition) transitions[i];
+		if(transition.getLabel().length() == 0) continue;
+		int terminal = automaton.getSymbolID(transition.getLabel());
+		examples[terminal] = transition;
+		int to = ((Integer) stateIndex.get
+			  (transition.getToState())).intValue();
+		if(step[k][terminal] == null) {
+		    step[k][terminal] = new BitSet();
+		}
+		step[k][terminal].or(closures[to]);
 	    }
-	    list.addAll(statesToExpand);
 	}
 
+	/** expand the sets of states a level at a time. */
+	ArrayList subsets = new ArrayList();
+	HashMap ids = new HashMap();
+	ArrayList successors = new ArrayList();
+	BitSet initial = closures[((Integer) stateIndex.get
+				   (automaton.getInitialState())).intValue()];
+	subsets.add(initial);
+	ids.put(initial, new Integer(0));
+	int expanded = 0;
+	while(expanded < subsets.size()) {
+	    int end = subsets.size();
+	    Object[][] found = expandLevel
+		(subsets, expanded, end, ids, step, alphabet.length, threads);
+	    /** number the new sets in order. */
+	    for(int k = 0; k < found.length; k++) {
+		int[] row = new int[alphabet.length];
+		for(int i = 0; i < alphabet.length; i++) {
+		    Object next = found[k][i];
+		    if(next == null) {
+			row[i] = -1;
+			continue;
+		    }
+		    Integer id = next instanceof Integer ? (Integer) next :
+			(Integer) ids.get(next);
+		    if(id == null) {
+			id = new Integer(subsets.size());
+			subsets.add(next);
+			ids.put(next, id);
+		    }
+		    row[i] = id.intValue();
+		}
+		successors.add(row);
+	    }
+	    expanded = end;
+	}
+
+	/** create the dfa. */
+	FiniteStateAutomaton dfa = new FiniteStateAutomaton();
+	AutomatonBuilder builder = new AutomatonBuilder(dfa);
+	StatePlacer sp = new StatePlacer();
+	State[] dfaStates = new State[subsets.size()];
+	for(int k = 0; k < dfaStates.length; k++) {
+	    BitSet subset = (BitSet) subsets.get(k);
+	    dfaStates[k] = builder.createState(sp.getPointForState(dfa));
+	    dfaStates[k].setLabel(getStringForStates(subset, states));
+	    if(subset.intersects(finalStates)) {
+		builder.addFinalState(dfaStates[k]);
+	    }
+	}
+	builder.setInitialState(dfaStates[0]);
+	for(int k = 0; k < dfaStates.length; k++) {
+	    int[] row = (int[]) successors.get(k);
+	    for(int i = 0; i < row.length; i++) {
+		if(row[i] == -1) continue;
+		builder.addTransition(examples[i].copy
+				      (dfaStates[k], dfaStates[row[i]]));
+	    }
+	}
+	builder.build();
+	/** put minterms to the same state back together. */
+	if(symbolClasses) fsalh.mergeLabelsIntoSymbolClasses(dfa);
 	return dfa;
     }
 
+    /**
+     * Finds the successors of a level of sets of states on every
+     * terminal, splitting the work among threads.  For each set and
+     * terminal the result is <CODE>null</CODE> if no state is
+     * reachable, the <CODE>Integer</CODE> number of the successor if
+     * it was already numbered, or else the successor set itself.
+     * @param subsets the sets of states numbered so far
+     * @param start the number of the first set of the level
+     * @param end one past the number of the last set of the level
+     * @param ids the map of sets to their numbers, which is only read
+     * @param step where each state goes on each terminal
+     * @param terminals the number of terminals
+     * @param threads the most threads to use
+     * @return the successors of each set of the level on each terminal
+     */
+    private Object[][] expandLevel
+	(final List subsets, final int start, int end, final Map ids,
+	 final BitSet[][] step, final int terminals, int threads) {
+	final Object[][] found = new Object[end - start][];
+	final Throwable[] failure = new Throwable[1];
+	int count = end - start;
+	int workers = Math.max(1, Math.min(threads, count / MIN_PER_THREAD));
+	Thread[] running = new Thread[workers - 1];
+	for(int w = 0; w < workers; w++) {
+	    final int from = start + (int) ((long) count * w / workers);
+	    final int to = start + (int) ((long) count * (w + 1) / workers);
+	    Runnable job = new Runnable() {
+		    public void run() {
+			try {
+			    for(int k = from; k < to; k++) {
+				found[k - start] = getSuccessors
+				    ((BitSet) subsets.get(k), step,
+				     terminals, ids);
+			    }
+			} catch(Throwable e) {
+			    synchronized(failure) {
+				failure[0] = e;
+			    }
+			}
+		    }
+		};
+	    if(w == workers - 1) job.run();
+	    else {
+		running[w] = new Thread(job);
+		running[w].start();
+	    }
+	}
+	/** wait for the other threads, since their results are needed. */
+	boolean interrupted = false;
+	for(int w = 0; w < running.length; w++) {
+	    while(running[w].isAlive()) {
+		try {
+		    running[w].join();
+		} catch(InterruptedException e) {
+		    interrupted = true;
+		}
+	    }
+	}
+	if(interrupted) Thread.currentThread().interrupt();
+	synchronized(failure) {
+	    if(failure[0] instanceof RuntimeException) {
+		throw (RuntimeException) failure[0];
+	    }
+	    if(failure[0] != null) throw (Error) failure[0];
+	}
+	return found;
+    }
+
+    /**
+     * Returns the successors of a set of states on every terminal, as
+     * in {@link #expandLevel}.
+     * @param subset the set of states
+     * @param step where each state goes on each terminal
+     * @param terminals the number of terminals
+     * @param ids the map of sets already numbered to their numbers
+     * @return the successors of the set on each terminal
+     */
+    private static Object[] getSuccessors(BitSet subset, BitSet[][] step,
+					  int terminals, Map ids) {
+	Object[] successors = new Object[terminals];
+	for(int i = 0; i < terminals; i++) {
+	    BitSet next = null;
+	    for(int k = subset.nextSetBit(0); k >= 0;
+		k = subset.nextSetBit(k + 1)) {
+		if(step[k][i] == null) continue;
+		if(next == null) next = new BitSet();
+		next.or(step[k][i]);
+	    }
+	    if(next == null) continue;
+	    Object id = ids.get(next);
+	    successors[i] = id == null ? next : id;
+	}
+	return successors;
+    }
+
+    /**
+     * Returns the set of numbers of some states.
+     * @param states the states
+     * @param stateIndex the map of states to their numbers
+     * @return the set of the numbers of the states
+     */
+    private static BitSet getBitSet(State[] states, Map stateIndex) {
+	BitSet set = new BitSet();
+	for(int k = 0; k < states.length; k++) {
+	    set.set(((Integer) stateIndex.get(states[k])).intValue());
+	}
+	return set;
+    }
+
+    /**
+     * Returns a string representation of a set of states, as
+     * {@link #getStringForStates(State[])} does.
+     * @param subset the set of the numbers of the states
+     * @param states the states, by number
+     * @return a string representation of the set of states
+     */
+    private static String getStringForStates(BitSet subset, State[] states) {
+	StringBuffer buffer = new StringBuffer();
+	for(int k = subset.nextSetBit(0); k >= 0;
+	    k = subset.nextSetBit(k + 1)) {
+	    if(buffer.length() > 0) buffer.append(",");
+	    buffer.append(Integer.toString(states[k].getID()));
+	}
+	return buffer.toString();
+    }
+
+    /** The least number of dfa states each thread expands. */
+    private static final int MIN_PER_THREAD = 64;
 }
@@ -0,0 +1,679 @@
+/* -- JFLAP 4.0 --
+ *
+ * Copyright information:
+ *
+ * Susan H. Rodger, Thomas Finley
+ * Computer Science Department
+ * Duke University
+ * April 24, 2003
+ * Supported by National Science Foundation DUE-9752583.
+ *
+ * Copyright (c) 2003
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that the above copyright notice and this paragraph are
+ * duplicated in all such forms and that any documentation,
+ * advertising materials, and other materials related to such
+ * distribution and use acknowledge that the software was developed
+ * by the author.  The name of the author may not be used to
+ * endorse or promote products derived from this software without
+ * specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+ 
+package automata.fsa;
+
+import automata.*;
+import java.util.*;
+
+/**
+ * The product constructor builds automata for the intersection,
+ * union, difference, symmetric difference and complement of the
+ * languages of finite state automata.  Each automaton is first made
+ * deterministic and numbered, and is treated as complete over the
+ * alphabets of both automata: every missing transition goes to an
+ * implicit trap state, just as if {@link Minimizer#addTrapState} had
+ * been used, though no trap state is ever added.  The product is then
+ * explored breadth first from the pair of initial states, so only
+ * pairs that can be reached get states.  Pairs from which no final
+ * pair can be reached are mostly pruned as they are found, and the
+ * rest before the product is built, so the product has no dead
+ * states; an emptiness check stops as soon as it finds a final pair.
+ * Pairs are kept as two state numbers packed into a single
+ * <CODE>long</CODE> key, which are stored in open addressed arrays
+ * rather than as objects.
+ *
+ * @author Thomas Finley
+ */
+
+public class ProductConstructor {
+    /**
+     * Instantiates a new product constructor.
+     */
+    public ProductConstructor() {
+
+    }
+
+    /**
+     * Returns an automaton accepting the strings accepted by both
+     * automata.  Neither automaton is affected.
+     * @param a the first automaton
+     * @param b the second automaton
+     * @return a dfa for the intersection of the languages
+     */
+    public FiniteStateAutomaton intersection(Automaton a, Automaton b) {
+	return product(a, b, INTERSECTION);
+    }
+
+    /**
+     * Returns an automaton accepting the strings accepted by either
+     * automaton.  Neither automaton is affected.
+     * @param a the first automaton
+     * @param b the second automaton
+     * @return a dfa for the union of the languages
+     */
+    public FiniteStateAutomaton union(Automaton a, Automaton b) {
+	return product(a, b, UNION);
+    }
+
+    /**
+     * Returns an automaton accepting the strings accepted by the first
+     * automaton but not by the second.  Neither automaton is affected.
+     * @param a the first automaton
+     * @param b the second automaton
+     * @return a dfa for the difference of the languages
+     */
+    public FiniteStateAutomaton difference(Automaton a, Automaton b) {
+	return product(a, b, DIFFERENCE);
+    }
+
+    /**
+     * Returns an automaton accepting the strings accepted by exactly
+     * one of the automata.  Neither automaton is affected.
+     * @param a the first automaton
+     * @param b the second automaton
+     * @return a dfa for the symmetric difference of the languages
+     */
+    public FiniteStateAutomaton symmetricDifference(Automaton a,
+						    Automaton b) {
+	return product(a, b, SYMMETRIC_DIFFERENCE);
+    }
+
+    /**
+     * Returns an automaton accepting the strings over the alphabet of
+     * <CODE>automaton</CODE> that <CODE>automaton</CODE> does not
+     * accept.  The automaton is not affected.
+     * @param automaton the automaton to complement
+     * @return a dfa for the complement of the language
+     */
+    public FiniteStateAutomaton complement(Automaton automaton) {
+	return product(automaton, null, COMPLEMENT);
+    }
+
+    /**
+     * Returns an automaton for the product of two automata.  Neither
+     * automaton is affected.
+     * @param a the first automaton
+     * @param b the second automaton, ignored for the complement
+     * @param operation one of {@link #INTERSECTION}, {@link #UNION},
+     * {@link #DIFFERENCE}, {@link #SYMMETRIC_DIFFERENCE} and
+     * {@link #COMPLEMENT}
+     * @return a dfa for the product; it always has an initial state,
+     * but it may have no other states if the language is empty
+     * @throws IllegalArgumentException if the operation is unknown
+     */
+    public FiniteStateAutomaton product(Automaton a, Automaton b,
+					int operation) {
+	Operand[] operands = getOperands(a, b, operation);
+	FiniteStateAutomaton product = new FiniteStateAutomaton();
+	explore(operands[0], operands[1], operation, product);
+	return product;
+    }
+
+    /**
+     * Returns if the product of two automata accepts no strings.  The
+     * product is not built; its pairs are explored only until a final
+     * pair is reached, so a nonempty product is usually found long
+     * before all its pairs are seen.  Neither automaton is affected.
+     * @param a the first automaton
+     * @param b the second automaton, ignored for the complement
+     * @param operation one of {@link #INTERSECTION}, {@link #UNION},
+     * {@link #DIFFERENCE}, {@link #SYMMETRIC_DIFFERENCE} and
+     * {@link #COMPLEMENT}
+     * @return <CODE>true</CODE> if the product accepts no strings,
+     * <CODE>false</CODE> otherwise
+     * @throws IllegalArgumentException if the operation is unknown
+     */
+    public boolean isEmpty(Automaton a, Automaton b, int operation) {
+	Operand[] operands = getOperands(a, b, operation);
+	return !explore(operands[0], operands[1], operation, null);
+    }
+
+    /**
+     * Makes the numbered deterministic forms of two automata over the
+     * union of their alphabets.
+     * @param a the first automaton
+     * @param b the second automaton, ignored for the complement
+     * @param operation the operation
+     * @return a two element array of the operands; for the complement
+     * the second operand has no states
+     * @throws IllegalArgumentException if the operation is unknown
+     */
+    private Operand[] getOperands(Automaton a, Automaton b,
+				  int operation) {
+	if(operation < INTERSECTION || operation > COMPLEMENT) {
+	    throw new IllegalArgumentException
+		("Unknown product operation " + operation + ".");
+	}
+	Automaton[] copies = operation == COMPLEMENT ?
+	    new Automaton[] {getCopy(a)} :
+	    new Automaton[] {getCopy(a), getCopy(b)};
+	/** number the terminals of both automata together, even those
+	 * read only by unreachable states.  with symbol classes, the
+	 * terminals are the minterms of both. */
+	AlphabetPartition partition = null;
+	for(int k = 0; k < copies.length; k++) {
+	    if(AlphabetPartition.hasSymbolClasses(copies[k])) {
+		partition = new AlphabetPartition(copies);
+	    }
+	}
+	HashMap terminalIndex = new HashMap();
+	ArrayList classes = new ArrayList();
+	if(partition != null) {
+	    for(int k = 0; k < partition.getMintermCount(); k++) {
+		terminalIndex.put(partition.getLabel(k), new Integer(k));
+		SymbolClass minterm = partition.getMinterm(k);
+		classes.add(minterm.size() > 1 ? minterm : null);
+	    }
+	} else {
+	    for(int k = 0; k < copies.length; k++) {
+		String[] alphabet = copies[k].getAlphabet();
+		for(int i = 0; i < alphabet.length; i++) {
+		    if(terminalIndex.containsKey(alphabet[i])) continue;
+		    terminalIndex.put(alphabet[i],
+				      new Integer(terminalIndex.size()));
+		    classes.add(null);
+		}
+	    }
+	}
+	String[] terminals = new String[terminalIndex.size()];
+	Iterator it = terminalIndex.entrySet().iterator();
+	while(it.hasNext()) {
+	    Map.Entry entry = (Map.Entry) it.next();
+	    terminals[((Integer) entry.getValue()).intValue()] =
+		(String) entry.getKey();
+	}
+	SymbolClass[] symbolClasses =
+	    (SymbolClass[]) classes.toArray(new SymbolClass[0]);
+	Automaton dfaA = getDFA(copies[0], partition);
+	Automaton dfaB =
+	    copies.length == 1 ? null : getDFA(copies[1], partition);
+	return new Operand[] {
+	    new Operand(dfaA, terminals, symbolClasses, terminalIndex),
+	    new Operand(dfaB, terminals, symbolClasses, terminalIndex) };
+    }
+
+    /**
+     * Returns a copy of an automaton with single character labels,
+     * without affecting the automaton.
+     * @param automaton the automaton
+     * @return the copy
+     */
+    private static Automaton getCopy(Automaton automaton) {
+	Automaton copy = (Automaton) automaton.clone();
+	FSALabelHandler fsalh = new FSALabelHandler();
+	if(fsalh.hasMultipleCharacterLabels(copy)) {
+	    fsalh.removeMultipleCharacterLabelsFromAutomaton(copy);
+	}
+	return copy;
+    }
+
+    /**
+     * Returns a dfa equivalent to a copy with single character labels,
+     * which may be changed.
+     * @param copy the copy of an automaton
+     * @param partition the minterms of the operands, or
+     * <CODE>null</CODE> if there are no symbol classes; the labels of
+     * the dfa are replaced by these minterms
+     * @return the equivalent dfa, or <CODE>null</CODE> if the
+     * automaton has no initial state and so accepts nothing
+     */
+    private static Automaton getDFA(Automaton copy,
+				    AlphabetPartition partition) {
+	if(copy.getInitialState() == null) return null;
+	Automaton dfa = copy;
+	if(new AutomatonChecker().isNFA(copy)) {
+	    dfa = new NFAToDFA().convertToDFA(copy);
+	}
+	if(partition != null) partition.refine(dfa);
+	return dfa;
+    }
+
+    /**
+     * Explores the pairs of states of the product reachable from the
+     * pair of initial states.  A pair from which no final pair can be
+     * reached, judging by what each operand can still reach on its
+     * own, gets no number and is not explored further.  That judgment
+     * misses pairs whose operands could reach the right states only on
+     * different strings, so once exploring is done the pairs that
+     * still cannot reach a final pair are dropped before the product
+     * is built.
+     * @param a the first operand
+     * @param b the second operand
+     * @param operation the operation
+     * @param product the automaton to add the states and transitions
+     * of the product to, or <CODE>null</CODE> if the product is not
+     * built and exploring should stop at the first final pair
+     * @return <CODE>true</CODE> if a final pair was reached,
+     * <CODE>false</CODE> otherwise
+     */
+    private boolean explore(Operand a, Operand b, int operation,
+			    Automaton product) {
+	int sigma = a.terminals.length;
+	PairTable table = new PairTable();
+	if(!isDead(a, b, a.initial, b.initial, operation)) {
+	    table.add(pack(a.initial, b.initial));
+	}
+	/** each transition is three ints: from, to and terminal. */
+	int[] transitions = new int[48];
+	int count = 0;
+	boolean[] finals = new boolean[16];
+	boolean found = false;
+	for(int n = 0; n < table.size(); n++) {
+	    long pair = table.getKey(n);
+	    int p = (int) (pair >> 32) - 1, q = (int) pair - 1;
+	    if(finals.length == n) {
+		boolean[] bigger = new boolean[n * 2];
+		System.arraycopy(finals, 0, bigger, 0, n);
+		finals = bigger;
+	    }
+	    if(accepts(operation, a.isFinal(p), b.isFinal(q))) {
+		if(product == null) return true;
+		finals[n] = found = true;
+	    }
+	    for(int t = 0; t < sigma; t++) {
+		int p2 = a.getNext(p, t), q2 = b.getNext(q, t);
+		if(isDead(a, b, p2, q2, operation)) continue;
+		long next = pack(p2, q2);
+		int m = table.get(next);
+		if(m < 0) m = table.add(next);
+		if(product == null) continue;
+		if(transitions.length == 3 * count) {
+		    int[] bigger = new int[transitions.length * 2];
+		    System.arraycopy(transitions, 0, bigger, 0, 3 * count);
+		    transitions = bigger;
+		}
+		transitions[3 * count] = n;
+		transitions[3 * count + 1] = m;
+		transitions[3 * count + 2] = t;
+		count++;
+	    }
+	}
+	if(product == null) return false;
+	/** keep only the pairs that reach a final pair. */
+	int pairs = table.size();
+	boolean[] live = new boolean[pairs];
+	System.arraycopy(finals, 0, live, 0, pairs);
+	reachBackwards(live, transitions, count);
+	AutomatonBuilder builder = new AutomatonBuilder(product);
+	State[] states = new State[pairs];
+	State initial = builder.createState(placer.getPointForState(product));
+	builder.setInitialState(initial);
+	if(pairs > 0) states[0] = initial;
+	for(int n = 0; n < pairs; n++) {
+	    if(!live[n]) continue;
+	    if(states[n] == null) {
+		states[n] = builder.createState
+		    (placer.getPointForState(product));
+	    }
+	    if(finals[n]) builder.addFinalState(states[n]);
+	}
+	for(int k = 0; k < count; k++) {
+	    int from = transitions[3 * k], to = transitions[3 * k + 1];
+	    if(!live[from] || !live[to]) continue;
+	    int terminal = transitions[3 * k + 2];
+	    if(a.classes[terminal] == null) {
+		builder.addTransition(new FSATransition
+				      (states[from], states[to],
+				       a.terminals[terminal]));
+	    } else {
+		builder.addTransition(new FSATransition
+				      (states[from], states[to],
+				       a.classes[terminal]));
+	    }
+	}
+	builder.build();
+	/** put minterms to the same pair back together. */
+	for(int t = 0; t < a.classes.length; t++) {
+	    if(a.classes[t] != null) {
+		new FSALabelHandler().mergeLabelsIntoSymbolClasses(product);
+		break;
+	    }
+	}
+	return found;
+    }
+
+    /**
+     * Marks the states that can reach a marked state, by searching
+     * backwards from the marked states.
+     * @param marked which states are marked; on return, which states
+     * can reach a marked state
+     * @param transitions the transitions, three ints each: the from
+     * state, the to state and the terminal
+     * @param count the number of transitions
+     */
+    private static void reachBackwards(boolean[] marked, int[] transitions,
+				       int count) {
+	int n = marked.length;
+	/** group the from states by to state. */
+	int[] start = new int[n + 1];
+	for(int k = 0; k < count; k++) start[transitions[3 * k + 1] + 1]++;
+	for(int k = 0; k < n; k++) start[k + 1] += start[k];
+	int[] from = new int[count];
+	int[] fill = (int[]) start.clone();
+	for(int k = 0; k < count; k++) {
+	    from[fill[transitions[3 * k + 1]]++] = transitions[3 * k];
+	}
+	int[] queue = new int[n];
+	int tail = 0;
+	for(int k = 0; k < n; k++) {
+	    if(marked[k]) queue[tail++] = k;
+	}
+	for(int head = 0; head < tail; head++) {
+	    int k = queue[head];
+	    for(int i = start[k]; i < start[k + 1]; i++) {
+		if(!marked[from[i]]) {
+		    marked[from[i]] = true;
+		    queue[tail++] = from[i];
+		}
+	    }
+	}
+    }
+
+    /**
+     * Returns if no final pair can be reached from a pair.  This is
+     * so if the operation accepts none of the pairs of final and
+     * nonfinal that the operands can still reach on their own; the
+     * operands read the same strings, so this may miss some dead
+     * pairs, but it never prunes a live one.
+     * @param a the first operand
+     * @param b the second operand
+     * @param p the state of the first operand, or -1 for the trap
+     * @param q the state of the second operand, or -1 for the trap
+     * @param operation the operation
+     * @return <CODE>true</CODE> if the pair is surely dead,
+     * <CODE>false</CODE> otherwise
+     */
+    private static boolean isDead(Operand a, Operand b, int p, int q,
+				  int operation) {
+	boolean[] values = {false, true};
+	for(int i = 0; i < 2; i++) {
+	    if(!a.canReach(p, values[i])) continue;
+	    for(int j = 0; j < 2; j++) {
+		if(b.canReach(q, values[j]) &&
+		   accepts(operation, values[i], values[j])) return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Returns if an operation accepts a pair.
+     * @param operation the operation
+     * @param inA if the state of the first operand is final
+     * @param inB if the state of the second operand is final
+     * @return <CODE>true</CODE> if the pair is final in the product,
+     * <CODE>false</CODE> otherwise
+     */
+    private static boolean accepts(int operation, boolean inA, boolean inB) {
+	switch(operation) {
+	case INTERSECTION:
+	    return inA && inB;
+	case UNION:
+	    return inA || inB;
+	case DIFFERENCE:
+	    return inA && !inB;
+	case SYMMETRIC_DIFFERENCE:
+	    return inA != inB;
+	default:
+	    return !inA;
+	}
+    }
+
+    /**
+     * Packs a pair of state numbers into a key.  The numbers are
+     * shifted up by one so the trap, numbered -1, packs as 0.
+     * @param p the state of the first operand
+     * @param q the state of the second operand
+     * @return the key for the pair
+     */
+    private static long pack(int p, int q) {
+	return ((long) (p + 1) << 32) | ((q + 1) & 0xffffffffL);
+    }
+
+    /**
+     * A deterministic automaton with its states numbered, completed
+     * by an implicit trap state numbered -1.
+     */
+    private static class Operand {
+	/**
+	 * Numbers a dfa.
+	 * @param dfa the dfa, or <CODE>null</CODE> for an operand that
+	 * is always in the trap
+	 * @param terminals the terminals by number
+	 * @param classes the symbol class of each terminal, or
+	 * <CODE>null</CODE> for those that are strings
+	 * @param terminalIndex the map of terminals to their numbers
+	 */
+	public Operand(Automaton dfa, String[] terminals,
+		       SymbolClass[] classes, Map terminalIndex) {
+	    this.terminals = terminals;
+	    this.classes = classes;
+	    State[] states = dfa == null ? new State[0] : dfa.getStates();
+	    HashMap stateIndex = new HashMap();
+	    for(int k = 0; k < states.length; k++) {
+		stateIndex.put(states[k], new Integer(k));
+	    }
+	    initial = dfa == null ? -1 : ((Integer) stateIndex.get
+					  (dfa.getInitialState())).intValue();
+	    next = new int[states.length][terminals.length];
+	    finals = new boolean[states.length];
+	    for(int k = 0; k < states.length; k++) {
+		Arrays.fill(next[k], -1);
+		finals[k] = dfa.isFinalState(states[k]);
+		Transition[] transitions =
+		    dfa.getTransitionsFromState(states[k]);
+		for(int i = 0; i < transitions.length; i++) {
+		    String label =
+			((FSATransition) transitions[i]).getLabel();
+		    next[k][((Integer) terminalIndex.get(label)).intValue()] =
+			((Integer) stateIndex.get
+			 (transitions[i].getToState())).intValue();
+		}
+	    }
+	    reachesFinal = getReaching(true);
+	    reachesNonfinal = getReaching(false);
+	}
+
+	/**
+	 * Finds the states that can reach a final or a nonfinal state,
+	 * by searching backwards from those states.  The trap is
+	 * nonfinal, so any state missing a transition can reach a
+	 * nonfinal state.
+	 * @param value <CODE>true</CODE> to find the states that reach
+	 * final states, <CODE>false</CODE> for nonfinal states
+	 * @return the states that can reach such a state
+	 */
+	private boolean[] getReaching(boolean value) {
+	    int n = next.length;
+	    int[] transitions = new int[3 * n * terminals.length];
+	    int count = 0;
+	    boolean[] reaching = new boolean[n];
+	    for(int k = 0; k < n; k++) {
+		reaching[k] = finals[k] == value;
+		for(int t = 0; t < terminals.length; t++) {
+		    if(next[k][t] < 0) {
+			reaching[k] |= !value;
+			continue;
+		    }
+		    transitions[3 * count] = k;
+		    transitions[3 * count + 1] = next[k][t];
+		    transitions[3 * count + 2] = t;
+		    count++;
+		}
+	    }
+	    reachBackwards(reaching, transitions, count);
+	    return reaching;
+	}
+
+	/**
+	 * Returns where a state goes on a terminal.
+	 * @param state the state, or -1 for the trap
+	 * @param terminal the number of the terminal
+	 * @return the next state, or -1 for the trap
+	 */
+	public int getNext(int state, int terminal) {
+	    return state < 0 ? -1 : next[state][terminal];
+	}
+
+	/**
+	 * Returns if a state is final.
+	 * @param state the state, or -1 for the trap
+	 * @return <CODE>true</CODE> if the state is final,
+	 * <CODE>false</CODE> otherwise
+	 */
+	public boolean isFinal(int state) {
+	    return state >= 0 && finals[state];
+	}
+
+	/**
+	 * Returns if a state can reach a final or a nonfinal state.
+	 * @param state the state, or -1 for the trap
+	 * @param value <CODE>true</CODE> for a final state,
+	 * <CODE>false</CODE> for a nonfinal state
+	 * @return <CODE>true</CODE> if such a state can be reached,
+	 * <CODE>false</CODE> otherwise
+	 */
+	public boolean canReach(int state, boolean value) {
+	    if(state < 0) return !value;
+	    return value ? reachesFinal[state] : reachesNonfinal[state];
+	}
+
+	/** The terminals by number. */
+	public String[] terminals;
+	/** The symbol class of each terminal, or <CODE>null</CODE>. */
+	public SymbolClass[] classes;
+	/** The initial state, or -1 if the operand starts in the trap. */
+	public int initial;
+	/** Where each state goes on each terminal, -1 for the trap. */
+	private int[][] next;
+	/** Which states are final. */
+	private boolean[] finals;
+	/** Which states can reach a final state. */
+	private boolean[] reachesFinal;
+	/** Which states can reach a nonfinal state. */
+	private boolean[] reachesNonfinal;
+    }
+
+    /**
+     * An open addressed table numbering packed pair keys in the order
+     * they are added.
+     */
+    private static class PairTable {
+	/**
+	 * Returns the number of a key.
+	 * @param key the key
+	 * @return the number of the key, or -1 if it was never added
+	 */
+	public int get(long key) {
+	    int mask = slots.length - 1;
+	    for(int i = hash(key) & mask; slots[i] != 0; i = (i + 1) & mask) {
+		if(keys[slots[i] - 1] == key) return slots[i] - 1;
+	    }
+	    return -1;
+	}
+
+	/**
+	 * Adds a key that is not in the table yet.
+	 * @param key the key
+	 * @return the number of the key
+	 */
+	public int add(long key) {
+	    if(size == keys.length) {
+		long[] bigger = new long[size * 2];
+		System.arraycopy(keys, 0, bigger, 0, size);
+		keys = bigger;
+	    }
+	    keys[size] = key;
+	    if(2 * (size + 1) > slots.length) {
+		slots = new int[slots.length * 2];
+		for(int k = 0; k < size; k++) place(k);
+	    }
+	    place(size);
+	    return size++;
+	}
+
+	/**
+	 * Puts the number of a key into the first free slot for it.
+	 * @param number the number of the key
+	 */
+	private void place(int number) {
+	    int mask = slots.length - 1;
+	    int i = hash(keys[number]) & mask;
+	    while(slots[i] != 0) i = (i + 1) & mask;
+	    slots[i] = number + 1;
+	}
+
+	/**
+	 * Returns the key with a number.
+	 * @param number the number
+	 * @return the key
+	 */
+	public long getKey(int number) {
+	    return keys[number];
+	}
+
+	/**
+	 * Returns the number of keys in the table.
+	 * @return the number of keys
+	 */
+	public int size() {
+	    return size;
+	}
+
+	/**
+	 * Mixes the bits of a key.
+	 * @param key the key
+	 * @return the hash of the key
+	 */
+	private static int hash(long key) {
+	    long h = key * 0x9E3779B97F4A7C15L;
+	    return (int) (h ^ (h >>> 32));
+	}
+
+	/** The keys in the order they were added. */
+	private long[] keys = new long[16];
+	/** The slots, each holding one more than a key's number, or 0. */
+	private int[] slots = new int[32];
+	/** The number of keys. */
+	private int size = 0;
+    }
+
+    /** The placer for the states of products. */
+    private StatePlacer placer = new StatePlacer();
+
+    /** The operation for the intersection of two languages. */
+    public static final int INTERSECTION = 0;
+    /** The operation for the union of two languages. */
+    public static final int UNION = 1;
+    /** The operation for the strings of the first language not in the
+     * second. */
+    public static final int DIFFERENCE = 2;
+    /** The operation for the strings in exactly one language. */
+    public static final int SYMMETRIC_DIFFERENCE = 3;
+    /** The operation for the complement of the first language. */
+    public static final int COMPLEMENT = 4;
+}
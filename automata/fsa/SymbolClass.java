@@ -0,0 +1,247 @@
+/* -- JFLAP 4.0 --
+ *
+ * Copyright information:
+ *
+ * Susan H. Rodger, Thomas Finley
+ * Computer Science Department
+ * Duke University
+ * April 24, 2003
+ * Supported by National Science Foundation DUE-9752583.
+ *
+ * Copyright (c) 2003
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that the above copyright notice and this paragraph are
+ * duplicated in all such forms and that any documentation,
+ * advertising materials, and other materials related to such
+ * distribution and use acknowledge that the software was developed
+ * by the author.  The name of the author may not be used to
+ * endorse or promote products derived from this software without
+ * specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+ 
+package automata.fsa;
+
+import java.io.Serializable;
+
+/**
+ * A symbol class is a set of characters, kept as sorted ranges of
+ * characters that neither overlap nor touch, such as the characters
+ * <CODE>a</CODE> through <CODE>z</CODE> and <CODE>0</CODE> through
+ * <CODE>9</CODE>.  A transition of a finite state automaton may be on
+ * a symbol class instead of a string, in which case it reads any one
+ * character of the class; a class of all letters is then one
+ * transition rather than dozens.  Symbol classes are immutable.
+ *
+ * @see automata.fsa.FSATransition#FSATransition(automata.State,
+ * automata.State, SymbolClass)
+ * @author Thomas Finley
+ */
+
+public class SymbolClass implements Serializable {
+    /**
+     * Instantiates a symbol class of one range of characters.
+     * @param low the first character in the range
+     * @param high the last character in the range
+     * @throws IllegalArgumentException if <CODE>low</CODE> comes after
+     * <CODE>high</CODE>
+     */
+    public SymbolClass(char low, char high) {
+	this(new char[] {low}, new char[] {high});
+    }
+
+    /**
+     * Instantiates a symbol class of some ranges of characters.  The
+     * ranges may be in any order, and may overlap.
+     * @param lows the first character of each range
+     * @param highs the last character of each range
+     * @throws IllegalArgumentException if the arrays differ in length
+     * or a range is backwards
+     */
+    public SymbolClass(char[] lows, char[] highs) {
+	if (lows.length != highs.length)
+	    throw new IllegalArgumentException("Ranges must have both ends!");
+	// Pack each range into one number, so they sort by low end.
+	long[] ranges = new long[lows.length];
+	for (int i=0; i<lows.length; i++) {
+	    if (lows[i] > highs[i])
+		throw new IllegalArgumentException
+		    ("Range "+lows[i]+"-"+highs[i]+" is backwards!");
+	    ranges[i] = ((long) lows[i] << 16) | highs[i];
+	}
+	java.util.Arrays.sort(ranges);
+	// Merge ranges that overlap or touch.
+	char[] l = new char[ranges.length], h = new char[ranges.length];
+	int count = 0;
+	for (int i=0; i<ranges.length; i++) {
+	    char low = (char) (ranges[i] >> 16), high = (char) ranges[i];
+	    if (count > 0 && low <= h[count-1] + 1) {
+		if (high > h[count-1]) h[count-1] = high;
+		continue;
+	    }
+	    l[count] = low;
+	    h[count++] = high;
+	}
+	this.lows = new char[count];
+	this.highs = new char[count];
+	System.arraycopy(l, 0, this.lows, 0, count);
+	System.arraycopy(h, 0, this.highs, 0, count);
+    }
+
+    /**
+     * Returns the number of ranges in this class.
+     * @return the number of ranges in this class
+     */
+    public int getRangeCount() {
+	return lows.length;
+    }
+
+    /**
+     * Returns the first character of a range.  The ranges are in
+     * order.
+     * @param range the number of the range
+     * @return the first character of the range
+     */
+    public char getLow(int range) {
+	return lows[range];
+    }
+
+    /**
+     * Returns the last character of a range.
+     * @param range the number of the range
+     * @return the last character of the range
+     */
+    public char getHigh(int range) {
+	return highs[range];
+    }
+
+    /**
+     * Returns the number of characters in this class.
+     * @return the number of characters in this class
+     */
+    public int size() {
+	int size = 0;
+	for (int i=0; i<lows.length; i++)
+	    size += highs[i] - lows[i] + 1;
+	return size;
+    }
+
+    /**
+     * Returns if a character is in this class.  This is a binary
+     * search of the ranges.
+     * @param c the character
+     * @return <CODE>true</CODE> if the character is in this class,
+     * <CODE>false</CODE> otherwise
+     */
+    public boolean contains(char c) {
+	int low = 0, high = lows.length - 1;
+	while (low <= high) {
+	    int middle = (low + high) >>> 1;
+	    if (c < lows[middle]) high = middle - 1;
+	    else if (c > highs[middle]) low = middle + 1;
+	    else return true;
+	}
+	return false;
+    }
+
+    /**
+     * Returns if this class and another have a character in common.
+     * @param other the other class
+     * @return <CODE>true</CODE> if some character is in both,
+     * <CODE>false</CODE> otherwise
+     */
+    public boolean intersects(SymbolClass other) {
+	int i = 0, j = 0;
+	while (i < lows.length && j < other.lows.length) {
+	    if (highs[i] < other.lows[j]) i++;
+	    else if (other.highs[j] < lows[i]) j++;
+	    else return true;
+	}
+	return false;
+    }
+
+    /**
+     * Returns the class of the characters in this class or another.
+     * @param other the other class
+     * @return the union of the two classes
+     */
+    public SymbolClass union(SymbolClass other) {
+	int count = lows.length, otherCount = other.lows.length;
+	char[] l = new char[count + otherCount], h = new char[l.length];
+	System.arraycopy(lows, 0, l, 0, count);
+	System.arraycopy(highs, 0, h, 0, count);
+	System.arraycopy(other.lows, 0, l, count, otherCount);
+	System.arraycopy(other.highs, 0, h, count, otherCount);
+	return new SymbolClass(l, h);
+    }
+
+    /**
+     * Returns a string representation of this class, the ranges in
+     * brackets, as in <CODE>[a-z0-9_]</CODE>.  The characters
+     * <CODE>\ ] - ^</CODE> are escaped with a backslash, and those
+     * that are not printable ASCII are written as Unicode escapes.
+     * Equal classes have equal strings.
+     * @return a string representation of this class
+     */
+    public String toString() {
+	StringBuffer buffer = new StringBuffer("[");
+	for (int i=0; i<lows.length; i++) {
+	    append(buffer, lows[i]);
+	    if (highs[i] == lows[i]) continue;
+	    if (highs[i] > lows[i] + 1) buffer.append('-');
+	    append(buffer, highs[i]);
+	}
+	return buffer.append(']').toString();
+    }
+
+    /**
+     * Appends a character to a string representation of a class.
+     * @param buffer the buffer to append to
+     * @param c the character
+     */
+    private static void append(StringBuffer buffer, char c) {
+	if (c == '\\' || c == ']' || c == '-' || c == '^') {
+	    buffer.append('\\').append(c);
+	} else if (c < ' ' || c > '~') {
+	    String hex = Integer.toHexString(c);
+	    buffer.append("\\u");
+	    for (int i=hex.length(); i<4; i++) buffer.append('0');
+	    buffer.append(hex);
+	} else {
+	    buffer.append(c);
+	}
+    }
+
+    /**
+     * Returns if this class equals another object.
+     * @param object the object to test against
+     * @return <CODE>true</CODE> if the object is a class of the same
+     * characters, <CODE>false</CODE> otherwise
+     */
+    public boolean equals(Object object) {
+	if (!(object instanceof SymbolClass)) return false;
+	SymbolClass other = (SymbolClass) object;
+	return java.util.Arrays.equals(lows, other.lows) &&
+	    java.util.Arrays.equals(highs, other.highs);
+    }
+
+    /**
+     * Returns the hash code for this class.
+     * @return the hash code for this class
+     */
+    public int hashCode() {
+	int hash = 0;
+	for (int i=0; i<lows.length; i++)
+	    hash = hash * 31 + (lows[i] << 16 | highs[i]);
+	return hash;
+    }
+
+    /** The first character of each range. */
+    private char[] lows;
+    /** The last character of each range. */
+    private char[] highs;
+}
@@ -51,6 +51,7 @@ public class AutomatonGraph extends Graph {
      */
     public AutomatonGraph(Automaton automaton) {
 	super();
+	this.automaton = automaton;
 	State[] states = automaton.getStates();
 	Transition[] transitions = automaton.getTransitions();
 	for (int i=0; i<states.length; i++)
@@ -59,6 +60,14 @@ public class AutomatonGraph extends Graph {
 	    addEdge(transitions[i].getFromState(), transitions[i].getToState());
     }
 
+    /**
+     * Returns the automaton this graph was built from.
+     * @return the automaton this graph was built from
+     */
+    public Automaton getAutomaton() {
+	return automaton;
+    }
+
     /**
      * Moves the states of the underlying automaton to synchronize
      * with the positions of the corresponding vertices in the graph.
@@ -71,4 +80,7 @@ public class AutomatonGraph extends Graph {
 	    state.setPoint(new Point((int)point.getX(), (int)point.getY()));
 	}
     }
+
+    /** The automaton this graph was built from. */
+    private Automaton automaton;
 }
@@ -63,25 +63,22 @@ public class DFAEqualityChecker {
 		return false;
 	}
 
-	Map labelToTrans1 = new HashMap(), labelToTrans2 = new HashMap();
 	Transition[] t1=state1.getAutomaton().getTransitionsFromState(state1);
 	Transition[] t2=state2.getAutomaton().getTransitionsFromState(state2);
 	// If they're not even the same length...
 	if (t1.length != t2.length) return false;
-	for (int i=0; i<t1.length; i++) {
-	    labelToTrans1.put(((FSATransition) t1[i]).getLabel(), t1[i]);
-	    labelToTrans2.put(((FSATransition) t2[i]).getLabel(), t2[i]);
-	}
+	FiniteStateAutomaton two =
+	    (FiniteStateAutomaton) state2.getAutomaton();
 	// Now, for each transition from state1, we can find the
 	// corresponding transition in state2, if it exists.
 	for (int i=0; i<t1.length; i++) {
 	    String label = ((FSATransition) t1[i]).getLabel();
-	    Transition counterpart = (Transition) labelToTrans2.get(label);
+	    State[] counterpart = two.getSuccessors(state2, label);
 	    // Does the same transition exist in the other automaton?
-	    if (counterpart == null) return false;
+	    if (counterpart.length == 0) return false;
 	    matching.put(state1, state2);
 	    boolean equal = hypothesize(t1[i].getToState(),
-					counterpart.getToState(), matching);
+					counterpart[0], matching);
 	    if (!equal) {
 		matching.remove(state1);
 		return false;
@@ -94,13 +91,23 @@ public class DFAEqualityChecker {
      * Compares two DFAs for equality.  The precondition is that these
      * objects be instances of <CODE>FiniteStateAutomaton</CODE>, both
      * are deterministic, and both have an initial state.  Results are
-     * undefined otherwise.
+     * undefined otherwise.  Transitions are matched by label, so
+     * automata with transitions on symbol classes, which may read the
+     * same characters as differently labeled transitions, are
+     * refused; {@link FSAEqualityChecker} compares those.
      * @param one the first dfa
      * @param two the second dfa
      * @return <CODE>true</CODE> if the two DFAs are equal,
      * <CODE>false</CODE> if they are not
+     * @throws IllegalArgumentException if either automaton has
+     * transitions on symbol classes
      */
     public boolean equals(FiniteStateAutomaton one, FiniteStateAutomaton two) {
+	if (AlphabetPartition.hasSymbolClasses(one) ||
+	    AlphabetPartition.hasSymbolClasses(two))
+	    throw new IllegalArgumentException
+		("Automata with symbol classes cannot be compared by "+
+		 "their labels!");
 	// Make sure they have the same number of states.
 	if (one.getStates().length != two.getStates().length) return false;
 	return hypothesize(one.getInitialState(), two.getInitialState(),
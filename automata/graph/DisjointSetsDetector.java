@@ -27,24 +27,36 @@
 package automata.graph;
 
 import automata.*;
+import automata.event.*;
 import java.util.*;
 
 /**
- * The disjoint sets detector can be used to determine the disjoint 
+ * The disjoint sets detector can be used to determine the disjoint
  * sets of states in a given automaton.  Two sets of states are determined
  * to be disjoint if there are no transitions from one set to the other.
  * Also, given a state, the disjoint sets detector can return the
  * set of states that are connected to that state.
  *
+ * The sets are kept in a union-find structure, which is built by a
+ * {@link StateTraverser} search of each set and kept between calls
+ * for the same automaton as long as its modification count is
+ * unchanged, so any change, even one that sends no events, causes the
+ * structure to be rebuilt when next needed.  If the detector is added
+ * to the automaton as a transition and state listener, states and
+ * transitions added one at a time are taken in as they are added
+ * instead, while removals, which union-find cannot undo, still cause
+ * a rebuild.
+ *
  * @author Ryan Cavalcante
  */
 
-public class DisjointSetsDetector {
+public class DisjointSetsDetector implements AutomataTransitionListener,
+					     AutomataStateListener {
     /**
      * Instantiates a <CODE>DisjointSetsDetector</CODE>.
      */
     public DisjointSetsDetector() {
-	STATES_IN_A_SET = new ArrayList();
+	STATES_IN_A_SET = new HashSet();
     }
 
     /**
@@ -54,72 +66,171 @@ public class DisjointSetsDetector {
      * @param states the set of states to account for
      */
     private void accountForStates(HashSet states) {
-	Iterator it = states.iterator();
-	while(it.hasNext()) {
-	    State state = (State) it.next();
-	    if(!STATES_IN_A_SET.contains(state))
-		STATES_IN_A_SET.add(state);
-	}
+	STATES_IN_A_SET.addAll(states);
     }
-    
+
     /**
-     * Returns true if <CODE>s1</CODE> and <CODE>s2</CODE> from
-     * <CODE>automaton</CODE> are directly connected.  (i.e. there is
-     * either a transition from <CODE>s1</CODE> to <CODE>s2</CODE> or
-     * a transition from <CODE>s2</CODE> to <CODE>s1</CODE>.
-     * @param s1 a state
-     * @param s2 a state
+     * Returns the component of each state of <CODE>automaton</CODE>.
+     * States are in the same component if and only if they are
+     * connected by transitions, in either direction.  Components are
+     * numbered from 0 in the order of their first states.
      * @param automaton the automaton
-     * @return true if <CODE>s1</CODE> and <CODE>s2</CODE> from
-     * <CODE>automaton</CODE> are directly connected.  (i.e. there is
-     * either a transition from <CODE>s1</CODE> to <CODE>s2</CODE> or
-     * a transition from <CODE>s2</CODE> to <CODE>s1</CODE>.
+     * @return the number of the component of each state, in the order
+     * of <CODE>automaton.getStates()</CODE>
      */
-    private boolean areDirectlyConnected
-	(State s1, State s2, Automaton automaton) {
-	if(s1==s2) return false;
-	if(automaton.getTransitionsFromStateToState(s1,s2).length == 0 &&
-	   automaton.getTransitionsFromStateToState(s2,s1).length == 0)
-	    return false;
-	return true;
+    public int[] getComponents(Automaton automaton) {
+	if(automaton != myAutomaton ||
+	   automaton.getModificationCount() != modifications) {
+	    build(automaton);
+	}
+	State[] states = automaton.getStates();
+	int[] components = new int[states.length];
+	for(int k = 0; k < states.length; k++) {
+	    components[k] = find(getIndex(states[k]));
+	}
+	/** number the roots in order. */
+	int[] numbers = new int[size];
+	Arrays.fill(numbers, -1);
+	int count = 0;
+	for(int k = 0; k < states.length; k++) {
+	    if(numbers[components[k]] < 0) numbers[components[k]] = count++;
+	    components[k] = numbers[components[k]];
+	}
+	return components;
     }
 
     /**
-     * Returns a list of states in <CODE>automaton</CODE> that are 
-     * connected directly to <CODE>state</CODE>.
-     * @param state the state
+     * Rebuilds the union-find structure for an automaton.  Each
+     * component is found by a breadth first search following
+     * transitions both ways, and its states are put directly under
+     * its first state.
      * @param automaton the automaton
-     * @return a list of states in <CODE>automaton</CODE> that are 
-     * connected directly to <CODE>state</CODE>.
      */
-    private ArrayList getStatesConnectedToState
-	(State state, Automaton automaton) {
-	ArrayList list = new ArrayList();
+    private void build(Automaton automaton) {
+	myAutomaton = automaton;
+	modifications = automaton.getModificationCount();
+	stateIndex = new HashMap();
+	parent = new int[16];
+	rank = new int[16];
+	size = 0;
+	StateTraverser traverser =
+	    new StateTraverser(automaton, StateTraverser.BOTH);
+	BitSet visited = new BitSet();
 	State[] states = automaton.getStates();
 	for(int k = 0; k < states.length; k++) {
-	    if(areDirectlyConnected(state,states[k],automaton)) {
-		list.add(states[k]);
+	    State[] component = traverser.breadthFirst
+		(new State[] {states[k]}, visited);
+	    if(component.length == 0) continue;
+	    int root = getIndex(component[0]);
+	    for(int i = 1; i < component.length; i++) {
+		/** getIndex may grow the arrays, so call it first. */
+		int index = getIndex(component[i]);
+		parent[index] = root;
+		rank[root] = 1;
 	    }
 	}
-	return list;
     }
 
     /**
-     * Adds all contents of <CODE>toAdd</CODE> that are not in 
-     * <CODE>set</CODE> to <CODE>list</CODE>.
-     * @param toAdd a list of states
-     * @param set a set of states
-     * @param list a list of states
+     * Joins the components of the two states of a transition.
+     * @param transition the transition
      */
-    private void addAllNotInSetToList(ArrayList toAdd, HashSet set, 
-				     ArrayList list) {
-	Iterator it = toAdd.iterator();
-	while(it.hasNext()) {
-	    State state = (State) it.next();
-	    if(!set.contains(state)) list.add(state);
+    private void union(Transition transition) {
+	int root1 = find(getIndex(transition.getFromState()));
+	int root2 = find(getIndex(transition.getToState()));
+	if(root1 == root2) return;
+	if(rank[root1] < rank[root2]) {
+	    parent[root1] = root2;
+	} else {
+	    parent[root2] = root1;
+	    if(rank[root1] == rank[root2]) rank[root1]++;
 	}
     }
 
+    /**
+     * Returns the root of the component of a state, compressing the
+     * path to it.
+     * @param index the index of the state
+     * @return the index of the root
+     */
+    private int find(int index) {
+	int root = index;
+	while(parent[root] != root) root = parent[root];
+	while(parent[index] != root) {
+	    int next = parent[index];
+	    parent[index] = root;
+	    index = next;
+	}
+	return root;
+    }
+
+    /**
+     * Returns the index of a state in the union-find structure, adding
+     * it in a component of its own if it is new.
+     * @param state the state
+     * @return the index of the state
+     */
+    private int getIndex(State state) {
+	Integer index = (Integer) stateIndex.get(state);
+	if(index != null) return index.intValue();
+	if(size == parent.length) {
+	    parent = grow(parent);
+	    rank = grow(rank);
+	}
+	parent[size] = size;
+	stateIndex.put(state, new Integer(size));
+	return size++;
+    }
+
+    /**
+     * Returns a copy of an array twice as long.
+     * @param array the array
+     * @return the longer copy
+     */
+    private static int[] grow(int[] array) {
+	int[] bigger = new int[array.length * 2];
+	System.arraycopy(array, 0, bigger, 0, array.length);
+	return bigger;
+    }
+
+    /**
+     * Joins the states of an added transition, if the structure was
+     * up to date with every change before it.  Otherwise the
+     * modification count will not match, and the structure is rebuilt
+     * when next needed.
+     * @param event the event
+     */
+    public void automataTransitionChange(AutomataTransitionEvent event) {
+	if(!isNextChange(event.getAutomaton())) return;
+	if(event.isAdd()) {
+	    union(event.getTransition());
+	    modifications++;
+	}
+    }
+
+    /**
+     * Takes in an added state, if the structure was up to date with
+     * every change before it.  New states need nothing, as they are
+     * given components of their own when first seen.
+     * @param event the event
+     */
+    public void automataStateChange(AutomataStateEvent event) {
+	if(!isNextChange(event.getAutomaton())) return;
+	if(event.isAdd()) modifications++;
+    }
+
+    /**
+     * Returns if the structure is for an automaton and up to date with
+     * every change to it but the last.
+     * @param automaton the automaton
+     * @return <CODE>true</CODE> if the structure misses only the last
+     * change to the automaton, <CODE>false</CODE> otherwise
+     */
+    private boolean isNextChange(Automaton automaton) {
+	return automaton == myAutomaton &&
+	    automaton.getModificationCount() == modifications + 1;
+    }
+
     /**
      * Returns a set containing all states in <CODE>automaton</CODE>,
      * including <CODE>state</CODE>, that are connected to
@@ -131,21 +242,17 @@ public class DisjointSetsDetector {
      * <CODE>state</CODE>.
      */
     public HashSet getSetIncludingState(State state, Automaton automaton) {
+	int[] components = getComponents(automaton);
+	State[] states = automaton.getStates();
+	int component = -1;
+	for(int k = 0; k < states.length; k++) {
+	    if(states[k] == state) component = components[k];
+	}
 	HashSet set = new HashSet();
-	ArrayList list = new ArrayList();
-	list.add(state);
-	while(!list.isEmpty()) {
-	    ArrayList toAdd = new ArrayList();
-	    Iterator it = list.iterator();
-	    while(it.hasNext()) {
-		State s = (State) it.next();
-		toAdd.addAll(getStatesConnectedToState(s,automaton));
-		set.add(s);
-		it.remove();
-	    }
-	    addAllNotInSetToList(toAdd,set,list);
+	set.add(state);
+	for(int k = 0; k < states.length; k++) {
+	    if(components[k] == component) set.add(states[k]);
 	}
-
 	return set;
     }
 
@@ -159,18 +266,6 @@ public class DisjointSetsDetector {
 	return false;
     }
 
-    /**
-     * Returns true if all states in <CODE>automaton</CODE> have been
-     * accounted for in the determination of disjoint sets.
-     * @param automaton the automaton
-     * @return true if all states in <CODE>automaton</CODE> have been
-     * accounted for in the determination of disjoint sets.
-     */
-    private boolean accountedForAllStates(Automaton automaton) {
-	if(getUnaccountedForState(automaton) == null) return true;
-	return false;
-    }
-
     /**
      * Returns a state in <CODE>automaton</CODE> that has not yet
      * been accounted for in the determination of disjoint sets.
@@ -187,26 +282,41 @@ public class DisjointSetsDetector {
     }
 
     /**
-     * Returns an array of all the disjoint sets of states in 
+     * Returns an array of all the disjoint sets of states in
      * <CODE>automaton</CODE>.
      * @param automaton the automaton
-     * @return an array of all the disjoint sets of states in 
+     * @return an array of all the disjoint sets of states in
      * <CODE>automaton</CODE>.
      */
     public HashSet[] getDisjointSets(Automaton automaton) {
+	int[] components = getComponents(automaton);
+	State[] states = automaton.getStates();
 	ArrayList list = new ArrayList();
-	STATES_IN_A_SET = new ArrayList();
-
-	while(!accountedForAllStates(automaton)) {
-	    State state = getUnaccountedForState(automaton);
-	    HashSet set = getSetIncludingState(state,automaton);
-	    accountForStates(set);
-	    list.add(set);
+	for(int k = 0; k < states.length; k++) {
+	    if(components[k] == list.size()) list.add(new HashSet());
+	    ((HashSet) list.get(components[k])).add(states[k]);
+	}
+	STATES_IN_A_SET = new HashSet();
+	for(int k = 0; k < list.size(); k++) {
+	    accountForStates((HashSet) list.get(k));
 	}
 	return (HashSet[]) list.toArray(new HashSet[0]);
     }
 
     /** the states accounted for in the determination of disjoint sets. */
-    protected ArrayList STATES_IN_A_SET;
+    protected HashSet STATES_IN_A_SET;
 
+    /** The automaton the union-find structure is for. */
+    private Automaton myAutomaton;
+    /** The modification count of the automaton the structure was
+     * up to date with. */
+    private int modifications;
+    /** The map of states to their indices in the structure. */
+    private HashMap stateIndex;
+    /** The parent of each state's index. */
+    private int[] parent;
+    /** The rank of each root. */
+    private int[] rank;
+    /** The number of states in the structure. */
+    private int size;
 }
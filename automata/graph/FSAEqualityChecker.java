@@ -26,13 +26,21 @@
  
 package automata.graph;
 
-import automata.fsa.NFAToDFA;
-import automata.fsa.Minimizer;
-import automata.fsa.FiniteStateAutomaton;
+import automata.*;
+import automata.fsa.*;
+import java.util.*;
 
 /**
- * This determines if two FSAs accept the same language.
- * 
+ * This determines if two FSAs accept the same language.  The FSAs are
+ * determinized lazily, one set of states at a time, and compared by
+ * the algorithm of Hopcroft and Karp: starting from the pair of
+ * initial sets, each pair of sets is assumed equivalent by joining
+ * them in a union-find structure, and the pairs they go to on each
+ * terminal are checked in turn unless they are already joined.  The
+ * FSAs differ as soon as a joined pair disagrees on acceptance.  This
+ * takes nearly linear time in the size of the determinized FSAs, and
+ * never minimizes either of them.
+ *
  * @author Thomas Finley
  */
 
@@ -47,33 +55,435 @@ public class FSAEqualityChecker {
      */
     public boolean equals(FiniteStateAutomaton fsa1,
 			  FiniteStateAutomaton fsa2) {
-	// Clone for safety.
-	fsa1 = (FiniteStateAutomaton) fsa1.clone();
-	fsa2 = (FiniteStateAutomaton) fsa2.clone();
-
-	// Make sure they're DFAs.
-	fsa1 = nfaConverter.convertToDFA(fsa1);
-	fsa2 = nfaConverter.convertToDFA(fsa2);
-	// Minimize the DFAs.
-	minimizer.initializeMinimizer();
-	fsa1 = (FiniteStateAutomaton)minimizer.getMinimizeableAutomaton(fsa1);
-	javax.swing.tree.DefaultTreeModel tree =
-	    minimizer.getDistinguishableGroupsTree(fsa1);
-	fsa1 = minimizer.getMinimumDfa(fsa1, tree);
-
-	minimizer.initializeMinimizer();
-	fsa2 = (FiniteStateAutomaton)minimizer.getMinimizeableAutomaton(fsa2);
-	tree = minimizer.getDistinguishableGroupsTree(fsa2);
-	fsa2 = minimizer.getMinimumDfa(fsa2, tree);
-
-	// Check the minimized DFAs to see if they are the same.
-	return checker.equals(fsa1, fsa2);
+	FiniteStateAutomaton[] fsas = {fsa1, fsa2};
+	refineSymbolClasses(fsas);
+	HashMap terminalIndex = new HashMap();
+	Subsets one = new Subsets(fsas[0], terminalIndex);
+	Subsets two = new Subsets(fsas[1], terminalIndex);
+	int terminals = terminalIndex.size();
+
+	int[] parent = new int[0], rank = new int[0];
+	int[] queue = new int[16];
+	int head = 0, tail = 0;
+	int initial1 = one.getInitial(), initial2 = two.getInitial();
+	if(one.isFinal(initial1) != two.isFinal(initial2)) return false;
+	queue[tail++] = initial1;
+	queue[tail++] = initial2;
+	/** sets of the first fsa are even nodes, of the second odd. */
+	parent = addNode(parent, 2 * initial1);
+	parent = addNode(parent, 2 * initial2 + 1);
+	rank = grow(rank, parent.length);
+	union(parent, rank, 2 * initial1, 2 * initial2 + 1);
+	while(head < tail) {
+	    int from1 = queue[head++], from2 = queue[head++];
+	    for(int t = 0; t < terminals; t++) {
+		int to1 = one.getNext(from1, t), to2 = two.getNext(from2, t);
+		parent = addNode(parent, 2 * to1);
+		parent = addNode(parent, 2 * to2 + 1);
+		rank = grow(rank, parent.length);
+		if(find(parent, 2 * to1) == find(parent, 2 * to2 + 1)) continue;
+		if(one.isFinal(to1) != two.isFinal(to2)) return false;
+		union(parent, rank, 2 * to1, 2 * to2 + 1);
+		queue = grow(queue, tail + 2);
+		queue[tail++] = to1;
+		queue[tail++] = to2;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Returns a shortest string accepted by exactly one of two FSAs.
+     * Where {@link #equals} may stop at a longer string, this explores
+     * the pairs of sets breadth first without joining any, so the
+     * first pair found that disagrees on acceptance is reached by a
+     * shortest string.
+     * @param fsa1 the first finite state automaton
+     * @param fsa2 the second finite state automaton
+     * @return a shortest string accepted by one FSA but not the other,
+     * or <CODE>null</CODE> if they accept the same language
+     */
+    public String getCounterexample(FiniteStateAutomaton fsa1,
+				    FiniteStateAutomaton fsa2) {
+	FiniteStateAutomaton[] fsas = {fsa1, fsa2};
+	AlphabetPartition partition = refineSymbolClasses(fsas);
+	HashMap terminalIndex = new HashMap();
+	Subsets one = new Subsets(fsas[0], terminalIndex);
+	Subsets two = new Subsets(fsas[1], terminalIndex);
+	String[] terminals = new String[terminalIndex.size()];
+	Iterator it = terminalIndex.entrySet().iterator();
+	while(it.hasNext()) {
+	    Map.Entry entry = (Map.Entry) it.next();
+	    terminals[((Integer) entry.getValue()).intValue()] =
+		(String) entry.getKey();
+	}
+	/** a minterm is spelled by its first character. */
+	if(partition != null) {
+	    HashMap spelling = new HashMap();
+	    for(int m = 0; m < partition.getMintermCount(); m++) {
+		spelling.put(partition.getLabel(m), String.valueOf
+			     (partition.getMinterm(m).getLow(0)));
+	    }
+	    for(int t = 0; t < terminals.length; t++) {
+		terminals[t] = (String) spelling.get(terminals[t]);
+	    }
+	}
+
+	/** each pair found is four ints: the two sets, the pair it was
+	 * found from and the terminal it was found on. */
+	int[] pairs = new int[64];
+	int count = 0;
+	HashSet seen = new HashSet();
+	int initial1 = one.getInitial(), initial2 = two.getInitial();
+	seen.add(new Long(pack(initial1, initial2)));
+	pairs[0] = initial1;
+	pairs[1] = initial2;
+	pairs[2] = -1;
+	count++;
+	for(int n = 0; n < count; n++) {
+	    int from1 = pairs[4 * n], from2 = pairs[4 * n + 1];
+	    if(one.isFinal(from1) != two.isFinal(from2)) {
+		StringBuffer string = new StringBuffer();
+		for(int k = n; pairs[4 * k + 2] >= 0; k = pairs[4 * k + 2]) {
+		    string.insert(0, terminals[pairs[4 * k + 3]]);
+		}
+		return string.toString();
+	    }
+	    for(int t = 0; t < terminals.length; t++) {
+		int to1 = one.getNext(from1, t), to2 = two.getNext(from2, t);
+		if(!seen.add(new Long(pack(to1, to2)))) continue;
+		pairs = grow(pairs, 4 * count + 4);
+		pairs[4 * count] = to1;
+		pairs[4 * count + 1] = to2;
+		pairs[4 * count + 2] = n;
+		pairs[4 * count + 3] = t;
+		count++;
+	    }
+	}
+	return null;
+    }
+
+    /**
+     * Returns the root of the class of a node, compressing the path
+     * to it.
+     * @param parent the parent of each node
+     * @param node the node
+     * @return the root of the node's class
+     */
+    private static int find(int[] parent, int node) {
+	int root = node;
+	while(parent[root] != root) root = parent[root];
+	while(parent[node] != root) {
+	    int next = parent[node];
+	    parent[node] = root;
+	    node = next;
+	}
+	return root;
+    }
+
+    /**
+     * Adds a node in a class of its own, if it is not there yet.
+     * @param parent the parent of each node, -1 for nodes not added
+     * @param node the node
+     * @return the array of parents, grown if the node did not fit
+     */
+    private static int[] addNode(int[] parent, int node) {
+	if(node >= parent.length) {
+	    int length = parent.length;
+	    parent = grow(parent, node + 1);
+	    Arrays.fill(parent, length, parent.length, -1);
+	}
+	if(parent[node] < 0) parent[node] = node;
+	return parent;
+    }
+
+    /**
+     * Joins the classes of two nodes, putting the class of lower rank
+     * under the other.
+     * @param parent the parent of each node
+     * @param rank the rank of each root
+     * @param node1 the first node
+     * @param node2 the second node
+     */
+    private static void union(int[] parent, int[] rank, int node1,
+			      int node2) {
+	int root1 = find(parent, node1), root2 = find(parent, node2);
+	if(root1 == root2) return;
+	if(rank[root1] < rank[root2]) {
+	    parent[root1] = root2;
+	} else {
+	    parent[root2] = root1;
+	    if(rank[root1] == rank[root2]) rank[root1]++;
+	}
+    }
+
+    /**
+     * Returns an array at least as long as asked, keeping the contents
+     * of the old array.
+     * @param array the old array
+     * @param length the least length needed
+     * @return the old array if it is long enough, or else a copy at
+     * least twice as long
+     */
+    private static int[] grow(int[] array, int length) {
+	if(array.length >= length) return array;
+	int[] bigger = new int[Math.max(length, 2 * array.length)];
+	System.arraycopy(array, 0, bigger, 0, array.length);
+	return bigger;
+    }
+
+    /**
+     * Packs the numbers of two sets into a key.
+     * @param set1 the set of the first fsa
+     * @param set2 the set of the second fsa
+     * @return the key for the pair
+     */
+    private static long pack(int set1, int set2) {
+	return ((long) set1 << 32) | (set2 & 0xffffffffL);
+    }
+
+    /**
+     * Replaces two FSAs with copies whose symbol classes are split
+     * into the minterms of both, so that their labels are terminals
+     * that either match or read no character in common.  Nothing is
+     * done if neither has symbol classes.
+     * @param fsas the two FSAs, which are replaced by the copies
+     * @return the minterms, or <CODE>null</CODE> if there are no
+     * symbol classes
+     */
+    private static AlphabetPartition refineSymbolClasses
+	(FiniteStateAutomaton[] fsas) {
+	if(!AlphabetPartition.hasSymbolClasses(fsas[0]) &&
+	   !AlphabetPartition.hasSymbolClasses(fsas[1])) return null;
+	FSALabelHandler fsalh = new FSALabelHandler();
+	for(int k = 0; k < fsas.length; k++) {
+	    fsas[k] = (FiniteStateAutomaton) fsas[k].clone();
+	    fsalh.removeMultipleCharacterLabelsFromAutomaton(fsas[k]);
+	}
+	AlphabetPartition partition = new AlphabetPartition(fsas);
+	for(int k = 0; k < fsas.length; k++) {
+	    partition.refine(fsas[k]);
+	}
+	return partition;
     }
 
-    /** The equality checker. */
-    private static DFAEqualityChecker checker = new DFAEqualityChecker();
-    /** The converter for an NFA to a DFA. */
-    private static NFAToDFA nfaConverter = new NFAToDFA();
-    /** That which minimizes a DFA. */
-    private static Minimizer minimizer = new Minimizer();
+    /**
+     * The lazily found sets of states of an FSA, as in its
+     * determinization.  Each set is numbered when it is first reached,
+     * and where it goes on each terminal is found only when asked.
+     * The empty set stands for the trap state.  If the FSA is already
+     * a DFA, each set has one state, so the sets are simply the states
+     * by number, with one more number for the trap.
+     */
+    private static class Subsets {
+	/**
+	 * Prepares to determinize an FSA, without affecting it.
+	 * @param fsa the finite state automaton
+	 * @param terminalIndex the map of terminals to their numbers,
+	 * shared by the FSAs being compared; the terminals of this FSA
+	 * are added to it, and all the FSAs must be prepared before any
+	 * set is numbered
+	 */
+	public Subsets(FiniteStateAutomaton fsa, Map terminalIndex) {
+	    automaton = fsa;
+	    FSALabelHandler fsalh = new FSALabelHandler();
+	    if(fsalh.hasMultipleCharacterLabels(automaton)) {
+		automaton = (Automaton) fsa.clone();
+		fsalh.removeMultipleCharacterLabelsFromAutomaton(automaton);
+	    }
+	    this.terminalIndex = terminalIndex;
+	    String[] alphabet = automaton.getAlphabet();
+	    for(int k = 0; k < alphabet.length; k++) {
+		if(!terminalIndex.containsKey(alphabet[k])) {
+		    terminalIndex.put(alphabet[k],
+				      new Integer(terminalIndex.size()));
+		}
+	    }
+	    states = automaton.getStates();
+	    for(int k = 0; k < states.length; k++) {
+		stateIndex.put(states[k], new Integer(k));
+	    }
+	    deterministic = !new AutomatonChecker().isNFA(automaton);
+	    if(deterministic) {
+		moves = new int[states.length][];
+	    } else {
+		closures = new BitSet[states.length];
+		steps = new BitSet[states.length][];
+	    }
+	}
+
+	/**
+	 * Returns the number of the initial set, the closure of the
+	 * initial state.
+	 * @return the number of the initial set
+	 */
+	public int getInitial() {
+	    BitSet set = new BitSet();
+	    State initial = automaton.getInitialState();
+	    if(deterministic) {
+		return initial == null ? states.length
+		    : ((Integer) stateIndex.get(initial)).intValue();
+	    }
+	    if(initial != null) {
+		set.or(getClosure(((Integer) stateIndex.get(initial))
+				  .intValue()));
+	    }
+	    return getNumber(set);
+	}
+
+	/**
+	 * Returns where a set goes on a terminal.
+	 * @param set the number of the set
+	 * @param terminal the number of the terminal
+	 * @return the number of the set it goes to
+	 */
+	public int getNext(int set, int terminal) {
+	    if(deterministic) return getMove(set, terminal);
+	    int[] next = (int[]) successors.get(set);
+	    if(next[terminal] >= 0) return next[terminal];
+	    BitSet from = (BitSet) sets.get(set), to = new BitSet();
+	    for(int k = from.nextSetBit(0); k >= 0;
+		k = from.nextSetBit(k + 1)) {
+		BitSet step = getStep(k)[terminal];
+		if(step != null) to.or(step);
+	    }
+	    next[terminal] = getNumber(to);
+	    return next[terminal];
+	}
+
+	/**
+	 * Returns where a state of a DFA goes on a terminal.
+	 * @param state the number of the state, or the number of states
+	 * for the trap
+	 * @param terminal the number of the terminal
+	 * @return the number of the state it goes to
+	 */
+	private int getMove(int state, int terminal) {
+	    if(state == states.length) return state;
+	    if(moves[state] == null) {
+		moves[state] = new int[terminalIndex.size()];
+		Arrays.fill(moves[state], states.length);
+		Transition[] transitions =
+		    automaton.getTransitionsFromState(states[state]);
+		for(int i = 0; i < transitions.length; i++) {
+		    String label =
+			((FSATransition) transitions[i]).getLabel();
+		    moves[state][((Integer) terminalIndex.get(label))
+				 .intValue()] = ((Integer) stateIndex.get
+						 (transitions[i].getToState()))
+			.intValue();
+		}
+	    }
+	    return moves[state][terminal];
+	}
+
+	/**
+	 * Returns where a state goes on each terminal, closure included.
+	 * @param state the number of the state
+	 * @return the set of states reached on each terminal, with
+	 * <CODE>null</CODE> for terminals that reach no states
+	 */
+	private BitSet[] getStep(int state) {
+	    if(steps[state] != null) return steps[state];
+	    steps[state] = new BitSet[terminalIndex.size()];
+	    Transition[] transitions =
+		automaton.getTransitionsFromState(states[state]);
+	    for(int i = 0; i < transitions.length; i++) {
+		String label = ((FSATransition) transitions[i]).getLabel();
+		if(label.length() == 0) continue;
+		int terminal = ((Integer) terminalIndex.get(label)).intValue();
+		if(steps[state][terminal] == null) {
+		    steps[state][terminal] = new BitSet();
+		}
+		steps[state][terminal].or
+		    (getClosure(((Integer) stateIndex.get
+				 (transitions[i].getToState())).intValue()));
+	    }
+	    return steps[state];
+	}
+
+	/**
+	 * Returns if a set is final, that is, has a final state.
+	 * @param set the number of the set
+	 * @return <CODE>true</CODE> if the set is final,
+	 * <CODE>false</CODE> otherwise
+	 */
+	public boolean isFinal(int set) {
+	    if(deterministic) {
+		return set < states.length &&
+		    automaton.isFinalState(states[set]);
+	    }
+	    return finals.get(set);
+	}
+
+	/**
+	 * Returns the number of a set, numbering it if it is new.
+	 * @param set the set
+	 * @return the number of the set
+	 */
+	private int getNumber(BitSet set) {
+	    Integer number = (Integer) numbers.get(set);
+	    if(number != null) return number.intValue();
+	    number = new Integer(sets.size());
+	    numbers.put(set, number);
+	    sets.add(set);
+	    int[] next = new int[terminalIndex.size()];
+	    Arrays.fill(next, -1);
+	    successors.add(next);
+	    for(int k = set.nextSetBit(0); k >= 0; k = set.nextSetBit(k + 1)) {
+		if(automaton.isFinalState(states[k])) {
+		    finals.set(number.intValue());
+		    break;
+		}
+	    }
+	    return number.intValue();
+	}
+
+	/**
+	 * Returns the closure of a state as a set.
+	 * @param state the number of the state
+	 * @return the closure of the state
+	 */
+	private BitSet getClosure(int state) {
+	    if(closures[state] == null) {
+		State[] closure =
+		    ClosureTaker.getClosure(states[state], automaton);
+		closures[state] = new BitSet();
+		for(int k = 0; k < closure.length; k++) {
+		    closures[state].set(((Integer) stateIndex.get
+					 (closure[k])).intValue());
+		}
+	    }
+	    return closures[state];
+	}
+
+	/** The FSA, or a copy of it if it had to be changed to have
+	 * single character labels. */
+	private Automaton automaton;
+	/** The states of the FSA by number. */
+	private State[] states;
+	/** The map of states to their numbers. */
+	private HashMap stateIndex = new HashMap();
+	/** The map of terminals to their numbers. */
+	private Map terminalIndex;
+	/** Whether the FSA is a DFA, so sets need not be found. */
+	private boolean deterministic;
+	/** For a DFA, where each state goes on each terminal, found when
+	 * first needed. */
+	private int[][] moves;
+	/** The closure of each state, found when first needed. */
+	private BitSet[] closures;
+	/** Where each state goes on each terminal, found when first
+	 * needed. */
+	private BitSet[][] steps;
+	/** The sets by number. */
+	private ArrayList sets = new ArrayList();
+	/** The map of sets to their numbers. */
+	private HashMap numbers = new HashMap();
+	/** For each set, the set it goes to on each terminal, or -1 if
+	 * that is not found yet. */
+	private ArrayList successors = new ArrayList();
+	/** Which sets are final. */
+	private BitSet finals = new BitSet();
+    }
 }
@@ -0,0 +1,256 @@
+/* -- JFLAP 4.0 --
+ *
+ * Copyright information:
+ *
+ * Susan H. Rodger, Thomas Finley
+ * Computer Science Department
+ * Duke University
+ * April 24, 2003
+ * Supported by National Science Foundation DUE-9752583.
+ *
+ * Copyright (c) 2003
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that the above copyright notice and this paragraph are
+ * duplicated in all such forms and that any documentation,
+ * advertising materials, and other materials related to such
+ * distribution and use acknowledge that the software was developed
+ * by the author.  The name of the author may not be used to
+ * endorse or promote products derived from this software without
+ * specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+ 
+package automata.graph;
+
+import java.util.*;
+import java.awt.geom.*;
+
+/**
+ * Implements the force directed layout of Thomas Fruchterman and
+ * Edward Reingold in their 1991 paper.  Every vertex repels every
+ * other, and adjacent vertices attract each other; in each iteration
+ * all the forces are found from the positions of the previous
+ * iteration, and then every vertex moves at once by at most the
+ * current temperature, which cools linearly to nothing.  Vertices
+ * are kept within a square frame about the graph's original center.
+ *
+ * The graph is copied into arrays of coordinates and a compressed
+ * list of neighbors, and positions are written back once at the end.
+ * Since the forces of an iteration depend only on the positions of
+ * the last, the vertices are split among several threads to find
+ * them.
+ *
+ * @author Thomas Finley
+ */
+
+public class FruchtermanReingoldLayoutAlgorithm implements LayoutAlgorithm {
+    /**
+     * Instantiates a layout algorithm with the default number of
+     * iterations, using as many threads as there are processors.
+     */
+    public FruchtermanReingoldLayoutAlgorithm() {
+	this(DEFAULT_ITERATIONS, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Instantiates a layout algorithm.
+     * @param iterations the number of iterations to run
+     * @param threads the most threads to use
+     */
+    public FruchtermanReingoldLayoutAlgorithm(int iterations, int threads) {
+	this.iterations = iterations;
+	this.threads = Math.max(1, threads);
+    }
+
+    public void layout(Graph graph, Set isovertices) {
+	if (isovertices == null) isovertices = Collections.EMPTY_SET;
+	Object[] vArray = graph.vertices();
+	int n = vArray.length;
+
+	// Copy the graph into arrays.
+	HashMap index = new HashMap();
+	for (int i=0; i<n; i++)
+	    index.put(vArray[i], new Integer(i));
+	final double[] x = new double[n], y = new double[n];
+	final boolean[] fixed = new boolean[n];
+	final int[] start = new int[n+1];
+	ArrayList neighbors = new ArrayList();
+	boolean anyMovable = false;
+	for (int i=0; i<n; i++) {
+	    Point2D point = graph.pointForVertex(vArray[i]);
+	    x[i] = point.getX();
+	    y[i] = point.getY();
+	    fixed[i] = isovertices.contains(vArray[i]);
+	    anyMovable |= !fixed[i];
+	    start[i] = neighbors.size();
+	    Iterator it = graph.adjacent(vArray[i]).iterator();
+	    while (it.hasNext()) {
+		Integer j = (Integer) index.get(it.next());
+		if (j != null && j.intValue() != i) neighbors.add(j);
+	    }
+	}
+	start[n] = neighbors.size();
+	final int[] adjacent = new int[neighbors.size()];
+	for (int i=0; i<adjacent.length; i++)
+	    adjacent[i] = ((Integer) neighbors.get(i)).intValue();
+	if (!anyMovable) return;
+
+	// Start hot enough to move a tenth of the way across the graph.
+	double minX = x[0], minY = y[0], maxX = minX, maxY = minY;
+	for (int i=1; i<n; i++) {
+	    minX = Math.min(minX, x[i]);
+	    minY = Math.min(minY, y[i]);
+	    maxX = Math.max(maxX, x[i]);
+	    maxY = Math.max(maxY, y[i]);
+	}
+	double initial = Math.max(OPTIMAL_EDGE_LENGTH,
+				  Math.max(maxX-minX, maxY-minY) / 10.0);
+	// Keep vertices in a frame with room for n vertices at the
+	// optimal distance, or vertices with no edges drift away.
+	double half = Math.sqrt(n) * OPTIMAL_EDGE_LENGTH;
+	double centerX = (minX+maxX) / 2.0, centerY = (minY+maxY) / 2.0;
+
+	final double[] dx = new double[n], dy = new double[n];
+	for (int i=0; i<iterations; i++) {
+	    computeForces(x, y, start, adjacent, dx, dy);
+	    double temperature = initial * (iterations - i) / iterations;
+	    for (int v=0; v<n; v++) {
+		if (fixed[v]) continue;
+		double length = Math.sqrt(dx[v]*dx[v] + dy[v]*dy[v]);
+		if (length == 0.0) continue;
+		double scale = Math.min(length, temperature) / length;
+		x[v] = Math.max(centerX-half, Math.min(centerX+half,
+						       x[v] + dx[v] * scale));
+		y[v] = Math.max(centerY-half, Math.min(centerY+half,
+						       y[v] + dy[v] * scale));
+	    }
+	}
+
+	// Write the new positions back.
+	for (int v=0; v<n; v++)
+	    if (!fixed[v])
+		graph.moveVertex(vArray[v], new Point2D.Double(x[v], y[v]));
+    }
+
+    /**
+     * Finds the force on every vertex, splitting the vertices among
+     * threads.
+     * @param x the x coordinate of each vertex, which is only read
+     * @param y the y coordinate of each vertex, which is only read
+     * @param start where the neighbors of each vertex start in
+     * <CODE>adjacent</CODE>, with one more entry for the end
+     * @param adjacent the neighbors of all the vertices
+     * @param dx the array to put the x part of each force in
+     * @param dy the array to put the y part of each force in
+     */
+    private void computeForces(final double[] x, final double[] y,
+			       final int[] start, final int[] adjacent,
+			       final double[] dx, final double[] dy) {
+	int n = x.length;
+	final Throwable[] failure = new Throwable[1];
+	int workers = Math.max(1, Math.min(threads, n / MIN_PER_THREAD));
+	Thread[] running = new Thread[workers - 1];
+	for (int w=0; w<workers; w++) {
+	    final int from = (int) ((long) n * w / workers);
+	    final int to = (int) ((long) n * (w + 1) / workers);
+	    Runnable job = new Runnable() {
+		    public void run() {
+			try {
+			    for (int v=from; v<to; v++)
+				computeForce(v, x, y, start, adjacent, dx, dy);
+			} catch (Throwable e) {
+			    synchronized (failure) {
+				failure[0] = e;
+			    }
+			}
+		    }
+		};
+	    if (w == workers - 1) job.run();
+	    else {
+		running[w] = new Thread(job);
+		running[w].start();
+	    }
+	}
+	// Wait for the other threads, since their forces are needed.
+	boolean interrupted = false;
+	for (int w=0; w<running.length; w++) {
+	    while (running[w].isAlive()) {
+		try {
+		    running[w].join();
+		} catch (InterruptedException e) {
+		    interrupted = true;
+		}
+	    }
+	}
+	if (interrupted) Thread.currentThread().interrupt();
+	synchronized (failure) {
+	    if (failure[0] instanceof RuntimeException)
+		throw (RuntimeException) failure[0];
+	    if (failure[0] != null) throw (Error) failure[0];
+	}
+    }
+
+    /**
+     * Finds the force on one vertex: the repulsion of every other
+     * vertex, and the attraction of its neighbors.
+     * @param v the vertex
+     * @param x the x coordinate of each vertex
+     * @param y the y coordinate of each vertex
+     * @param start where the neighbors of each vertex start in
+     * <CODE>adjacent</CODE>, with one more entry for the end
+     * @param adjacent the neighbors of all the vertices
+     * @param dx the array to put the x part of the force in
+     * @param dy the array to put the y part of the force in
+     */
+    private static void computeForce(int v, double[] x, double[] y,
+				     int[] start, int[] adjacent,
+				     double[] dx, double[] dy) {
+	double K2 = OPTIMAL_EDGE_LENGTH * OPTIMAL_EDGE_LENGTH;
+	double fx = 0.0, fy = 0.0;
+	for (int u=0; u<x.length; u++) {
+	    if (u == v) continue;
+	    double ex = x[v]-x[u], ey = y[v]-y[u];
+	    double D2 = ex*ex + ey*ey;
+	    if (D2 == 0.0) {
+		// Push vertices in the same spot apart, in opposite
+		// directions that differ from pair to pair.
+		double angle = Math.min(u, v) * 31.0 + Math.max(u, v);
+		double sign = v < u ? -SEPARATION : SEPARATION;
+		ex = sign * Math.cos(angle);
+		ey = sign * Math.sin(angle);
+		D2 = SEPARATION*SEPARATION;
+	    }
+	    // Repulsion k^2/d along the unit vector e/d.
+	    fx += ex * K2 / D2;
+	    fy += ey * K2 / D2;
+	}
+	for (int k=start[v]; k<start[v+1]; k++) {
+	    int u = adjacent[k];
+	    double ex = x[v]-x[u], ey = y[v]-y[u];
+	    double D = Math.sqrt(ex*ex + ey*ey);
+	    // Attraction d^2/k along the unit vector e/d.
+	    fx -= ex * D / OPTIMAL_EDGE_LENGTH;
+	    fy -= ey * D / OPTIMAL_EDGE_LENGTH;
+	}
+	dx[v] = fx;
+	dy[v] = fy;
+    }
+
+    /** The number of iterations to run. */
+    private int iterations;
+    /** The most threads to use. */
+    private int threads;
+
+    /** The default number of iterations. */
+    public static final int DEFAULT_ITERATIONS = 100;
+    /** The fewest vertices worth giving a thread of their own. */
+    private static final int MIN_PER_THREAD = 256;
+
+    private static final double
+	OPTIMAL_EDGE_LENGTH = 100.0,
+	SEPARATION = 0.01;
+}
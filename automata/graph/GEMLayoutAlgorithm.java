@@ -28,150 +28,380 @@ package automata.graph;
 
 import java.util.*;
 import java.awt.geom.*;
-import java.awt.*;
-import javax.swing.*;
 
-/** 
+/**
  * Implements the GEM algorithm, by Arne Frick, Andreas Ludwig, and
  * Heiko Mehldau in their 1994 paper.  At present the rotation
  * detection is not built in, as forcing speedier convergence is
  * totally unnecessary for our limited applications.
- * 
+ *
+ * The graph is copied into arrays of coordinates and neighbor
+ * indices, and the positions are written back once at the end.  The
+ * repulsion of all the other vertices is approximated with a
+ * Barnes-Hut quadtree, built once per round from the positions at
+ * the start of the round, so that a round takes about O(n log n)
+ * rather than O(n^2) time.  The random choices come from a seeded
+ * generator, so the same graph is always laid out the same way, and
+ * the number of rounds and the time spent may both be limited.
+ *
  * @author Thomas Finley
  */
 
 public class GEMLayoutAlgorithm implements LayoutAlgorithm {
+    /**
+     * Instantiates a GEM layout algorithm with the default seed, the
+     * default number of rounds, and no time limit.
+     */
     public GEMLayoutAlgorithm() {
-	
+	this(DEFAULT_SEED, DEFAULT_ROUNDS, 0L);
+    }
+
+    /**
+     * Instantiates a GEM layout algorithm.
+     * @param seed the seed for the random choices
+     * @param rounds the most rounds to run, where each round moves
+     * every vertex that is not an isovertex once
+     * @param timeLimit the most milliseconds to spend on a layout, or
+     * 0 for no limit
+     */
+    public GEMLayoutAlgorithm(long seed, int rounds, long timeLimit) {
+	this.seed = seed;
+	this.rounds = rounds;
+	this.timeLimit = timeLimit;
     }
 
     public void layout(Graph graph, Set isovertices) {
 	if (isovertices == null) isovertices = EMPTY_SET;
 	Object[] vArray = graph.vertices();
-	int Rmax = 120 * (vArray.length - isovertices.size());
-	double Tglobal = Tmin+1.0;
+	int n = vArray.length;
+	Random random = new Random(seed);
+	long deadline = timeLimit > 0L ?
+	    System.currentTimeMillis() + timeLimit : Long.MAX_VALUE;
+
+	// Copy the graph into arrays.
+	HashMap index = new HashMap();
+	for (int i=0; i<n; i++)
+	    index.put(vArray[i], new Integer(i));
+	double[] x = new double[n], y = new double[n];
+	int[] degree = new int[n];
+	int[] start = new int[n+1];
+	ArrayList neighbors = new ArrayList();
+	int movable = 0;
+	for (int i=0; i<n; i++) {
+	    Point2D point = graph.pointForVertex(vArray[i]);
+	    x[i] = point.getX();
+	    y[i] = point.getY();
+	    degree[i] = graph.degree(vArray[i]);
+	    if (!isovertices.contains(vArray[i])) movable++;
+	    start[i] = neighbors.size();
+	    Iterator it = graph.adjacent(vArray[i]).iterator();
+	    while (it.hasNext()) {
+		Integer j = (Integer) index.get(it.next());
+		if (j != null && j.intValue() != i) neighbors.add(j);
+	    }
+	}
+	start[n] = neighbors.size();
+	int[] adjacent = new int[neighbors.size()];
+	for (int i=0; i<adjacent.length; i++)
+	    adjacent[i] = ((Integer) neighbors.get(i)).intValue();
+	if (movable == 0) return;
 
 	// Determine an optimal edge length.  With isovertices, we
 	// want optimal length to be about average of existing edges
 	// that will remain unchanged due to isovertex status.
 	double optimalEdgeLength = OPTIMAL_EDGE_LENGTH;
 	if (isovertices.size() > 0) {
-	    Object[] iso = isovertices.toArray();
 	    int count = 0;
 	    double lengths = 0.0;
-	    for (int i=0; i<iso.length; i++)
-		for (int j=i+1; j<iso.length; j++) {
-		    if (!graph.hasEdge(iso[i], iso[j])) continue;
-		    lengths += graph.pointForVertex
-			(iso[i]).distance(graph.pointForVertex(iso[j]));
+	    for (int i=0; i<n; i++) {
+		if (!isovertices.contains(vArray[i])) continue;
+		for (int k=start[i]; k<start[i+1]; k++) {
+		    int j = adjacent[k];
+		    if (j < i || !isovertices.contains(vArray[j])) continue;
+		    lengths += Point2D.distance(x[i], y[i], x[j], y[j]);
 		    count++;
 		}
+	    }
 	    if (count > 0)
 		optimalEdgeLength = lengths / (double) count;
 	}
+	double O2 = optimalEdgeLength*optimalEdgeLength;
+
+	// The barycenter of the graph, as the sum of the positions.
+	double cx = 0.0, cy = 0.0;
+	int[] order = new int[movable];
+	for (int i=0, m=0; i<n; i++) {
+	    cx += x[i];
+	    cy += y[i];
+	    if (!isovertices.contains(vArray[i])) order[m++] = i;
+	}
 
-	// The barycenter of the graph.
-	double[] c = new double[] {0.0, 0.0};
-
-	// Initialize the record for each vertex.
-	records = new HashMap();
-	for (int i=0; i<vArray.length; i++) {
-	    Record r = new Record();
-	    r.point = graph.pointForVertex(vArray[i]);
-	    // The barycenter will be updated.
-	    c[0] += r.point.getX();
-	    c[1] += r.point.getY();
-	    records.put(vArray[i], r);
+	// Iterate until done, moving each vertex once per round.
+	QuadTree tree = new QuadTree();
+	double[] force = new double[2];
+	for (int round=0; round<rounds; round++) {
+	    if (System.currentTimeMillis() >= deadline) break;
+	    tree.build(x, y, n);
+	    // Choose the vertices in a random order.
+	    for (int i=movable-1; i>0; i--) {
+		int j = random.nextInt(i+1), swap = order[i];
+		order[i] = order[j];
+		order[j] = swap;
+	    }
+	    for (int i=0; i<movable; i++) {
+		int v = order[i];
+		// Compute the impulse of V.
+		double Theta = degree[v];
+		Theta *= 1.0 + Theta/2.0;
+		// Attraction to BC.
+		double px = (cx/n - x[v])*GRAVITATIONAL_CONSTANT*Theta;
+		double py = (cy/n - y[v])*GRAVITATIONAL_CONSTANT*Theta;
+		// Random disturbance.
+		px += random.nextDouble() * 10.0 - 5.0;
+		py += random.nextDouble() * 10.0 - 5.0;
+		// Forces exerted by other nodes.
+		tree.repel(v, x[v], y[v], O2, force);
+		px += force[0];
+		py += force[1];
+		for (int k=start[v]; k<start[v+1]; k++) {
+		    int j = adjacent[k];
+		    double dx = x[v]-x[j], dy = y[v]-y[j];
+		    double D2 = dx*dx + dy*dy;
+		    px -= dx * D2 / (O2 * Theta);
+		    py -= dy * D2 / (O2 * Theta);
+		}
+
+		// Adjust the position.
+		if (px != 0.0 || py != 0.0) {
+		    double absp = Math.sqrt(px*px + py*py);
+		    px *= TEMPERATURE / absp;
+		    py *= TEMPERATURE / absp;
+		    x[v] += px;
+		    y[v] += py;
+		    // update the barycenter
+		    cx += px;
+		    cy += py;
+		}
+	    }
+	}
+
+	// Write the new positions back.
+	for (int i=0; i<movable; i++) {
+	    int v = order[i];
+	    graph.moveVertex(vArray[v], new Point2D.Double(x[v], y[v]));
 	}
+    }
 
-	// Iterate until done.
-	ArrayList vertices = new ArrayList();
-	for (int i=0; i<Rmax && Tglobal > Tmin; i++) {
-	    if (vertices.isEmpty()) {
-		vertices = new ArrayList();
-		for (int j=0; j<vArray.length; j++)
-		    if (!isovertices.contains(vArray[j]))
-			vertices.add(vArray[j]);
-		if (vertices.size() == 0) return;
+    /**
+     * A quadtree over the positions of the vertices, stored in arrays.
+     * Each cell knows how many vertices are in it and the sum of
+     * their positions, so a far away cell can stand in for all its
+     * vertices at their center of mass.
+     */
+    private static class QuadTree {
+	/**
+	 * Builds the tree for a set of positions.
+	 * @param x the x coordinate of each vertex
+	 * @param y the y coordinate of each vertex
+	 * @param n the number of vertices
+	 */
+	void build(double[] x, double[] y, int n) {
+	    double minX = x[0], minY = y[0], maxX = minX, maxY = minY;
+	    for (int i=1; i<n; i++) {
+		minX = Math.min(minX, x[i]);
+		minY = Math.min(minY, y[i]);
+		maxX = Math.max(maxX, x[i]);
+		maxY = Math.max(maxY, y[i]);
 	    }
+	    cells = 0;
+	    newCell(minX, minY, Math.max(1.0, Math.max(maxX-minX, maxY-minY)));
+	    for (int i=0; i<n; i++)
+		insert(i, x, y);
+	}
 
-	    // Choose a vertex V to update.
-	    int index = RANDOM.nextInt(vertices.size());
-	    Object vertex = vertices.remove(index);
-	    Record record = (Record) records.get(vertex);
-	    Point2D point = graph.pointForVertex(vertex);
-
-	    // Compute the impulse of V.
-	    double Theta = graph.degree(vertex);
-	    Theta *= 1.0 + Theta/2.0;
-	    double[] p = new double[] 
-		{(c[0]/graph.numberOfVertices() - point.getX())*
-		 GRAVITATIONAL_CONSTANT*Theta,
-		 (c[1]/graph.numberOfVertices() - point.getY())*
-		 GRAVITATIONAL_CONSTANT*Theta}; // Attraction to BC.
-	    // Random disturbance.
-	    p[0] += RANDOM.nextDouble() * 10.0 - 5.0;
-	    p[1] += RANDOM.nextDouble() * 10.0 - 5.0;
-	    // Forces exerted by other nodes.
-	    for (int j=0; j<vArray.length; j++) {
-		if (vArray[j] == vertex) continue;
-		Point2D otherPoint = graph.pointForVertex(vArray[j]);
-		double[] delta = new double[] 
-		    {point.getX()-otherPoint.getX(),
-		     point.getY()-otherPoint.getY()};
-		double D2 = delta[0]*delta[0] + delta[1]*delta[1];
-		double O2 = optimalEdgeLength*optimalEdgeLength;
-		if (delta[0] != 0.0 || delta[1] != 0.0) {
-		    for (int k=0; k<2; k++)
-			p[k] += delta[k] * O2 / D2;
+	/**
+	 * Puts a vertex in the tree, splitting the leaf it lands in if
+	 * that leaf already has a vertex.
+	 * @param v the vertex
+	 * @param x the x coordinate of each vertex
+	 * @param y the y coordinate of each vertex
+	 */
+	private void insert(int v, double[] x, double[] y) {
+	    int cell = 0;
+	    for (int depth=0; ; depth++) {
+		sumX[cell] += x[v];
+		sumY[cell] += y[v];
+		count[cell]++;
+		if (firstChild[cell] < 0) {
+		    if (count[cell] == 1) {
+			vertex[cell] = v;
+			return;
+		    }
+		    if (depth >= MAX_DEPTH) {
+			// Too many vertices in one spot to tell apart.
+			vertex[cell] = -1;
+			return;
+		    }
+		    // Move the vertex already here down a level.
+		    int old = vertex[cell];
+		    vertex[cell] = -1;
+		    split(cell);
+		    int child = getChild(cell, x[old], y[old]);
+		    sumX[child] = x[old];
+		    sumY[child] = y[old];
+		    count[child] = 1;
+		    vertex[child] = old;
 		}
-		if (!graph.hasEdge(vertex, vArray[j])) continue;
-		for (int k=0; k<2; k++)
-		    p[k] -= delta[k] * D2 / (O2 * Theta);
+		cell = getChild(cell, x[v], y[v]);
 	    }
+	}
+
+	/**
+	 * Returns the child of a cell a position falls in.
+	 * @param cell the cell, which has children
+	 * @param x the x coordinate of the position
+	 * @param y the y coordinate of the position
+	 * @return the child
+	 */
+	private int getChild(int cell, double x, double y) {
+	    double half = size[cell] / 2.0;
+	    int quadrant = 0;
+	    if (x >= minX[cell] + half) quadrant += 1;
+	    if (y >= minY[cell] + half) quadrant += 2;
+	    return firstChild[cell] + quadrant;
+	}
+
+	/**
+	 * Gives a leaf four empty children.
+	 * @param cell the leaf
+	 */
+	private void split(int cell) {
+	    double half = size[cell] / 2.0;
+	    firstChild[cell] = cells;
+	    for (int q=0; q<4; q++)
+		newCell(minX[cell] + (q & 1)*half, minY[cell] + (q >> 1)*half,
+			half);
+	}
+
+	/**
+	 * Adds an empty leaf, growing the arrays if need be.
+	 * @param x the least x coordinate of the cell
+	 * @param y the least y coordinate of the cell
+	 * @param s the width and height of the cell
+	 */
+	private void newCell(double x, double y, double s) {
+	    if (cells == count.length) {
+		int length = cells * 2;
+		minX = grow(minX, length);
+		minY = grow(minY, length);
+		size = grow(size, length);
+		sumX = grow(sumX, length);
+		sumY = grow(sumY, length);
+		count = grow(count, length);
+		firstChild = grow(firstChild, length);
+		vertex = grow(vertex, length);
+	    }
+	    minX[cells] = x;
+	    minY[cells] = y;
+	    size[cells] = s;
+	    sumX[cells] = sumY[cells] = 0.0;
+	    count[cells] = 0;
+	    firstChild[cells] = -1;
+	    vertex[cells] = -1;
+	    cells++;
+	}
 
-	    // Adjust the position and temperature.
-	    if (p[0] != 0.0 || p[1] != 0.0) {
-		double absp = Math.sqrt(Math.abs(p[0]*p[0] + p[1]*p[1]));
-		for (int j=0; j<2; j++)
-		    p[j] *= record.temperature / absp;
-		// update the position!
-		graph.moveVertex
-		    (vertex, new Point2D.Double(point.getX()+p[0], 
-						point.getY()+p[1]));
-		// update the barycenter
-		c[0] += p[0]; c[1] += p[1];
+	/**
+	 * Finds the repulsion of the vertices in the tree on a vertex.
+	 * Cells that are small compared to their distance are treated
+	 * as all their vertices at their center of mass.
+	 * @param v the vertex, which does not repel itself
+	 * @param x the x coordinate of the vertex
+	 * @param y the y coordinate of the vertex
+	 * @param O2 the square of the optimal edge length
+	 * @param force the array to put the x and y parts of the force in
+	 */
+	void repel(int v, double x, double y, double O2, double[] force) {
+	    double fx = 0.0, fy = 0.0;
+	    int top = 0;
+	    stack[top++] = 0;
+	    while (top > 0) {
+		int cell = stack[--top];
+		if (count[cell] == 0 || vertex[cell] == v) continue;
+		double dx = x - sumX[cell]/count[cell];
+		double dy = y - sumY[cell]/count[cell];
+		double D2 = dx*dx + dy*dy;
+		if (firstChild[cell] < 0 ||
+		    size[cell]*size[cell] < THETA*THETA*D2) {
+		    if (D2 == 0.0) continue;
+		    fx += count[cell] * dx * O2 / D2;
+		    fy += count[cell] * dy * O2 / D2;
+		    continue;
+		}
+		if (top + 4 > stack.length) {
+		    int[] bigger = new int[stack.length * 2];
+		    System.arraycopy(stack, 0, bigger, 0, top);
+		    stack = bigger;
+		}
+		for (int q=0; q<4; q++)
+		    stack[top++] = firstChild[cell] + q;
 	    }
-	    // Adjust the temperature.
-	    /*if (record.lastImpulse[0] != 0.0 || record.lastImpulse[1] != 0.0) {
-		double beta = Math.atan2(p[0]-record.lastImpulse[0],
-					 p[1]-record.lastImpulse[1]);
-		if (Math.sin(beta) >= Math.sin(Math.PI/2.0 + alphaR
-		}*/
-	    
-	    // Paint the component...
-	    /*if ((i+1) % (vArray.length - isovertices.size()) == 0)
-	      component.paintImmediately(component.getBounds());*/
+	    force[0] = fx;
+	    force[1] = fy;
 	}
-	
+
+	private static double[] grow(double[] array, int length) {
+	    double[] bigger = new double[length];
+	    System.arraycopy(array, 0, bigger, 0, array.length);
+	    return bigger;
+	}
+
+	private static int[] grow(int[] array, int length) {
+	    int[] bigger = new int[length];
+	    System.arraycopy(array, 0, bigger, 0, array.length);
+	    return bigger;
+	}
+
+	/** The number of cells in use. */
+	private int cells = 0;
+	/** The corner and width of each cell. */
+	private double[] minX = new double[64], minY = new double[64],
+	    size = new double[64];
+	/** The sum of the positions of the vertices in each cell. */
+	private double[] sumX = new double[64], sumY = new double[64];
+	/** The number of vertices in each cell. */
+	private int[] count = new int[64];
+	/** The first of the four children of each cell, or -1 for a
+	 * leaf. */
+	private int[] firstChild = new int[64];
+	/** The lone vertex of each leaf, or -1. */
+	private int[] vertex = new int[64];
+	/** The stack of cells to look at when finding a force. */
+	private int[] stack = new int[64];
+
+	/** The deepest a cell may be. */
+	private static final int MAX_DEPTH = 32;
+	/** How small a cell must be compared to its distance to be
+	 * treated as one mass. */
+	private static final double THETA = 0.7;
     }
 
-    private static final Random RANDOM = new Random();
-    private Map records;
+    /** The seed for the random choices. */
+    private long seed;
+    /** The most rounds to run. */
+    private int rounds;
+    /** The most milliseconds to spend, or 0 for no limit. */
+    private long timeLimit;
 
     private static final Set EMPTY_SET = new HashSet();
 
-    private static class Record {
-	Point2D point = new Point2D.Double();
-	double[] lastImpulse = {0.0,0.0};
-	double temperature = Tmin;
-	double skew = 0.0;
-    }
+    /** The default seed for the random choices. */
+    public static final long DEFAULT_SEED = 1994L;
+    /** The default number of rounds. */
+    public static final int DEFAULT_ROUNDS = 120;
 
-    private static final double Tmax = 256.0, Tmin = 3.0;
+    private static final double TEMPERATURE = 3.0;
     private static final double
 	OPTIMAL_EDGE_LENGTH = 100.0,
 	GRAVITATIONAL_CONSTANT = 1.0/16.0;
-    /*private static final double
-      alphaO */
 }
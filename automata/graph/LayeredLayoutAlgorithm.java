@@ -0,0 +1,301 @@
+/* -- JFLAP 4.0 --
+ *
+ * Copyright information:
+ *
+ * Susan H. Rodger, Thomas Finley
+ * Computer Science Department
+ * Duke University
+ * April 24, 2003
+ * Supported by National Science Foundation DUE-9752583.
+ *
+ * Copyright (c) 2003
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that the above copyright notice and this paragraph are
+ * duplicated in all such forms and that any documentation,
+ * advertising materials, and other materials related to such
+ * distribution and use acknowledge that the software was developed
+ * by the author.  The name of the author may not be used to
+ * endorse or promote products derived from this software without
+ * specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+ 
+package automata.graph;
+
+import automata.State;
+import java.util.*;
+import java.awt.geom.*;
+
+/**
+ * Lays out a graph in layers, in the manner of Sugiyama, Tagawa and
+ * Toda.  The vertices are put in layers by a breadth first search
+ * from the initial state of the automaton of an {@link AutomatonGraph},
+ * or from the first vertex otherwise, and other connected components
+ * are searched in turn.  As every edge then joins vertices in the same
+ * or neighboring layers, no dummy vertices are needed.  The order of
+ * the vertices within each layer is improved by sweeps that sort each
+ * layer by the barycenter of each vertex's neighbors in the layer
+ * before, and the vertices are then given positions near those same
+ * barycenters.  Layers run left to right, each in a column.
+ *
+ * The layout depends only on the graph, not on the positions the
+ * vertices had before, and takes about O(n log n + e) time, so it is
+ * suited to placing the states of large generated automata.  The
+ * isovertices are not moved, though they are still given a place in
+ * the layers.
+ *
+ * @author Thomas Finley
+ */
+
+public class LayeredLayoutAlgorithm implements LayoutAlgorithm {
+    /**
+     * Instantiates a layered layout algorithm.
+     */
+    public LayeredLayoutAlgorithm() {
+
+    }
+
+    public void layout(Graph graph, Set isovertices) {
+	if (isovertices == null) isovertices = Collections.EMPTY_SET;
+	Object[] vArray = graph.vertices();
+	int n = vArray.length;
+	if (n == 0) return;
+	// Keep the order of states by their IDs, so the layout is the
+	// same every time.
+	if (graph instanceof AutomatonGraph)
+	    Arrays.sort(vArray, STATE_ORDER);
+
+	// Copy the graph into arrays, neighbors in vertex order.
+	HashMap index = new HashMap();
+	for (int i=0; i<n; i++)
+	    index.put(vArray[i], new Integer(i));
+	int[] start = new int[n+1];
+	int[] adjacent = getAdjacency(graph, vArray, index, start);
+
+	// Put the vertices in layers by breadth first search.
+	int root = 0;
+	if (graph instanceof AutomatonGraph) {
+	    Object initial =
+		((AutomatonGraph) graph).getAutomaton().getInitialState();
+	    if (index.containsKey(initial))
+		root = ((Integer) index.get(initial)).intValue();
+	}
+	int[] layer = new int[n], queue = new int[n];
+	Arrays.fill(layer, -1);
+	int tail = 0, layers = 0;
+	for (int i=-1; i<n; i++) {
+	    int source = i < 0 ? root : i;
+	    if (layer[source] >= 0) continue;
+	    layer[source] = 0;
+	    queue[tail++] = source;
+	    for (int head=tail-1; head<tail; head++) {
+		int v = queue[head];
+		layers = Math.max(layers, layer[v]+1);
+		for (int k=start[v]; k<start[v+1]; k++) {
+		    int u = adjacent[k];
+		    if (layer[u] >= 0) continue;
+		    layer[u] = layer[v]+1;
+		    queue[tail++] = u;
+		}
+	    }
+	}
+
+	// Bucket the vertices by layer, in the order they were found.
+	int[] layerStart = new int[layers+1];
+	for (int v=0; v<n; v++)
+	    layerStart[layer[v]+1]++;
+	for (int l=0; l<layers; l++)
+	    layerStart[l+1] += layerStart[l];
+	int[] order = new int[n], fill = (int[]) layerStart.clone();
+	for (int i=0; i<n; i++)
+	    order[fill[layer[queue[i]]]++] = queue[i];
+	int[] position = new int[n];
+	for (int i=0; i<n; i++)
+	    position[order[i]] = i - layerStart[layer[order[i]]];
+
+	// Reduce crossings by sorting layers by barycenters, sweeping
+	// down and back up.
+	double[] key = new double[n];
+	for (int sweep=0; sweep<SWEEPS; sweep++) {
+	    boolean down = sweep % 2 == 0;
+	    for (int s=1; s<layers; s++) {
+		int l = down ? s : layers-1-s;
+		int other = down ? l-1 : l+1;
+		for (int i=layerStart[l]; i<layerStart[l+1]; i++) {
+		    int v = order[i];
+		    key[v] = barycenter(v, other, layer, position, start,
+					adjacent, position[v]);
+		}
+		sortLayer(order, layerStart[l], layerStart[l+1], key,
+			  position);
+	    }
+	}
+
+	// Place the layers in columns, with each vertex near the
+	// barycenter of its neighbors in the column before.
+	double[] y = new double[n];
+	int widest = 0;
+	for (int l=0; l<layers; l++)
+	    widest = Math.max(widest, layerStart[l+1]-layerStart[l]);
+	for (int l=0; l<layers; l++) {
+	    int size = layerStart[l+1]-layerStart[l];
+	    double[] desired = new double[size];
+	    for (int i=0; i<size; i++) {
+		int v = order[layerStart[l]+i];
+		desired[i] = (widest-size) * VERTEX_SPACING / 2.0 +
+		    i * VERTEX_SPACING;
+		if (l == 0) continue;
+		double sum = 0.0;
+		int count = 0;
+		for (int k=start[v]; k<start[v+1]; k++) {
+		    if (layer[adjacent[k]] != l-1) continue;
+		    sum += y[adjacent[k]];
+		    count++;
+		}
+		if (count > 0) desired[i] = sum / count;
+	    }
+	    double[] placed = place(desired);
+	    for (int i=0; i<size; i++)
+		y[order[layerStart[l]+i]] = placed[i];
+	}
+
+	// Move everything, with the topmost vertex at the margin.
+	double top = Double.MAX_VALUE;
+	for (int v=0; v<n; v++)
+	    top = Math.min(top, y[v]);
+	for (int v=0; v<n; v++) {
+	    if (isovertices.contains(vArray[v])) continue;
+	    graph.moveVertex(vArray[v], new Point2D.Double
+			     (MARGIN + layer[v] * LAYER_SPACING,
+			      MARGIN + y[v] - top));
+	}
+    }
+
+    /**
+     * Copies the neighbors of each vertex into one array, in the
+     * order of the vertices.
+     * @param graph the graph
+     * @param vArray the vertices
+     * @param index the map of vertices to their indices
+     * @param start the array to put where the neighbors of each
+     * vertex start in, with one more entry for the end
+     * @return the neighbors of all the vertices
+     */
+    private static int[] getAdjacency(Graph graph, Object[] vArray,
+				      Map index, int[] start) {
+	int n = vArray.length;
+	int[][] lists = new int[n][];
+	for (int i=0; i<n; i++) {
+	    Set set = graph.adjacent(vArray[i]);
+	    int[] list = new int[set.size()];
+	    int count = 0;
+	    Iterator it = set.iterator();
+	    while (it.hasNext()) {
+		Integer j = (Integer) index.get(it.next());
+		if (j != null && j.intValue() != i)
+		    list[count++] = j.intValue();
+	    }
+	    Arrays.sort(list, 0, count);
+	    lists[i] = list;
+	    start[i+1] = start[i] + count;
+	}
+	int[] adjacent = new int[start[n]];
+	for (int i=0; i<n; i++)
+	    System.arraycopy(lists[i], 0, adjacent, start[i],
+			     start[i+1]-start[i]);
+	return adjacent;
+    }
+
+    /**
+     * Returns the average position of the neighbors of a vertex in
+     * another layer.
+     * @param v the vertex
+     * @param other the other layer
+     * @param layer the layer of each vertex
+     * @param position the position of each vertex in its layer
+     * @param start where the neighbors of each vertex start
+     * @param adjacent the neighbors of all the vertices
+     * @param otherwise the value if there are no such neighbors
+     * @return the average position of the neighbors
+     */
+    private static double barycenter(int v, int other, int[] layer,
+				     int[] position, int[] start,
+				     int[] adjacent, double otherwise) {
+	double sum = 0.0;
+	int count = 0;
+	for (int k=start[v]; k<start[v+1]; k++) {
+	    if (layer[adjacent[k]] != other) continue;
+	    sum += position[adjacent[k]];
+	    count++;
+	}
+	return count == 0 ? otherwise : sum / count;
+    }
+
+    /**
+     * Sorts a layer by key, keeping the current order of ties, and
+     * renumbers the positions of its vertices.
+     * @param order the vertices of all layers, layer by layer
+     * @param from the index of the first vertex of the layer
+     * @param to one past the index of the last vertex of the layer
+     * @param key the key of each vertex
+     * @param position the position of each vertex in its layer
+     */
+    private static void sortLayer(int[] order, int from, int to,
+				  final double[] key, int[] position) {
+	Integer[] sorted = new Integer[to-from];
+	for (int i=from; i<to; i++)
+	    sorted[i-from] = new Integer(order[i]);
+	// A merge sort, so ties stay in order.
+	Arrays.sort(sorted, new Comparator() {
+		public int compare(Object o1, Object o2) {
+		    double k1 = key[((Integer) o1).intValue()];
+		    double k2 = key[((Integer) o2).intValue()];
+		    return k1 < k2 ? -1 : (k1 > k2 ? 1 : 0);
+		}
+	    });
+	for (int i=from; i<to; i++) {
+	    order[i] = sorted[i-from].intValue();
+	    position[order[i]] = i-from;
+	}
+    }
+
+    /**
+     * Places vertices of a layer as near their desired positions as
+     * possible, keeping their order and spacing them apart.  This is
+     * the average of packing them greedily from each end.
+     * @param desired the desired position of each vertex, in order
+     * @return the position of each vertex
+     */
+    private static double[] place(double[] desired) {
+	int size = desired.length;
+	double[] fromTop = new double[size], fromBottom = new double[size];
+	for (int i=0; i<size; i++)
+	    fromTop[i] = i == 0 ? desired[i] :
+		Math.max(desired[i], fromTop[i-1] + VERTEX_SPACING);
+	for (int i=size-1; i>=0; i--)
+	    fromBottom[i] = i == size-1 ? desired[i] :
+		Math.min(desired[i], fromBottom[i+1] - VERTEX_SPACING);
+	double[] placed = new double[size];
+	for (int i=0; i<size; i++)
+	    placed[i] = (fromTop[i] + fromBottom[i]) / 2.0;
+	return placed;
+    }
+
+    /** Orders states by their IDs. */
+    private static final Comparator STATE_ORDER = new Comparator() {
+	    public int compare(Object o1, Object o2) {
+		return ((State) o1).getID() - ((State) o2).getID();
+	    }
+	};
+
+    /** The number of crossing reduction sweeps, each down or up. */
+    private static final int SWEEPS = 8;
+    private static final double
+	LAYER_SPACING = 100.0,
+	VERTEX_SPACING = 80.0,
+	MARGIN = 50.0;
+}
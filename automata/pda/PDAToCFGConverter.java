@@ -180,10 +180,17 @@ public class PDAToCFGConverter {
     }
 
     /**
-     * Returns a unique variable.
+     * Returns a unique variable.  Variables of grammars are the 26
+     * capital letters, and <CODE>S</CODE> is kept for the start
+     * symbol.
      * @return a unique variable.
+     * @throws UnsupportedOperationException if the 26 variables
+     * <CODE>A</CODE> to <CODE>Z</CODE> are all in use
      */
     private String getUniqueVariable() {
+	if ('A' + UNIQUE_ID > 'Z')
+	    throw new UnsupportedOperationException
+		("26 variables available, but more needed!");
 	char[] ch = new char[1];
 	ch[0] = (char) ('A' + UNIQUE_ID);
 	UNIQUE_ID++;
@@ -241,19 +248,10 @@ public class PDAToCFGConverter {
 		String variable1 = LEFT_PAREN.concat(toState.concat(toPushOne.concat(lstate.concat(RIGHT_PAREN))));
 		String variable2 = LEFT_PAREN.concat(lstate.concat(toPushTwo.concat(state.concat(RIGHT_PAREN))));
 		
-		/** Map to unique variables. */
-		if(MAP.get(lhs) == null) {
-		    if(isStartSymbol(lhs, automaton)) MAP.put(lhs, START_SYMBOL);
-		    else MAP.put(lhs, getUniqueVariable());
-		}
-		if(MAP.get(variable1) == null) {
-		    if(isStartSymbol(variable1, automaton)) MAP.put(variable1, START_SYMBOL);
-		    else MAP.put(variable1, getUniqueVariable());
-		}
-		if(MAP.get(variable2) == null) {
-		    if(isStartSymbol(variable2, automaton)) MAP.put(variable2, START_SYMBOL);
-		    else MAP.put(variable2, getUniqueVariable());
-		}
+		/** Record the variables. */
+		addVariable(lhs, automaton);
+		addVariable(variable1, automaton);
+		addVariable(variable2, automaton);
 		
 		String rhs = toRead.concat(variable1.concat(variable2));
 		
@@ -283,10 +281,7 @@ public class PDAToCFGConverter {
 	String toRead = trans.getInputToRead();
 	
 	String lhs = LEFT_PAREN.concat(fromState.concat(toPop.concat(toState.concat(RIGHT_PAREN))));
-	if(MAP.get(lhs) == null) {
-	    if(isStartSymbol(lhs, automaton)) MAP.put(lhs, START_SYMBOL);
-	    else MAP.put(lhs, getUniqueVariable());
-	}
+	addVariable(lhs, automaton);
 	String rhs = toRead;
 	
 	Production production = new Production(lhs, rhs);
@@ -294,6 +289,39 @@ public class PDAToCFGConverter {
 	return list;
     }
 
+    /**
+     * Records <CODE>variable</CODE> (e.g. "(q1Aq3)") as a variable of
+     * the conversion if it is not one already.  The start symbol is
+     * mapped to <CODE>S</CODE> right away; other variables are given
+     * a single letter only once {@link #getSimplifiedProduction} needs
+     * one.
+     * @param variable the variable
+     * @param automaton the automaton
+     */
+    private void addVariable(String variable, Automaton automaton) {
+	if(MAP.get(variable) != null) return;
+	if(isStartSymbol(variable, automaton)) MAP.put(variable, START_SYMBOL);
+	else MAP.put(variable, variable);
+    }
+
+    /**
+     * Returns the single letter variable that replaces
+     * <CODE>variable</CODE>, assigning a unique variable if it does
+     * not have one yet.
+     * @param variable the variable (e.g. "(q1Aq3)")
+     * @return the single letter variable
+     * @throws UnsupportedOperationException if the 26 variables
+     * <CODE>A</CODE> to <CODE>Z</CODE> are all in use
+     */
+    private String getSimplifiedVariable(String variable) {
+	String simplified = (String) MAP.get(variable);
+	if(simplified == null || simplified.length() != 1) {
+	    simplified = getUniqueVariable();
+	    MAP.put(variable, simplified);
+	}
+	return simplified;
+    }
+
     /**
      * Returns a list of productions that represent the same functionality
      * as <CODE>transition</CODE> in <CODE>automaton</CODE>.
@@ -318,14 +346,16 @@ public class PDAToCFGConverter {
 
     /**
      * Returns an equivalent production to <CODE>production</CODE>
-     * but with each variable (e.g. "q1Aq3") replaced by a unique
+     * but with each variable (e.g. "(q1Aq3)") replaced by a unique
      * variable (e.g. "B");
      * @param production the production
      * @return an equivalent production to <CODE>production</CODE>
      * with a single variable replacing groups of characters.
+     * @throws UnsupportedOperationException if more than the 26
+     * variables <CODE>A</CODE> to <CODE>Z</CODE> are needed
      */
     public Production getSimplifiedProduction(Production production) {
-	String lhs = (String) MAP.get(production.getLHS());
+	String lhs = getSimplifiedVariable(production.getLHS());
 	String rhs = production.getRHS();
 	int leftIndex, rightIndex; // Position of left and right parentheses.
 	StringBuffer newRhs = new StringBuffer();
@@ -333,7 +363,7 @@ public class PDAToCFGConverter {
 	       (rightIndex = rhs.indexOf(')')) != -1) {
 	    newRhs.append(rhs.substring(0, leftIndex));
 	    String variable = rhs.substring(leftIndex, rightIndex+1);
-	    newRhs.append(MAP.get(variable));
+	    newRhs.append(getSimplifiedVariable(variable));
 	    rhs = rhs.substring(rightIndex+1);
 	}
 	newRhs.append(rhs);
@@ -355,6 +385,8 @@ public class PDAToCFGConverter {
      * equivalent to <CODE>automaton</CODE>.
      * @param automaton the automaton.
      * @return a cfg equivalent to <CODE>automaton</CODE>.
+     * @throws UnsupportedOperationException if the grammar needs more
+     * than the 26 variables <CODE>A</CODE> to <CODE>Z</CODE>
      */
     public ContextFreeGrammar convertToContextFreeGrammar(Automaton automaton)
     {
@@ -386,6 +418,272 @@ public class PDAToCFGConverter {
 	
 	return grammar;
     }
+
+    /**
+     * Returns a ContextFreeGrammar object equivalent to
+     * <CODE>automaton</CODE> that contains only useful productions.
+     * The productions are those of {@link #getReducedProductions},
+     * with each variable replaced by a single letter.
+     * @param automaton the automaton.
+     * @return a cfg equivalent to <CODE>automaton</CODE>, with no
+     * useless productions
+     * @throws UnsupportedOperationException if the grammar needs more
+     * than the 26 variables <CODE>A</CODE> to <CODE>Z</CODE>
+     */
+    public ContextFreeGrammar convertToReducedContextFreeGrammar
+	(Automaton automaton)
+    {
+	ArrayList list = getReducedProductions(automaton);
+	ContextFreeGrammar grammar = new ContextFreeGrammar();
+	Iterator it = list.iterator();
+	while(it.hasNext()) {
+	    Production p = (Production) it.next();
+	    grammar.addProduction(getSimplifiedProduction(p));
+	}
+	return grammar;
+    }
+
+    /**
+     * Returns the useful productions of a grammar equivalent to
+     * <CODE>automaton</CODE>.  Where {@link #convertToContextFreeGrammar}
+     * creates productions for every triple of states and stack symbol,
+     * most of which can never derive a string of terminals, this first
+     * finds the triples (p X q) for which the automaton can go from p
+     * to q while popping X, and then creates only the productions of
+     * those triples that can be reached from the start symbol.
+     * Triples are kept as integers during the conversion, and are only
+     * named once they are known to be useful.  Like the productions of
+     * {@link #createProductionsForTransition}, the variables are the
+     * triples (e.g. "(q0Zq1)"), so there is no limit on their number;
+     * {@link #getSimplifiedProduction} gives them single letters.
+     * @param automaton the automaton.
+     * @return the list of useful productions, which is empty if the
+     * automaton accepts no strings
+     */
+    public ArrayList getReducedProductions(Automaton automaton) {
+	/** check if automaton is pda. */
+	if (!(automaton instanceof PushdownAutomaton))
+	    throw new IllegalArgumentException
+		("automaton must be PushdownAutomaton");
+
+	if (!isInCorrectFormForConversion(automaton))
+	    throw new IllegalArgumentException
+		("automaton not in correct form for conversion to CFG");
+
+	initializeConverter();
+
+	// Number the states and the stack symbols.
+	State[] states = automaton.getStates();
+	HashMap stateIndex = new HashMap();
+	for(int k = 0; k < states.length; k++)
+	    stateIndex.put(states[k], new Integer(k));
+	HashMap symbolIndex = new HashMap();
+	symbolIndex.put(BOTTOM_OF_STACK, new Integer(0));
+	Transition[] transitions = automaton.getTransitions();
+	int[][] encoded = new int[transitions.length][];
+	for(int k = 0; k < transitions.length; k++) {
+	    PDATransition trans = (PDATransition) transitions[k];
+	    String toPush = trans.getStringToPush();
+	    encoded[k] = new int[] {
+		((Integer) stateIndex.get(trans.getFromState())).intValue(),
+		symbolIndex(trans.getStringToPop(), symbolIndex),
+		((Integer) stateIndex.get(trans.getToState())).intValue(),
+		toPush.length() == 0 ? -1 :
+		symbolIndex(toPush.substring(0,1), symbolIndex),
+		toPush.length() == 0 ? -1 :
+		symbolIndex(toPush.substring(1), symbolIndex) };
+	}
+	int n = states.length, m = symbolIndex.size();
+	String[] symbols = new String[m];
+	Iterator it = symbolIndex.entrySet().iterator();
+	while(it.hasNext()) {
+	    Map.Entry entry = (Map.Entry) it.next();
+	    symbols[((Integer) entry.getValue()).intValue()] =
+		(String) entry.getKey();
+	}
+
+	// Index the transitions by the stack symbols they pop and push.
+	List[] byFrom = new List[n*m], byFirst = new List[n*m],
+	    bySecond = new List[m];
+	for(int k = 0; k < encoded.length; k++) {
+	    int[] t = encoded[k];
+	    add(byFrom, t[0]*m + t[1], k);
+	    if(t[3] == -1) continue;
+	    add(byFirst, t[2]*m + t[3], k);
+	    add(bySecond, t[4], k);
+	}
+
+	// Find every triple (p X q) that derives a terminal string.
+	HashSet generating = new HashSet();
+	List[] ends = new List[n*m]; // The q of generating (p X q).
+	LinkedList worklist = new LinkedList();
+	for(int k = 0; k < encoded.length; k++) {
+	    int[] t = encoded[k];
+	    if(t[3] == -1) generate(t[0], t[1], t[2], n, m, generating,
+				    ends, worklist);
+	}
+	while(!worklist.isEmpty()) {
+	    long triple = ((Long) worklist.removeFirst()).longValue();
+	    int q = (int) (triple % n), x = (int) ((triple / n) % m),
+		p = (int) (triple / n / m);
+	    // The new triple may be the first half of a push two...
+	    List first = byFirst[p*m + x];
+	    for(int i = 0; first != null && i < first.size(); i++) {
+		int[] t = encoded[((Integer) first.get(i)).intValue()];
+		List second = ends[q*m + t[4]];
+		for(int j = 0; second != null && j < second.size(); j++) {
+		    int end = ((Integer) second.get(j)).intValue();
+		    generate(t[0], t[1], end, n, m, generating, ends,
+			     worklist);
+		}
+	    }
+	    // ...or the second half.
+	    List second = bySecond[x];
+	    for(int i = 0; second != null && i < second.size(); i++) {
+		int[] t = encoded[((Integer) second.get(i)).intValue()];
+		long half = triple(t[2], t[3], p, n, m);
+		if(generating.contains(new Long(half)))
+		    generate(t[0], t[1], q, n, m, generating, ends,
+			     worklist);
+	    }
+	}
+
+	// Create the productions of the triples reachable from the start.
+	ArrayList list = new ArrayList();
+	int initial = ((Integer) stateIndex.get
+		       (automaton.getInitialState())).intValue();
+	int accept = ((Integer) stateIndex.get
+		      (automaton.getFinalStates()[0])).intValue();
+	long start = triple(initial, 0, accept, n, m);
+	if(!generating.contains(new Long(start))) return list;
+	HashMap variables = new HashMap();
+	variable(start, states, symbols, n, m, variables, worklist);
+	while(!worklist.isEmpty()) {
+	    long triple = ((Long) worklist.removeFirst()).longValue();
+	    String lhs = (String) variables.get(new Long(triple));
+	    int q = (int) (triple % n), x = (int) ((triple / n) % m),
+		p = (int) (triple / n / m);
+	    List from = byFrom[p*m + x];
+	    for(int i = 0; from != null && i < from.size(); i++) {
+		int k = ((Integer) from.get(i)).intValue();
+		int[] t = encoded[k];
+		String toRead = ((PDATransition) transitions[k])
+		    .getInputToRead();
+		if(t[3] == -1) {
+		    if(t[2] == q)
+			list.add(new Production(lhs, toRead));
+		    continue;
+		}
+		List middle = ends[t[2]*m + t[3]];
+		for(int j = 0; middle != null && j < middle.size(); j++) {
+		    int s = ((Integer) middle.get(j)).intValue();
+		    long second = triple(s, t[4], q, n, m);
+		    if(!generating.contains(new Long(second))) continue;
+		    String variable1 = variable
+			(triple(t[2], t[3], s, n, m), states, symbols,
+			 n, m, variables, worklist);
+		    String variable2 = variable
+			(second, states, symbols, n, m, variables,
+			 worklist);
+		    list.add(new Production
+			(lhs, toRead.concat(variable1.concat(variable2))));
+		}
+	    }
+	}
+	return list;
+    }
+
+    /**
+     * Returns the index of a stack symbol, numbering it if it has
+     * not been seen before.
+     * @param symbol the stack symbol
+     * @param symbolIndex the map of stack symbols to indices
+     * @return the index of the stack symbol
+     */
+    private int symbolIndex(String symbol, HashMap symbolIndex) {
+	Integer index = (Integer) symbolIndex.get(symbol);
+	if(index == null) {
+	    index = new Integer(symbolIndex.size());
+	    symbolIndex.put(symbol, index);
+	}
+	return index.intValue();
+    }
+
+    /**
+     * Returns the integer encoding of the triple (p X q).
+     * @param p the index of the first state
+     * @param x the index of the stack symbol
+     * @param q the index of the second state
+     * @param n the number of states
+     * @param m the number of stack symbols
+     * @return the encoded triple
+     */
+    private static long triple(int p, int x, int q, int n, int m) {
+	return ((long) p * m + x) * n + q;
+    }
+
+    /**
+     * Adds an index to a list in an array of lists, creating the list
+     * if need be.
+     * @param lists the array of lists
+     * @param key the index of the list in the array
+     * @param value the index to add to the list
+     */
+    private static void add(List[] lists, int key, int value) {
+	if(lists[key] == null) lists[key] = new ArrayList();
+	lists[key].add(new Integer(value));
+    }
+
+    /**
+     * Records that the triple (p X q) derives a terminal string, and
+     * puts it on the worklist if this was not known before.
+     * @param p the index of the first state
+     * @param x the index of the stack symbol
+     * @param q the index of the second state
+     * @param n the number of states
+     * @param m the number of stack symbols
+     * @param generating the set of generating triples
+     * @param ends the lists of second states of generating triples,
+     * indexed by first state and stack symbol
+     * @param worklist the worklist of new generating triples
+     */
+    private static void generate(int p, int x, int q, int n, int m,
+				 Set generating, List[] ends,
+				 LinkedList worklist) {
+	Long triple = new Long(triple(p, x, q, n, m));
+	if(!generating.add(triple)) return;
+	add(ends, p*m + x, q);
+	worklist.add(triple);
+    }
+
+    /**
+     * Returns the variable (e.g. "(q0Zq1)") for a triple, naming the
+     * triple and putting it on the worklist if it is not named yet.
+     * @param triple the encoded triple
+     * @param states the states, indexed as in the triple
+     * @param symbols the stack symbols, indexed as in the triple
+     * @param n the number of states
+     * @param m the number of stack symbols
+     * @param variables the map of triples to variables
+     * @param worklist the worklist of triples to create productions for
+     * @return the variable for the triple
+     */
+    private String variable(long triple, State[] states, String[] symbols,
+			    int n, int m, HashMap variables,
+			    LinkedList worklist) {
+	Long key = new Long(triple);
+	String variable = (String) variables.get(key);
+	if(variable != null) return variable;
+	String p = states[(int) (triple / n / m)].getName();
+	String x = symbols[(int) ((triple / n) % m)];
+	String q = states[(int) (triple % n)].getName();
+	variable = LEFT_PAREN.concat(p.concat(x.concat(q.concat(RIGHT_PAREN))));
+	/** The first triple named is the start symbol. */
+	MAP.put(variable, variables.isEmpty() ? START_SYMBOL : variable);
+	variables.put(key, variable);
+	worklist.add(key);
+	return variable;
+    }
     
     protected static final String START_SYMBOL = "S";
     protected int UNIQUE_ID;
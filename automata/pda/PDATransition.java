@@ -88,7 +88,8 @@ public class PDATransition extends Transition {
     protected void setInputToRead(String inputToRead) {
 	/*if (!automata.StringChecker.isAlphanumeric(inputToRead))
 	  throw new IllegalArgumentException("Label must be alphanumeric!");*/
-	myInputToRead = inputToRead;
+	myInputToRead = inputToRead.intern();
+	rehash();
     }
     
     /**
@@ -108,7 +109,8 @@ public class PDATransition extends Transition {
 	/*if (!automata.StringChecker.isAlphanumeric(stringToPop))
 	    throw new IllegalArgumentException("Pop string must "+
 	    "be alphanumeric!");*/
-	myStringToPop = stringToPop;
+	myStringToPop = stringToPop.intern();
+	rehash();
     }
 
     /**
@@ -129,7 +131,8 @@ public class PDATransition extends Transition {
 	/*if (!automata.StringChecker.isAlphanumeric(stringToPush))
 	    throw new IllegalArgumentException("Push string must "+
 	    "be alphanumeric!");*/
-	myStringToPush = stringToPush;
+	myStringToPush = stringToPush.intern();
+	rehash();
     }
 
     /**
@@ -148,15 +151,32 @@ public class PDATransition extends Transition {
 	return input + " , " + toPop + " ; " + toPush;
     }
 
+    /**
+     * Returns the symbol for this transition.
+     * @return the symbol, in this case, the input to read
+     */
+    public String getSymbol() {
+	return myInputToRead;
+    }
+
+    /**
+     * Finds the hash code for this transition again, after part of
+     * its label is set.  The parts are interned strings, and the hash
+     * code is kept, since transitions are hashed far more often than
+     * they are made.
+     */
+    private void rehash() {
+	myHashCode = ((super.hashCode() * 31 + myInputToRead.hashCode())
+		      * 31 + myStringToPop.hashCode())
+	    * 31 + myStringToPush.hashCode();
+    }
+
     /**
      * Returns the hashcode for this transition.
      * @return the hashcode for this transition
      */
     public int hashCode() {
-	return super.hashCode() ^
-	    myInputToRead.hashCode() ^
-	    myStringToPop.hashCode() ^
-	    myStringToPush.hashCode();
+	return myHashCode;
     }
 
     /**
@@ -168,7 +188,7 @@ public class PDATransition extends Transition {
     public boolean equals(Object object) {
 	try {
 	    PDATransition t = (PDATransition) object;
-	    return super.equals(object) &&
+	    return myHashCode == t.myHashCode && super.equals(object) &&
 		myInputToRead.equals(t.myInputToRead) &&
 		myStringToPop.equals(t.myStringToPop) &&
 		myStringToPush.equals(t.myStringToPush);
@@ -191,9 +211,11 @@ public class PDATransition extends Transition {
     }
 
     /** The input to read portion of the transition label. */
-    protected String myInputToRead;
+    protected String myInputToRead = "";
     /** The string to pop off the stack. */
-    protected String myStringToPop;
+    protected String myStringToPop = "";
     /** The string to push on the stack. */
-    protected String myStringToPush;
+    protected String myStringToPush = "";
+    /** The hash code for this transition. */
+    private int myHashCode;
 }
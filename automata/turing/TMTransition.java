@@ -125,7 +125,8 @@ public class TMTransition extends Transition {
 	if (stringToRead.length() != 1)
 	    throw new IllegalArgumentException
 		("Read string must have exactly one character!");
-	toRead.set(tape, stringToRead);
+	toRead.set(tape, stringToRead.intern());
+	rehash();
     }
     
     /**
@@ -147,7 +148,8 @@ public class TMTransition extends Transition {
 	if (stringToWrite.length() != 1)
 	    throw new IllegalArgumentException
 		("Write string must have exactly one character!");
-	toWrite.set(tape, stringToWrite);
+	toWrite.set(tape, stringToWrite.intern());
+	rehash();
     }
 
     /**
@@ -170,7 +172,8 @@ public class TMTransition extends Transition {
 	      || newDirection.equals("S")))
 	    throw new IllegalArgumentException
 		("Direction must be L, R, or S!");
-	direction.set(tape, newDirection);
+	direction.set(tape, newDirection.intern());
+	rehash();
     }
 
     /**
@@ -213,14 +216,22 @@ public class TMTransition extends Transition {
 	return super.toString() + ": \""+this.getDescription()+"\"";
     }
 
+    /**
+     * Finds the hash code for this transition again, after a symbol
+     * or direction is set.  These are interned strings, and the hash
+     * code is kept rather than found from the lists each time.
+     */
+    private void rehash() {
+	myHashCode = ((super.hashCode() * 31 + toRead.hashCode())
+		      * 31 + toWrite.hashCode()) * 31 + direction.hashCode();
+    }
+
     /**
      * Returns the hashcode for this transition.
      * @return the hashcode for this transition
      */
     public int hashCode() {
-	int code = super.hashCode() ^ toRead.hashCode() ^
-	    toWrite.hashCode() ^ direction.hashCode();
-	return code;
+	return myHashCode;
     }
 
     /**
@@ -232,7 +243,7 @@ public class TMTransition extends Transition {
     public boolean equals(Object object) {
 	try {
 	    TMTransition t = (TMTransition) object;
-	    return super.equals(object) &&
+	    return myHashCode == t.myHashCode && super.equals(object) &&
 		toRead.equals(t.toRead) &&
 		toWrite.equals(t.toWrite) &&
 		direction.equals(t.direction);
@@ -247,6 +258,8 @@ public class TMTransition extends Transition {
     private List toWrite;
     /** The direction fields. */
     private List direction;
+    /** The hash code for this transition. */
+    private int myHashCode;
 
     /** The blank symbol. */
     public static final String BLANK = ""+Tape.BLANK;
@@ -0,0 +1,570 @@
+/* -- JFLAP 4.0 --
+ *
+ * Copyright information:
+ *
+ * Susan H. Rodger, Thomas Finley
+ * Computer Science Department
+ * Duke University
+ * April 24, 2003
+ * Supported by National Science Foundation DUE-9752583.
+ *
+ * Copyright (c) 2003
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that the above copyright notice and this paragraph are
+ * duplicated in all such forms and that any documentation,
+ * advertising materials, and other materials related to such
+ * distribution and use acknowledge that the software was developed
+ * by the author.  The name of the author may not be used to
+ * endorse or promote products derived from this software without
+ * specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+ 
+package file;
+
+import automata.*;
+import automata.fsa.*;
+import automata.pda.*;
+import automata.turing.*;
+import java.awt.Point;
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * This is the codec for reading and writing automata in a compact
+ * binary format.  Where serialization writes out every state and
+ * transition object with all its fields, this writes the automaton
+ * as numbers: states are numbered by the order of their IDs, each
+ * distinct string on a transition is written once in a table of
+ * labels, and the transitions are grouped by the state they come
+ * from, each transition being just the number of its to state and
+ * the numbers of its labels.  All numbers are written as variable
+ * length integers, so small automata take a few bytes per
+ * transition.  The automaton read is put together with an {@link
+ * AutomatonBuilder}, so reading is linear in its size.  The positions
+ * of the states are written last and may be left out.  Files are read
+ * through a memory mapped buffer, so the file is decoded where it
+ * lies without being copied first.
+ *
+ * <P>The format is a header of the four bytes <TT>JFBA</TT>, a
+ * version byte, a byte for the type of automaton, and a byte of
+ * flags, followed by the number of tapes for a Turing machine.  Then
+ * come the numbers of states and transitions, the table of labels,
+ * the initial state, the final states, the states with a special
+ * name or label, the number of transitions from each state, the
+ * transitions themselves, and the optional layout.  If a finite
+ * automaton has transitions on symbol classes, a flag is set and each
+ * transition is followed by the number of ranges in its class, zero
+ * if it has none, and the first character and length less one of
+ * each range.  Files of version 1 have no symbol classes and are
+ * still read.
+ *
+ * @author Thomas Finley
+ */
+
+public class BinaryCodec extends Codec {
+    /**
+     * Given a file, this will return the automaton stored in that
+     * file.
+     * @param file the file to decode into a structure
+     * @param parameters this decoder ignores all parameters
+     * @return the automaton stored in the file
+     * @throws ParseException if there was a problem reading the file
+     */
+    public Serializable decode(File file, Map parameters) {
+	try {
+	    FileInputStream stream = new FileInputStream(file);
+	    try {
+		FileChannel channel = stream.getChannel();
+		ByteBuffer buffer = channel.map
+		    (FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		return read(buffer);
+	    } finally {
+		stream.close();
+	    }
+	} catch (IOException e) {
+	    throw new ParseException("Could not open file to read!");
+	} catch (BufferUnderflowException e) {
+	    throw new ParseException("The file ends too soon!");
+	}
+    }
+
+    /**
+     * Reads an automaton from a buffer holding the binary format.
+     * @param buffer the buffer to read from
+     * @return the automaton in the buffer
+     * @throws ParseException if the buffer does not hold an automaton
+     * in this format
+     */
+    private Automaton read(ByteBuffer buffer) {
+	// Read the header.
+	if (buffer.remaining() < 7 || buffer.getInt() != MAGIC)
+	    throw new ParseException("This is not a JFLAP binary file!");
+	int version = buffer.get();
+	if (version < 1 || version > VERSION)
+	    throw new ParseException("The binary file version "+version+
+				     " is not supported!");
+	int type = buffer.get(), flags = buffer.get();
+	Automaton automaton;
+	int fields;
+	switch (type) {
+	case FINITE_AUTOMATON_TYPE:
+	    automaton = new FiniteStateAutomaton();
+	    fields = 1;
+	    break;
+	case PUSHDOWN_AUTOMATON_TYPE:
+	    automaton = new PushdownAutomaton();
+	    fields = 3;
+	    break;
+	case TURING_MACHINE_TYPE:
+	    int tapes = readCount(buffer, 5);
+	    automaton = new TuringMachine(tapes);
+	    fields = 3 * tapes;
+	    break;
+	default:
+	    throw new ParseException("Unknown automaton type "+type+"!");
+	}
+	int stateCount = readCount(buffer, 1);
+	int transitionCount = readCount(buffer, 1);
+	// Read the table of labels.
+	String[] labels = new String[readCount(buffer, 1)];
+	for (int i=0; i<labels.length; i++) {
+	    int length = readCount(buffer, 1);
+	    ByteBuffer slice = buffer.slice();
+	    slice.limit(length);
+	    labels[i] = UTF8.decode(slice).toString();
+	    buffer.position(buffer.position() + length);
+	}
+	// Create the states.
+	AutomatonBuilder builder = new AutomatonBuilder(automaton);
+	State[] states = new State[stateCount];
+	StatePlacer placer = new StatePlacer();
+	for (int i=0; i<stateCount; i++)
+	    states[i] = builder.createState
+		((flags & LAYOUT_FLAG) != 0 ? new Point() :
+		 placer.getPointForState(automaton));
+	int initial = readIndex(buffer, stateCount + 1);
+	if (initial != 0) builder.setInitialState(states[initial - 1]);
+	int finalCount = readCount(buffer, 1), last = 0;
+	for (int i=0; i<finalCount; i++) {
+	    last += readIndex(buffer, stateCount - last);
+	    builder.addFinalState(states[last]);
+	}
+	int named = readCount(buffer, 1);
+	for (int i=0; i<named; i++) {
+	    State state = states[readIndex(buffer, stateCount)];
+	    int name = readIndex(buffer, labels.length + 1);
+	    int label = readIndex(buffer, labels.length + 1);
+	    if (name != 0) state.setName(labels[name - 1]);
+	    if (label != 0) state.setLabel(labels[label - 1]);
+	}
+	// Read the transitions.
+	int[] degrees = new int[stateCount];
+	for (int i=0; i<stateCount; i++)
+	    degrees[i] = readIndex(buffer, transitionCount + 1);
+	String[] strings = new String[fields];
+	boolean classes = (flags & CLASS_FLAG) != 0;
+	if (classes && type != FINITE_AUTOMATON_TYPE)
+	    throw new ParseException("Only finite automata may have "+
+				     "symbol classes!");
+	for (int i=0; i<stateCount; i++) {
+	    for (int j=0; j<degrees[i]; j++) {
+		State to = states[readIndex(buffer, stateCount)];
+		for (int k=0; k<fields; k++)
+		    strings[k] = labels[readIndex(buffer, labels.length)];
+		SymbolClass symbolClass = classes ? readClass(buffer) : null;
+		builder.addTransition
+		    (symbolClass == null ?
+		     createTransition(type, states[i], to, strings) :
+		     new FSATransition(states[i], to, symbolClass));
+	    }
+	}
+	builder.build();
+	// Read the layout.
+	if ((flags & LAYOUT_FLAG) != 0)
+	    for (int i=0; i<stateCount; i++)
+		states[i].setPoint(new Point(unzigzag(readVarint(buffer)),
+					     unzigzag(readVarint(buffer))));
+	return automaton;
+    }
+
+    /**
+     * Reads the ranges of the symbol class of a transition.
+     * @param buffer the buffer to read from
+     * @return the symbol class, or <CODE>null</CODE> if the transition
+     * has none
+     * @throws ParseException if a range goes past the last character
+     */
+    private static SymbolClass readClass(ByteBuffer buffer) {
+	int ranges = readCount(buffer, 2);
+	if (ranges == 0) return null;
+	char[] lows = new char[ranges], highs = new char[ranges];
+	for (int i=0; i<ranges; i++) {
+	    int low = readIndex(buffer, Character.MAX_VALUE + 1);
+	    lows[i] = (char) low;
+	    highs[i] = (char) (low + readIndex
+			       (buffer, Character.MAX_VALUE + 1 - low));
+	}
+	return new SymbolClass(lows, highs);
+    }
+
+    /**
+     * Returns the ranges of the symbol class of a transition, as they
+     * are written.
+     * @param transition the transition
+     * @return the number of ranges, then the first character and
+     * length less one of each range
+     */
+    private static int[] getRanges(Transition transition) {
+	SymbolClass symbolClass = ((FSATransition) transition)
+	    .getSymbolClass();
+	if (symbolClass == null) return new int[] {0};
+	int[] ranges = new int[2 * symbolClass.getRangeCount() + 1];
+	ranges[0] = symbolClass.getRangeCount();
+	for (int i=0; i<ranges[0]; i++) {
+	    ranges[2*i+1] = symbolClass.getLow(i);
+	    ranges[2*i+2] = symbolClass.getHigh(i) - symbolClass.getLow(i);
+	}
+	return ranges;
+    }
+
+    /**
+     * Creates a transition of the right type from its strings.
+     * @param type the type of automaton
+     * @param from the from state
+     * @param to the to state
+     * @param strings the strings of the transition, in the order they
+     * are written in
+     * @return the new transition
+     */
+    private static Transition createTransition(int type, State from,
+					       State to, String[] strings) {
+	switch (type) {
+	case FINITE_AUTOMATON_TYPE:
+	    return new FSATransition(from, to, strings[0]);
+	case PUSHDOWN_AUTOMATON_TYPE:
+	    return new PDATransition(from, to, strings[0], strings[1],
+				     strings[2]);
+	default:
+	    int tapes = strings.length / 3;
+	    String[] read = new String[tapes], write = new String[tapes],
+		direction = new String[tapes];
+	    for (int i=0; i<tapes; i++) {
+		read[i] = strings[3*i];
+		write[i] = strings[3*i+1];
+		direction[i] = strings[3*i+2];
+	    }
+	    return new TMTransition(from, to, read, write, direction);
+	}
+    }
+
+    /**
+     * Returns the strings of a transition, in the order they are
+     * written in.
+     * @param transition the transition
+     * @return the strings of the transition
+     */
+    private static String[] getStrings(Transition transition) {
+	if (transition instanceof FSATransition)
+	    return new String[] {((FSATransition) transition).getLabel()};
+	if (transition instanceof PDATransition) {
+	    PDATransition t = (PDATransition) transition;
+	    return new String[] {t.getInputToRead(), t.getStringToPop(),
+				 t.getStringToPush()};
+	}
+	TMTransition t = (TMTransition) transition;
+	String[] strings = new String[3 * t.tapes()];
+	for (int i=0; i<t.tapes(); i++) {
+	    strings[3*i] = t.getRead(i);
+	    strings[3*i+1] = t.getWrite(i);
+	    strings[3*i+2] = t.getDirection(i);
+	}
+	return strings;
+    }
+
+    /**
+     * Given a structure, this will attempt to write the automaton to
+     * a file in the binary format.
+     * @param structure the automaton to encode
+     * @param file the file to write to
+     * @param parameters if this maps {@link #LAYOUT_PARAMETER} to
+     * <CODE>Boolean.FALSE</CODE> the positions of the states are not
+     * written; other parameters are ignored
+     * @return the file to which the structure was written
+     * @throws EncodeException if there was a problem writing the file
+     */
+    public File encode(Serializable structure, File file, Map parameters) {
+	Automaton automaton = (Automaton) structure;
+	boolean layout = parameters == null ||
+	    !Boolean.FALSE.equals(parameters.get(LAYOUT_PARAMETER));
+	boolean classes = automaton instanceof FiniteStateAutomaton &&
+	    AlphabetPartition.hasSymbolClasses(automaton);
+	State[] states = automaton.getStates();
+	HashMap index = new HashMap();
+	for (int i=0; i<states.length; i++)
+	    index.put(states[i], new Integer(i));
+	// Intern the strings of the transitions and the states.
+	HashMap labelIndex = new HashMap();
+	List labels = new ArrayList();
+	Transition[][] from = new Transition[states.length][];
+	int[][][] transitions = new int[states.length][][];
+	for (int i=0; i<states.length; i++) {
+	    from[i] = automaton.getTransitionsFromState(states[i]);
+	    transitions[i] = new int[from[i].length][];
+	    for (int j=0; j<from[i].length; j++) {
+		String[] strings = getStrings(from[i][j]);
+		int[] ranges = classes ? getRanges(from[i][j]) : new int[0];
+		int[] t = new int[strings.length + 1 + ranges.length];
+		t[0] = ((Integer) index.get(from[i][j].getToState()))
+		    .intValue();
+		for (int k=0; k<strings.length; k++)
+		    t[k+1] = intern(strings[k], labelIndex, labels);
+		System.arraycopy(ranges, 0, t, strings.length + 1,
+				 ranges.length);
+		transitions[i][j] = t;
+	    }
+	}
+	List named = new ArrayList();
+	for (int i=0; i<states.length; i++) {
+	    String name = states[i].getName(), label = states[i].getLabel();
+	    boolean special = !name.equals("q"+states[i].getID());
+	    if (!special && label == null) continue;
+	    named.add(new int[] {
+		i, special ? intern(name, labelIndex, labels) + 1 : 0,
+		label != null ? intern(label, labelIndex, labels) + 1 : 0 });
+	}
+
+	try {
+	    DataOutputStream stream = new DataOutputStream
+		(new BufferedOutputStream(new FileOutputStream(file)));
+	    // Write the header.
+	    stream.writeInt(MAGIC);
+	    stream.writeByte(VERSION);
+	    stream.writeByte(getType(automaton));
+	    stream.writeByte((layout ? LAYOUT_FLAG : 0) |
+			     (classes ? CLASS_FLAG : 0));
+	    if (automaton instanceof TuringMachine)
+		writeVarint(stream, ((TuringMachine) automaton).tapes());
+	    writeVarint(stream, states.length);
+	    writeVarint(stream, automaton.getTransitions().length);
+	    // Write the table of labels.
+	    writeVarint(stream, labels.size());
+	    for (int i=0; i<labels.size(); i++) {
+		byte[] bytes = ((String) labels.get(i)).getBytes("UTF-8");
+		writeVarint(stream, bytes.length);
+		stream.write(bytes);
+	    }
+	    // Write the initial, final, and specially named states.
+	    Integer initial = (Integer) index.get(automaton.getInitialState());
+	    writeVarint(stream, initial == null ? 0 : initial.intValue() + 1);
+	    int[] finals = new int[automaton.getFinalStates().length];
+	    for (int i=0; i<finals.length; i++)
+		finals[i] = ((Integer) index.get
+			     (automaton.getFinalStates()[i])).intValue();
+	    Arrays.sort(finals);
+	    writeVarint(stream, finals.length);
+	    for (int i=0, last=0; i<finals.length; last=finals[i++])
+		writeVarint(stream, finals[i] - last);
+	    writeVarint(stream, named.size());
+	    for (int i=0; i<named.size(); i++) {
+		int[] n = (int[]) named.get(i);
+		for (int j=0; j<n.length; j++) writeVarint(stream, n[j]);
+	    }
+	    // Write the transitions.
+	    for (int i=0; i<states.length; i++)
+		writeVarint(stream, transitions[i].length);
+	    for (int i=0; i<states.length; i++)
+		for (int j=0; j<transitions[i].length; j++)
+		    for (int k=0; k<transitions[i][j].length; k++)
+			writeVarint(stream, transitions[i][j][k]);
+	    // Write the layout.
+	    if (layout) {
+		for (int i=0; i<states.length; i++) {
+		    Point point = states[i].getPoint();
+		    writeVarint(stream, zigzag(point.x));
+		    writeVarint(stream, zigzag(point.y));
+		}
+	    }
+	    stream.close();
+	    return file;
+	} catch (IOException e) {
+	    throw new EncodeException("Could not open file to write!");
+	}
+    }
+
+    /**
+     * Returns the index of a string in the table of labels, adding it
+     * to the table if it is not there yet.
+     * @param string the string
+     * @param labelIndex the map of strings to their indices
+     * @param labels the table of labels
+     * @return the index of the string
+     */
+    private static int intern(String string, Map labelIndex, List labels) {
+	Integer i = (Integer) labelIndex.get(string);
+	if (i == null) {
+	    i = new Integer(labels.size());
+	    labelIndex.put(string, i);
+	    labels.add(string);
+	}
+	return i.intValue();
+    }
+
+    /**
+     * Returns the code for the type of an automaton.
+     * @param automaton the automaton
+     * @return the code for the type of the automaton
+     */
+    private static int getType(Automaton automaton) {
+	if (automaton instanceof FiniteStateAutomaton)
+	    return FINITE_AUTOMATON_TYPE;
+	if (automaton instanceof PushdownAutomaton)
+	    return PUSHDOWN_AUTOMATON_TYPE;
+	return TURING_MACHINE_TYPE;
+    }
+
+    /**
+     * Writes a nonnegative integer as a variable length integer, seven
+     * bits to a byte, low bits first, with the high bit of each byte
+     * but the last set.
+     * @param stream the stream to write to
+     * @param value the integer to write
+     * @throws IOException if there was a problem writing
+     */
+    private static void writeVarint(DataOutputStream stream, int value)
+	throws IOException {
+	while ((value & ~0x7F) != 0) {
+	    stream.writeByte((value & 0x7F) | 0x80);
+	    value >>>= 7;
+	}
+	stream.writeByte(value);
+    }
+
+    /**
+     * Reads a variable length integer.
+     * @param buffer the buffer to read from
+     * @return the integer read
+     * @throws ParseException if the integer is too long
+     */
+    private static int readVarint(ByteBuffer buffer) {
+	int value = 0;
+	for (int shift=0; shift<32; shift+=7) {
+	    byte b = buffer.get();
+	    value |= (b & 0x7F) << shift;
+	    if (b >= 0) return value;
+	}
+	throw new ParseException("A number in the file is too long!");
+    }
+
+    /**
+     * Reads a variable length integer that must be an index less than
+     * a bound.
+     * @param buffer the buffer to read from
+     * @param bound the bound on the index
+     * @return the index read
+     * @throws ParseException if the index is out of range
+     */
+    private static int readIndex(ByteBuffer buffer, int bound) {
+	int value = readVarint(buffer);
+	if (value < 0 || value >= bound)
+	    throw new ParseException("The index "+value+" is out of range!");
+	return value;
+    }
+
+    /**
+     * Reads a variable length integer that must be a count of things,
+     * each of which takes at least some number of bytes in the rest of
+     * the buffer.  This keeps a damaged file from making the reader
+     * allocate huge arrays.
+     * @param buffer the buffer to read from
+     * @param size the least number of bytes each thing counted takes
+     * @return the count read
+     * @throws ParseException if the count is too large
+     */
+    private static int readCount(ByteBuffer buffer, int size) {
+	int value = readVarint(buffer);
+	if (value < 0 || value > buffer.remaining() / size)
+	    throw new ParseException("The count "+value+" is too large!");
+	return value;
+    }
+
+    /**
+     * Maps a signed integer to a nonnegative one, so that integers of
+     * small magnitude have short variable length encodings.
+     * @param value the signed integer
+     * @return the encoded integer
+     */
+    private static int zigzag(int value) {
+	return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Undoes {@link #zigzag}.
+     * @param value the encoded integer
+     * @return the signed integer
+     */
+    private static int unzigzag(int value) {
+	return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Returns if this type of structure can be encoded with this
+     * encoder.  Finite state automata, pushdown automata, and Turing
+     * machines can be.
+     * @param structure the structure to check
+     * @return if the structure is an automaton of a supported type
+     */
+    public boolean canEncode(Serializable structure) {
+	return structure instanceof FiniteStateAutomaton ||
+	    structure instanceof PushdownAutomaton ||
+	    structure instanceof TuringMachine;
+    }
+
+    /**
+     * Given a proposed filename, returns a new suggested filename
+     * that ends with the {@link #SUFFIX}.
+     * @param filename the proposed name
+     * @param structure the structure that will be saved
+     * @return the new suggestion for a name
+     */
+    public String proposeFilename(String filename, Serializable structure) {
+	if (filename.endsWith(SUFFIX)) return filename;
+	return filename + SUFFIX;
+    }
+
+    /**
+     * Returns the description of this codec.
+     * @return the description of this codec
+     */
+    public String getDescription() {
+	return "JFLAP Binary File";
+    }
+
+    /** The suffix for binary files. */
+    public static final String SUFFIX = ".jfb";
+    /** The parameter for whether to write the positions of states. */
+    public static final String LAYOUT_PARAMETER = "layout";
+
+    /** The first four bytes of every binary file, "JFBA". */
+    private static final int MAGIC = 0x4A464241;
+    /** The version of the format written. */
+    private static final int VERSION = 2;
+    /** The flag for files with the positions of the states. */
+    private static final int LAYOUT_FLAG = 1;
+    /** The flag for files with transitions on symbol classes. */
+    private static final int CLASS_FLAG = 2;
+    /** The codes for the types of automata. */
+    private static final int FINITE_AUTOMATON_TYPE = 0,
+	PUSHDOWN_AUTOMATON_TYPE = 1,
+	TURING_MACHINE_TYPE = 2;
+    /** The character set of the labels. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+}
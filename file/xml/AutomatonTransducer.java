@@ -29,14 +29,26 @@ package file.xml;
 import automata.Automaton;
 import automata.State;
 import automata.Transition;
+import automata.fsa.FSATransition;
+import automata.fsa.SymbolClass;
 import automata.graph.*;
 import file.ParseException;
 import file.DataException;
+import java.io.*;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
 import org.w3c.dom.*;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * This is an abstract implementation of a transducer that has methods
@@ -48,8 +60,11 @@ import org.w3c.dom.*;
 public abstract class AutomatonTransducer extends AbstractTransducer {
     /**
      * Returns an empty automaton of the correct type.  This method is
-     * used by {@link #fromDOM}.
-     * @param document the DOM document that is being read
+     * used by {@link #fromDOM} and {@link #fromStream}.
+     * @param document the DOM document that is being read; when the
+     * automaton is read from a stream, this is a scratch document with
+     * the root element and the elements before the first state or
+     * transition
      * @return an empty automaton
      */
     protected abstract Automaton createEmptyAutomaton(Document document);
@@ -107,57 +122,77 @@ public abstract class AutomatonTransducer extends AbstractTransducer {
 	while (it.hasNext()) {
 	    Object id = it.next();
 	    Element stateNode = (Element) i2sn.get(id);
-	    // Get the fields of this state.
-	    Map e2t = elementsToText(stateNode);
-	    // Create the state.
-	    java.awt.Point p = new java.awt.Point();
-	    boolean hasLocation = true;
-	    // Try to get the X coord.
-	    double x=0, y=0;
-	    try {
-		x=Double.parseDouble(e2t.get(STATE_X_COORD_NAME).toString());
-	    } catch (NullPointerException e) {
-		hasLocation = false;
-	    } catch (NumberFormatException e) {
-		throw new DataException
-		    ("The x coordinate "+e2t.get(STATE_X_COORD_NAME)+
-		     " could not be read for state "+id+".");
-	    }
-	    // Try to get the Y coord.
-	    try {
-		y=Double.parseDouble(e2t.get(STATE_Y_COORD_NAME).toString());
-	    } catch (NullPointerException e) {
-		hasLocation = false;
-	    } catch (NumberFormatException e) {
-		throw new DataException
-		    ("The y coordinate "+e2t.get(STATE_Y_COORD_NAME)+
-		     " could not be read for state "+id+".");
-	    }
-	    p.setLocation(x,y);
-	    // Create the state.
-	    State state = automaton.createState(p);
-	    if (hasLocation && locatedStates != null)
-		locatedStates.add(state);
+	    // Get the fields of this state, and create the state.
+	    State state = readState(automaton, id, elementsToText(stateNode),
+				    locatedStates);
 	    i2s.put(id, state);
-	    // Add various attributes.
-	    if (e2t.containsKey(STATE_NAME_NAME))
-		state.setName((String)e2t.get(STATE_NAME_NAME));
-	    if (e2t.containsKey(STATE_LABEL_NAME))
-		state.setLabel((String)e2t.get(STATE_LABEL_NAME));
-	    if (e2t.containsKey(STATE_FINAL_NAME))
-		automaton.addFinalState(state);
-	    if (e2t.containsKey(STATE_INITIAL_NAME))
-		automaton.setInitialState(state);
 	}
 	return i2s;
     }
 
+    /**
+     * Creates a state in the automaton from the fields of its state
+     * element.  This is used by both {@link #readStates} and {@link
+     * #fromStream}.
+     * @param automaton the automaton to add the state to
+     * @param id the identifier of the state
+     * @param e2t the map of the state element's children element
+     * names to their text, as from {@link #elementsToText}
+     * @param locatedStates if not <CODE>null</CODE>, the set to add
+     * the state to if it has its X and Y coordinates specified
+     * @return the new state
+     * @throws DataException in the case of non-numeric coordinates
+     */
+    private State readState(Automaton automaton, Object id, Map e2t,
+			    Set locatedStates) {
+	java.awt.Point p = new java.awt.Point();
+	boolean hasLocation = true;
+	// Try to get the X coord.
+	double x=0, y=0;
+	try {
+	    x=Double.parseDouble(e2t.get(STATE_X_COORD_NAME).toString());
+	} catch (NullPointerException e) {
+	    hasLocation = false;
+	} catch (NumberFormatException e) {
+	    throw new DataException
+		("The x coordinate "+e2t.get(STATE_X_COORD_NAME)+
+		 " could not be read for state "+id+".");
+	}
+	// Try to get the Y coord.
+	try {
+	    y=Double.parseDouble(e2t.get(STATE_Y_COORD_NAME).toString());
+	} catch (NullPointerException e) {
+	    hasLocation = false;
+	} catch (NumberFormatException e) {
+	    throw new DataException
+		("The y coordinate "+e2t.get(STATE_Y_COORD_NAME)+
+		 " could not be read for state "+id+".");
+	}
+	p.setLocation(x,y);
+	// Create the state.
+	State state = automaton.createState(p);
+	if (hasLocation && locatedStates != null)
+	    locatedStates.add(state);
+	// Add various attributes.
+	if (e2t.containsKey(STATE_NAME_NAME))
+	    state.setName((String)e2t.get(STATE_NAME_NAME));
+	if (e2t.containsKey(STATE_LABEL_NAME))
+	    state.setLabel((String)e2t.get(STATE_LABEL_NAME));
+	if (e2t.containsKey(STATE_FINAL_NAME))
+	    automaton.addFinalState(state);
+	if (e2t.containsKey(STATE_INITIAL_NAME))
+	    automaton.setInitialState(state);
+	return state;
+    }
+
     /**
      * Used by the {@link #readTransitions} method.  This should be
      * overridden by subclasses.
      * @param from the from state
      * @param to the to state
-     * @param node the DOM node corresponding to the transition
+     * @param node the DOM node corresponding to the transition; when
+     * the transition is read from a stream, this is an element of a
+     * scratch document rebuilt with the same attributes and children
      * @param e2t elements to text from {@link #elementsToText}
      * @return the new transition
      * @see #readTransitions
@@ -184,30 +219,97 @@ public abstract class AutomatonTransducer extends AbstractTransducer {
 	// Create the transitions.
 	for (int i=0; i<tNodes.getLength(); i++) {
 	    Node tNode = tNodes.item(i);
-	    // Get the subelements of this transition.
-	    Map e2t = elementsToText(tNode);
-	    // Get the from state.
-	    String fromName = (String) e2t.get(TRANSITION_FROM_NAME);
-	    if (fromName == null)
-		throw new DataException("A transition has no from state!");
-	    Object id = parseID(fromName);
-	    State from = (State) id2state.get(id);
-	    if (from == null)
-		throw new DataException("A transition is defined from "+
-				   "non-existent state "+id+"!");
-	    // Get the to state.
-	    String toName = (String) e2t.get(TRANSITION_TO_NAME);
-	    if (toName == null)
-		throw new DataException("A transition has no to state!");
-	    id = parseID(toName);
-	    State to = (State) id2state.get(id);
-	    if (to == null)
-		throw new DataException("A transition is defined to "+
-					"non-existent state "+id+"!");
-	    // Now, make the transition.
-	    Transition transition = createTransition(from, to, tNode, e2t);
-	    automaton.addTransition(transition);
+	    // Get the subelements of this transition, and create it.
+	    readTransition(automaton, id2state, tNode, elementsToText(tNode));
+	}
+    }
+
+    /**
+     * Creates a transition in the automaton from the fields of its
+     * transition element.  This is used by both {@link
+     * #readTransitions} and {@link #fromStream}.
+     * @param automaton the automaton to add the transition to
+     * @param id2state the map of ID objects to a state
+     * @param node the DOM node corresponding to the transition
+     * @param e2t the map of the transition element's children element
+     * names to their text, as from {@link #elementsToText}
+     * @throws DataException in the case of absent from/to states
+     */
+    private void readTransition(Automaton automaton, Map id2state,
+				Node node, Map e2t) {
+	// Get the from state.
+	String fromName = (String) e2t.get(TRANSITION_FROM_NAME);
+	if (fromName == null)
+	    throw new DataException("A transition has no from state!");
+	Object id = parseID(fromName);
+	State from = (State) id2state.get(id);
+	if (from == null)
+	    throw new DataException("A transition is defined from "+
+				    "non-existent state "+id+"!");
+	// Get the to state.
+	String toName = (String) e2t.get(TRANSITION_TO_NAME);
+	if (toName == null)
+	    throw new DataException("A transition has no to state!");
+	id = parseID(toName);
+	State to = (State) id2state.get(id);
+	if (to == null)
+	    throw new DataException("A transition is defined to "+
+				    "non-existent state "+id+"!");
+	// Now, make the transition.
+	Transition transition = createTransition(from, to, node, e2t);
+	String ranges = (String) e2t.get(TRANSITION_CLASS_NAME);
+	if (ranges != null) {
+	    if (!(transition instanceof FSATransition))
+		throw new DataException("Only finite automaton transitions "+
+					"may be on a symbol class!");
+	    transition = new FSATransition(from, to, parseClass(ranges));
 	}
+	automaton.addTransition(transition);
+    }
+
+    /**
+     * Reads a symbol class from the ranges written by {@link
+     * #formatClass}.
+     * @param ranges the ranges of the class
+     * @return the symbol class
+     * @throws DataException if the ranges are not in that format
+     */
+    private static SymbolClass parseClass(String ranges) {
+	String[] parts = ranges.trim().split("\\s+");
+	char[] lows = new char[parts.length], highs = new char[parts.length];
+	try {
+	    for (int i=0; i<parts.length; i++) {
+		int dash = parts[i].indexOf('-');
+		int low = Integer.parseInt(parts[i].substring(0, dash));
+		int high = Integer.parseInt(parts[i].substring(dash+1));
+		if (low < Character.MIN_VALUE || high > Character.MAX_VALUE)
+		    throw new NumberFormatException();
+		lows[i] = (char) low;
+		highs[i] = (char) high;
+	    }
+	    return new SymbolClass(lows, highs);
+	} catch (RuntimeException e) {
+	    // Bad numbers, a missing dash, or a backwards range.
+	    throw new DataException("The symbol class "+ranges+
+				    " is not a list of ranges!");
+	}
+    }
+
+    /**
+     * Returns the ranges of a symbol class as text, each range being
+     * the codes of its first and last characters joined by a dash,
+     * as in <CODE>48-57 97-122</CODE>.
+     * @param symbolClass the symbol class
+     * @return the ranges of the class
+     */
+    private static String formatClass(SymbolClass symbolClass) {
+	StringBuffer buffer = new StringBuffer();
+	for (int i=0; i<symbolClass.getRangeCount(); i++) {
+	    if (i != 0) buffer.append(' ');
+	    buffer.append((int) symbolClass.getLow(i)).append('-')
+		.append((int) symbolClass.getHigh(i));
+	}
+	return buffer.toString();
     }
 
     /**
@@ -329,6 +431,15 @@ public abstract class AutomatonTransducer extends AbstractTransducer {
 	// Encode the to state.
 	te.appendChild(createElement(document, TRANSITION_TO_NAME, null,
 				     ""+transition.getToState().getID()));
+	// Encode the symbol class, if any, as the label is only its
+	// string representation.
+	if (transition instanceof FSATransition) {
+	    SymbolClass symbolClass =
+		((FSATransition) transition).getSymbolClass();
+	    if (symbolClass != null)
+		te.appendChild(createElement(document, TRANSITION_CLASS_NAME,
+					     null, formatClass(symbolClass)));
+	}
 	// Return the completed transition encoding element.
 	return te;
     }
@@ -359,6 +470,345 @@ public abstract class AutomatonTransducer extends AbstractTransducer {
 	return doc;
     }
 
+    /**
+     * Reads the automaton encoded in a stream of XML, in the same
+     * format {@link #fromDOM} reads.  Rather than parsing the whole
+     * file into a DOM first, this builds the automaton in one pass as
+     * the SAX parser reports each element, so little memory is used
+     * beyond the automaton itself and the map of state IDs.  Each
+     * state and transition element is rebuilt on its own in a scratch
+     * document, which also holds the elements before the first state
+     * or transition, so {@link #createEmptyAutomaton} and {@link
+     * #createTransition} see the same nodes they would in a DOM.  A
+     * transition that comes before the states it refers to is held
+     * until the end of the document.
+     * @param stream the stream to read the XML from
+     * @return the automaton encoded in the stream
+     * @throws ParseException if the stream does not hold well formed
+     * XML
+     * @throws DataException in the case of non-numeric or duplicate
+     * IDs, or transitions on absent states
+     * @throws IOException if there was a problem reading the stream
+     */
+    public java.io.Serializable fromStream(InputStream stream)
+	throws IOException {
+	StreamHandler handler = new StreamHandler(newEmptyDocument());
+	try {
+	    parserFactory.newSAXParser().parse(stream, handler);
+	} catch (ParserConfigurationException e) {
+	    throw new ParseException("Could not create an XML parser!");
+	} catch (SAXException e) {
+	    throw new ParseException(e.getMessage());
+	}
+	// Do the layout if necessary.
+	performLayout(handler.automaton, handler.locatedStates);
+	return handler.automaton;
+    }
+
+    /**
+     * Writes an automaton to a stream as XML, in the same format
+     * {@link #toDOM} produces and indented as {@link DOMPrettier}
+     * would indent it, but without building a DOM of the whole
+     * automaton.  States are written directly.  Each transition is
+     * encoded by {@link #createTransitionElement} as a lone element
+     * of a scratch document, written, and then dropped, so that
+     * subclasses encode their transitions in just one place.
+     * @param structure the JFLAP automaton to encode
+     * @param stream the stream to write the XML to
+     * @throws IOException if there was a problem writing the stream
+     */
+    public void toStream(java.io.Serializable structure, OutputStream stream)
+	throws IOException {
+	Automaton automaton = (Automaton) structure;
+	Writer writer = new BufferedWriter
+	    (new OutputStreamWriter(stream, ENCODING));
+	String newline = System.getProperty("line.separator");
+	String indent = newline + DOMPrettier.INDENT;
+	writer.write("<?xml version=\"1.0\" encoding=\""+ENCODING+"\"?>");
+	writer.write(newline);
+	writer.write("<!--Created with JFLAP "+gui.AboutBox.VERSION+".-->");
+	writer.write(newline);
+	writer.write("<"+STRUCTURE_NAME+">");
+	writeElement(writer, indent, STRUCTURE_TYPE_NAME, getType());
+	// Write the states.
+	State[] states = automaton.getStates();
+	if (states.length > 0)
+	    writer.write(indent+"<!--"+COMMENT_STATES+"-->");
+	for (int i=0; i<states.length; i++)
+	    writeState(writer, indent, states[i]);
+	// Write the transitions.
+	Transition[] transitions = automaton.getTransitions();
+	if (transitions.length > 0)
+	    writer.write(indent+"<!--"+COMMENT_TRANSITIONS+"-->");
+	Document scratch = newEmptyDocument();
+	for (int i=0; i<transitions.length; i++)
+	    writeNode(writer, indent,
+		      createTransitionElement(scratch, transitions[i]));
+	writer.write(newline+"</"+STRUCTURE_NAME+">"+newline);
+	writer.flush();
+    }
+
+    /**
+     * Writes the element that encodes a state, with the same contents
+     * as from {@link #createStateElement}.
+     * @param writer the writer to write to
+     * @param indent the newline and indentation before the element
+     * @param state the state to encode
+     * @throws IOException if there was a problem writing
+     */
+    private void writeState(Writer writer, String indent, State state)
+	throws IOException {
+	String inner = indent + DOMPrettier.INDENT;
+	writer.write(indent+"<"+STATE_NAME+" "+STATE_ID_NAME+"=\""+
+		     state.getID()+"\">");
+	// Encode position.
+	writeElement(writer, inner, STATE_X_COORD_NAME,
+		     ""+state.getPoint().getX());
+	writeElement(writer, inner, STATE_Y_COORD_NAME,
+		     ""+state.getPoint().getY());
+	// Encode label and name, if set.
+	if (state.getLabel() != null)
+	    writeElement(writer, inner, STATE_LABEL_NAME, state.getLabel());
+	if (!state.getName().equals("q"+state.getID()))
+	    writeElement(writer, inner, STATE_NAME_NAME, state.getName());
+	// Encode whether the state is initial or final.
+	Automaton a = state.getAutomaton();
+	if (a.getInitialState() == state)
+	    writeElement(writer, inner, STATE_INITIAL_NAME, null);
+	if (a.isFinalState(state))
+	    writeElement(writer, inner, STATE_FINAL_NAME, null);
+	writer.write(indent+"</"+STATE_NAME+">");
+    }
+
+    /**
+     * Writes an element with only text in it.
+     * @param writer the writer to write to
+     * @param indent the newline and indentation before the element
+     * @param tagname the tagname for the element
+     * @param text the text in the element, or <CODE>null</CODE> if
+     * the element should be empty
+     * @throws IOException if there was a problem writing
+     */
+    private static void writeElement(Writer writer, String indent,
+				     String tagname, String text)
+	throws IOException {
+	if (text == null) {
+	    writer.write(indent+"<"+tagname+"/>");
+	    return;
+	}
+	writer.write(indent+"<"+tagname+">"+escape(text)+"</"+tagname+">");
+    }
+
+    /**
+     * Writes a DOM node and its children, indenting the elements in
+     * the same way as {@link DOMPrettier}.
+     * @param writer the writer to write to
+     * @param indent the newline and indentation before the node
+     * @param node the node to write
+     * @throws IOException if there was a problem writing
+     */
+    private static void writeNode(Writer writer, String indent, Node node)
+	throws IOException {
+	switch (node.getNodeType()) {
+	case Node.TEXT_NODE:
+	    writer.write(escape(((Text) node).getData()));
+	    return;
+	case Node.COMMENT_NODE:
+	    writer.write(indent+"<!--"+((Comment) node).getData()+"-->");
+	    return;
+	case Node.ELEMENT_NODE:
+	    break;
+	default:
+	    return;
+	}
+	Element element = (Element) node;
+	writer.write(indent+"<"+element.getTagName());
+	NamedNodeMap attributes = element.getAttributes();
+	for (int i=0; i<attributes.getLength(); i++) {
+	    Attr attribute = (Attr) attributes.item(i);
+	    writer.write(" "+attribute.getName()+"=\""+
+			 escape(attribute.getValue())+"\"");
+	}
+	NodeList children = element.getChildNodes();
+	if (children.getLength() == 0) {
+	    writer.write("/>");
+	    return;
+	}
+	writer.write(">");
+	boolean lastChild = true; // If only text, keep it on one line.
+	for (int i=0; i<children.getLength(); i++) {
+	    Node child = children.item(i);
+	    writeNode(writer, indent+DOMPrettier.INDENT, child);
+	    lastChild = child.getNodeType() == Node.TEXT_NODE;
+	}
+	if (!lastChild) writer.write(indent);
+	writer.write("</"+element.getTagName()+">");
+    }
+
+    /**
+     * Returns a string with the characters that are special in XML
+     * text and attribute values replaced by entity references.
+     * @param string the string to escape
+     * @return the escaped string
+     */
+    private static String escape(String string) {
+	StringBuffer buffer = null;
+	for (int i=0; i<string.length(); i++) {
+	    char c = string.charAt(i);
+	    String entity;
+	    switch (c) {
+	    case '&': entity = "&amp;"; break;
+	    case '<': entity = "&lt;"; break;
+	    case '>': entity = "&gt;"; break;
+	    case '"': entity = "&quot;"; break;
+	    default: entity = null;
+	    }
+	    if (entity == null) {
+		if (buffer != null) buffer.append(c);
+		continue;
+	    }
+	    if (buffer == null)
+		buffer = new StringBuffer(string.substring(0, i));
+	    buffer.append(entity);
+	}
+	return buffer == null ? string : buffer.toString();
+    }
+
+    /**
+     * The handler of the SAX events for {@link #fromStream}.  Each
+     * element below the root is rebuilt in a scratch document, and
+     * states and transitions are created as their elements end.  The
+     * automaton is created once the first state or transition starts,
+     * and the elements before it are kept in the scratch document for
+     * {@link #createEmptyAutomaton}; later elements are dropped once
+     * read.
+     */
+    private class StreamHandler extends DefaultHandler {
+	/**
+	 * Instantiates a new handler.
+	 * @param document the scratch document to rebuild elements in,
+	 * whose root element is emptied
+	 */
+	public StreamHandler(Document document) {
+	    this.document = document;
+	    Element root = document.getDocumentElement();
+	    while (root.hasChildNodes()) root.removeChild(root.getFirstChild());
+	}
+
+	public void startElement(String uri, String localName,
+				 String qName, Attributes attributes) {
+	    addText();
+	    depth++;
+	    if (depth == 1) return;
+	    Element element = document.createElement(qName);
+	    for (int i=0; i<attributes.getLength(); i++)
+		element.setAttribute(attributes.getQName(i),
+				     attributes.getValue(i));
+	    if (depth > 2) {
+		current.appendChild(element);
+	    } else if (qName.equals(STATE_NAME) ||
+		       qName.equals(TRANSITION_NAME)) {
+		if (automaton == null)
+		    automaton = createEmptyAutomaton(document);
+		if (qName.equals(STATE_NAME)) {
+		    String idString = attributes.getValue(STATE_ID_NAME);
+		    if (idString == null)
+			throw new DataException
+			    ("State without id attribute encountered!");
+		    id = parseID(idString);
+		}
+	    } else if (automaton == null) {
+		document.getDocumentElement().appendChild(element);
+	    }
+	    current = element;
+	}
+
+	public void characters(char[] ch, int start, int length) {
+	    if (depth > 1) text.append(ch, start, length);
+	}
+
+	public void endElement(String uri, String localName, String qName) {
+	    addText();
+	    depth--;
+	    if (depth == 0) return;
+	    Element element = current;
+	    if (depth > 1) {
+		current = (Element) element.getParentNode();
+		return;
+	    }
+	    current = null;
+	    if (qName.equals(STATE_NAME)) {
+		// Check for duplicates.
+		if (i2s.containsKey(id))
+		    throw new DataException
+			("The state ID "+id+" appears twice!");
+		i2s.put(id, readState(automaton, id, elementsToText(element),
+				      locatedStates));
+	    } else if (qName.equals(TRANSITION_NAME)) {
+		Map e2t = elementsToText(element);
+		if (isKnown(e2t, TRANSITION_FROM_NAME) &&
+		    isKnown(e2t, TRANSITION_TO_NAME))
+		    readTransition(automaton, i2s, element, e2t);
+		else
+		    pending.add(element);
+	    }
+	}
+
+	public void endDocument() {
+	    if (automaton == null)
+		automaton = createEmptyAutomaton(document);
+	    for (int i=0; i<pending.size(); i++) {
+		Node node = (Node) pending.get(i);
+		readTransition(automaton, i2s, node, elementsToText(node));
+	    }
+	}
+
+	/**
+	 * Adds the text read since the last tag to the current element
+	 * as a text node, if there is any.
+	 */
+	private void addText() {
+	    if (text.length() == 0) return;
+	    if (current != null)
+		current.appendChild(document.createTextNode(text.toString()));
+	    text.setLength(0);
+	}
+
+	/**
+	 * Returns if the state a field of a transition refers to has
+	 * already been read.
+	 * @param e2t the fields of the transition
+	 * @param name the name of the field
+	 * @return <CODE>false</CODE> if the field has a state ID not
+	 * read yet, <CODE>true</CODE> otherwise
+	 */
+	private boolean isKnown(Map e2t, String name) {
+	    String idString = (String) e2t.get(name);
+	    return idString == null || i2s.containsKey(parseID(idString));
+	}
+
+	/** The automaton being read, or <CODE>null</CODE> if no state
+	 * or transition has started yet. */
+	Automaton automaton;
+	/** The states with their X and Y coordinates specified. */
+	Set locatedStates = new HashSet();
+	/** The scratch document elements are rebuilt in. */
+	private Document document;
+	/** The element being rebuilt, or <CODE>null</CODE> outside the
+	 * elements below the root. */
+	private Element current;
+	/** The map of state IDs to states. */
+	private Map i2s = new HashMap();
+	/** The transition elements waiting on states not read yet. */
+	private List pending = new ArrayList();
+	/** The text read since the last tag. */
+	private StringBuffer text = new StringBuffer();
+	/** The ID of the current state. */
+	private Object id;
+	/** The depth of the current element, the root being 1. */
+	private int depth = 0;
+    }
+
     /** The tag name for individual state elements. */
     public static final String STATE_NAME = "state";
     /** The attribute name for the state ID. */
@@ -382,10 +832,19 @@ public abstract class AutomatonTransducer extends AbstractTransducer {
     public static final String TRANSITION_FROM_NAME = "from";
     /** The tag name for the to state ID. */
     public static final String TRANSITION_TO_NAME = "to";
+    /** The tag name for the ranges of a symbol class a finite
+     * automaton transition is on. */
+    public static final String TRANSITION_CLASS_NAME = "class";
 
     /** The comment for the list of states. */
     private static final String COMMENT_STATES = "The list of states.";
     /** The comment for the list of transitions. */
     private static final String COMMENT_TRANSITIONS =
 	"The list of transitions.";
+    /** The character encoding of streamed XML. */
+    private static final String ENCODING = "UTF-8";
+
+    /** The factory for the parsers of streamed XML. */
+    private static SAXParserFactory parserFactory =
+	SAXParserFactory.newInstance();
 }
@@ -0,0 +1,447 @@
+/* -- JFLAP 4.0 --
+ *
+ * Copyright information:
+ *
+ * Susan H. Rodger, Thomas Finley
+ * Computer Science Department
+ * Duke University
+ * April 24, 2003
+ * Supported by National Science Foundation DUE-9752583.
+ *
+ * Copyright (c) 2003
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that the above copyright notice and this paragraph are
+ * duplicated in all such forms and that any documentation,
+ * advertising materials, and other materials related to such
+ * distribution and use acknowledge that the software was developed
+ * by the author.  The name of the author may not be used to
+ * endorse or promote products derived from this software without
+ * specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+ 
+package grammar;
+
+import java.util.*;
+
+/**
+ * The batch CNF converter converts an entire grammar to Chomsky
+ * normal form in one go, as opposed to the {@link CNFConverter},
+ * which replaces productions one at a time at the user's direction.
+ * The grammar is first broken into productions with at most two
+ * symbols on the right hand side, then lambda, unit, and useless
+ * productions are removed.  Binarizing first keeps the lambda removal
+ * from blowing up exponentially on long right hand sides, so the
+ * whole conversion is linear in the size of the grammar, except for
+ * the unit production removal, which is linear in the size of the
+ * result.
+ *
+ * Helper variables are named as in {@link CNFConverter}, that is,
+ * <CODE>B(a)</CODE> for a variable that derives the terminal
+ * <CODE>a</CODE>, and <CODE>D(n)</CODE> for the variables that
+ * represent the tail of a long right hand side.  Identical tails are
+ * represented by the same helper variable, no matter how many
+ * productions they appear in.  Since the converted grammar cannot
+ * derive lambda, lambda is dropped from the language if the original
+ * grammar could derive it.
+ *
+ * @author Thomas Finley
+ */
+
+public class CNFBatchConverter {
+    /**
+     * Instantiates a new batch converter.
+     * @param grammar the context free grammar to convert
+     */
+    public CNFBatchConverter(Grammar grammar) {
+	this.grammar = grammar;
+    }
+
+    /**
+     * Converts the grammar.  The conversion is only done the first
+     * time this method is called; later calls return the same
+     * productions.
+     * @return the productions of the grammar in Chomsky normal form,
+     * with the productions of the start variable first
+     * @throws IllegalArgumentException if the grammar has no start
+     * variable, or has the reserved <CODE>(</CODE> or <CODE>)</CODE>
+     * characters
+     * @throws UnsupportedOperationException if the grammar needs more
+     * symbols than the converter can keep track of
+     */
+    public Production[] convert() {
+	if (converted != null) return converted;
+	read();
+	separateTerminals();
+	binarize();
+	removeLambdas();
+	removeUnits();
+	removeUseless();
+	converted = write();
+	return converted;
+    }
+
+    /**
+     * Returns the number of productions in the original grammar.
+     * @return the number of productions in the original grammar
+     */
+    public int getOriginalProductionCount() {
+	convert();
+	return originalCount;
+    }
+
+    /**
+     * Returns the number of productions in the converted grammar.
+     * @return the number of productions in the converted grammar
+     */
+    public int getConvertedProductionCount() {
+	return convert().length;
+    }
+
+    /**
+     * Returns the size of the original grammar, that is, the number
+     * of symbols in all productions, counting the left hand sides.
+     * @return the size of the original grammar
+     */
+    public int getOriginalSize() {
+	convert();
+	return originalSize;
+    }
+
+    /**
+     * Returns the size of the converted grammar, that is, the number
+     * of symbols in all productions, counting the left hand sides.
+     * @return the size of the converted grammar
+     */
+    public int getConvertedSize() {
+	convert();
+	return convertedSize;
+    }
+
+    /**
+     * Returns the ratio of the converted grammar size to the original
+     * grammar size.
+     * @return the size blowup of the conversion, or 0 if the original
+     * grammar had no productions
+     */
+    public double getBlowup() {
+	convert();
+	if (originalSize == 0) return 0.0;
+	return (double) convertedSize / (double) originalSize;
+    }
+
+    /**
+     * Returns the number of helper variables that were introduced by
+     * the conversion, whether or not they survive in the result.
+     * @return the number of helper variables introduced
+     */
+    public int getHelperVariableCount() {
+	convert();
+	return helpers;
+    }
+
+    /**
+     * Returns the number of times a right hand side tail was found to
+     * already have a helper variable, so that no new variable and
+     * production were needed.
+     * @return the number of shared tails
+     */
+    public int getSharedTailCount() {
+	convert();
+	return sharedTails;
+    }
+
+    /**
+     * Returns if the original grammar could derive the empty string.
+     * The converted grammar cannot derive it.
+     * @return <CODE>true</CODE> if lambda was in the language of the
+     * original grammar, <CODE>false</CODE> otherwise
+     */
+    public boolean derivedLambda() {
+	convert();
+	return derivedLambda;
+    }
+
+    /**
+     * Reads the productions of the grammar into the integer encoded
+     * production list.
+     */
+    private void read() {
+	Production[] p = grammar.getProductions();
+	originalCount = p.length;
+	if (grammar.getStartVariable() == null)
+	    throw new IllegalArgumentException("Grammar has no start variable.");
+	start = symbol(grammar.getStartVariable(), true);
+	for (int i=0; i<p.length; i++) {
+	    String lhs = p[i].getLHS(), rhs = p[i].getRHS();
+	    if (rhs.indexOf('(') != -1 || rhs.indexOf(')') != -1)
+		throw new IllegalArgumentException
+		    ("Grammar has the ( or ) character, which is reserved.");
+	    int[] production = new int[rhs.length()+1];
+	    production[0] = symbol(lhs, true);
+	    for (int j=0; j<rhs.length(); j++) {
+		String s = rhs.substring(j, j+1);
+		production[j+1] = symbol(s, grammar.isVariable(s));
+	    }
+	    productions.add(production);
+	    originalSize += production.length;
+	}
+    }
+
+    /**
+     * Replaces the terminals in all productions with more than one
+     * symbol on the right hand side with <CODE>B(a)</CODE> variables.
+     */
+    private void separateTerminals() {
+	int[] replacement = new int[names.size()];
+	Arrays.fill(replacement, -1);
+	int count = productions.size();
+	for (int i=0; i<count; i++) {
+	    int[] production = (int[]) productions.get(i);
+	    if (production.length <= 2) continue;
+	    for (int j=1; j<production.length; j++) {
+		int s = production[j];
+		if (isVariable(s)) continue;
+		if (replacement[s] == -1) {
+		    replacement[s] = symbol("B("+names.get(s)+")", true);
+		    productions.add(new int[] {replacement[s], s});
+		    helpers++;
+		}
+		production[j] = replacement[s];
+	    }
+	}
+    }
+
+    /**
+     * Breaks all productions with more than two symbols on the right
+     * hand side into chains of productions with two.  The tails of the
+     * right hand sides are hash consed, so <CODE>A->BCD</CODE> and
+     * <CODE>E->FCD</CODE> both end up using the same variable for
+     * <CODE>CD</CODE>.
+     */
+    private void binarize() {
+	HashMap tails = new HashMap(); // Packed pairs to variables.
+	int count = productions.size();
+	for (int i=0; i<count; i++) {
+	    int[] production = (int[]) productions.get(i);
+	    if (production.length <= 3) continue;
+	    int tail = production[production.length-1];
+	    for (int j=production.length-2; j>1; j--) {
+		Long key = new Long(pack(production[j], tail));
+		Integer helper = (Integer) tails.get(key);
+		if (helper == null) {
+		    helper = new Integer(symbol("D("+(++helpers)+")", true));
+		    tails.put(key, helper);
+		    productions.add(new int[]
+			{helper.intValue(), production[j], tail});
+		} else {
+		    sharedTails++;
+		}
+		tail = helper.intValue();
+	    }
+	    productions.set(i, new int[]
+		{production[0], production[1], tail});
+	}
+    }
+
+    /**
+     * Removes lambda productions.  For every production with a
+     * nullable variable on its right hand side, the production
+     * without that variable is added.
+     */
+    private void removeLambdas() {
+	boolean[] nullable = analyzer().nullable();
+	derivedLambda = nullable[start];
+	List result = new ArrayList();
+	for (int i=0; i<productions.size(); i++) {
+	    int[] p = (int[]) productions.get(i);
+	    switch (p.length) {
+	    case 1:
+		break;
+	    case 2:
+		result.add(p);
+		break;
+	    default:
+		result.add(p);
+		if (nullable[p[1]]) result.add(new int[] {p[0], p[2]});
+		if (nullable[p[2]]) result.add(new int[] {p[0], p[1]});
+	    }
+	}
+	productions = result;
+    }
+
+    /**
+     * Removes unit productions.  Each variable gets the non-unit
+     * productions of every variable it derives through unit
+     * productions.
+     */
+    private void removeUnits() {
+	GrammarAnalyzer analyzer = analyzer();
+	int n = names.size();
+	List[] others = new List[n];
+	for (int i=0; i<productions.size(); i++) {
+	    int[] p = (int[]) productions.get(i);
+	    if (analyzer.isUnit(p)) continue;
+	    if (others[p[0]] == null) others[p[0]] = new ArrayList();
+	    others[p[0]].add(p);
+	}
+	List result = new ArrayList();
+	HashSet seen = new HashSet();
+	for (int a=0; a<n; a++) {
+	    if (!isVariable(a)) continue;
+	    int[] closure = analyzer.unitClosure(a);
+	    for (int c=0; c<closure.length; c++) {
+		List from = others[closure[c]];
+		if (from == null) continue;
+		for (int i=0; i<from.size(); i++) {
+		    int[] q = (int[]) ((int[]) from.get(i)).clone();
+		    q[0] = a;
+		    if (seen.add(new Long(pack(q)))) result.add(q);
+		}
+	    }
+	}
+	productions = result;
+    }
+
+    /**
+     * Removes useless productions, that is, those with a variable that
+     * either derives no terminal string, or which cannot be reached
+     * from the start variable.
+     */
+    private void removeUseless() {
+	GrammarAnalyzer analyzer = analyzer();
+	boolean[] useful = analyzer.useful();
+	List result = new ArrayList();
+	for (int i=0; i<productions.size(); i++) {
+	    int[] p = (int[]) productions.get(i);
+	    boolean keep = true;
+	    for (int j=0; j<p.length; j++)
+		keep &= useful[p[j]] || !isVariable(p[j]);
+	    if (keep) result.add(p);
+	}
+	productions = result;
+    }
+
+    /**
+     * Converts the integer encoded productions back to productions,
+     * and sums up the size of the result.
+     * @return the converted productions
+     */
+    private Production[] write() {
+	List first = new ArrayList(), rest = new ArrayList();
+	for (int i=0; i<productions.size(); i++) {
+	    int[] p = (int[]) productions.get(i);
+	    StringBuffer rhs = new StringBuffer();
+	    for (int j=1; j<p.length; j++)
+		rhs.append(names.get(p[j]));
+	    Production production =
+		new Production((String) names.get(p[0]), rhs.toString());
+	    (p[0] == start ? first : rest).add(production);
+	    convertedSize += p.length;
+	}
+	first.addAll(rest);
+	return (Production[]) first.toArray(new Production[0]);
+    }
+
+    /**
+     * Returns the integer code for a symbol, creating one if this
+     * symbol has not been seen before.
+     * @param name the symbol
+     * @param variable if the symbol is a variable
+     * @return the code for the symbol
+     * @throws UnsupportedOperationException if there are too many
+     * symbols to pack three of them into a long
+     */
+    private int symbol(String name, boolean variable) {
+	Integer code = (Integer) codes.get(name);
+	if (code != null) return code.intValue();
+	if (names.size() >= MAX_SYMBOLS)
+	    throw new UnsupportedOperationException
+		("Grammar needs more than "+MAX_SYMBOLS+" symbols!");
+	code = new Integer(names.size());
+	codes.put(name, code);
+	names.add(name);
+	variables.add(variable ? Boolean.TRUE : Boolean.FALSE);
+	return code.intValue();
+    }
+
+    /**
+     * Returns if a symbol is a variable.
+     * @param symbol the code of the symbol
+     * @return <CODE>true</CODE> if the symbol is a variable
+     */
+    private boolean isVariable(int symbol) {
+	return variables.get(symbol) == Boolean.TRUE;
+    }
+
+    /**
+     * Returns an analyzer for the productions as they are now.
+     * @return an analyzer for the current productions
+     */
+    private GrammarAnalyzer analyzer() {
+	boolean[] isVariable = new boolean[names.size()];
+	for (int i=0; i<isVariable.length; i++)
+	    isVariable[i] = isVariable(i);
+	return new GrammarAnalyzer(productions, isVariable, start);
+    }
+
+    /**
+     * Packs two symbols into a long.
+     * @param a the first symbol
+     * @param b the second symbol
+     * @return the packed key
+     */
+    private static long pack(int a, int b) {
+	return ((long) a << 21) | b;
+    }
+
+    /**
+     * Packs a production with at most two symbols on the right hand
+     * side into a long.
+     * @param p the integer encoded production
+     * @return the packed key
+     */
+    private static long pack(int[] p) {
+	long key = p[0];
+	for (int i=1; i<3; i++)
+	    key = (key << 21) | (i < p.length ? p[i]+1 : 0);
+	return key;
+    }
+
+    /** The most symbols we can have, so three fit in a long. */
+    private static final int MAX_SYMBOLS = (1 << 21) - 2;
+
+    /** The grammar we're converting. */
+    private Grammar grammar;
+    /** The converted productions, or <CODE>null</CODE> if the
+     * conversion has not happened yet. */
+    private Production[] converted = null;
+    /** The integer encoded productions, each an array with the left
+     * hand side followed by the right hand side. */
+    private List productions = new ArrayList();
+    /** The names of the symbols, indexed by code. */
+    private List names = new ArrayList();
+    /** Whether each symbol is a variable, indexed by code. */
+    private List variables = new ArrayList();
+    /** The map of symbol names to codes. */
+    private Map codes = new HashMap();
+    /** The code of the start variable. */
+    private int start;
+
+    /** The number of productions in the original grammar. */
+    private int originalCount = 0;
+    /** The size of the original grammar. */
+    private int originalSize = 0;
+    /** The size of the converted grammar. */
+    private int convertedSize = 0;
+    /** The number of helper variables introduced. */
+    private int helpers = 0;
+    /** The number of tails that reused a helper variable. */
+    private int sharedTails = 0;
+    /** Whether the original grammar derived lambda. */
+    private boolean derivedLambda = false;
+}
@@ -0,0 +1,460 @@
+/* -- JFLAP 4.0 --
+ *
+ * Copyright information:
+ *
+ * Susan H. Rodger, Thomas Finley
+ * Computer Science Department
+ * Duke University
+ * April 24, 2003
+ * Supported by National Science Foundation DUE-9752583.
+ *
+ * Copyright (c) 2003
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that the above copyright notice and this paragraph are
+ * duplicated in all such forms and that any documentation,
+ * advertising materials, and other materials related to such
+ * distribution and use acknowledge that the software was developed
+ * by the author.  The name of the author may not be used to
+ * endorse or promote products derived from this software without
+ * specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+ 
+package grammar;
+
+import java.util.*;
+
+/**
+ * The grammar analyzer computes the sets of variables that the
+ * grammar transformations need: those that derive some string of
+ * terminals (generating), those that appear in some sentential form
+ * derived from the start variable (reachable), those that derive
+ * lambda (nullable), and those that a variable derives through unit
+ * productions alone (the unit closure).  Unlike the methods in
+ * {@link GrammarChecker}, which scan all productions for every
+ * question asked, the analyzer encodes the grammar once and computes
+ * each set with a single worklist pass.  Generating and nullable
+ * variables are found by giving each production a count of the
+ * symbols on its right hand side not yet known to have the property,
+ * and decrementing the counts of the productions a symbol appears in
+ * once it is known to have it, so those passes are linear in the size
+ * of the grammar.
+ *
+ * @author Thomas Finley
+ */
+
+public class GrammarAnalyzer {
+    /**
+     * Instantiates a new grammar analyzer.
+     * @param grammar the grammar to analyze; the productions should
+     * be restricted on the left hand side, as in a context free
+     * grammar
+     */
+    public GrammarAnalyzer(Grammar grammar) {
+	names = new ArrayList();
+	codes = new HashMap();
+	ArrayList isVariable = new ArrayList();
+	Production[] p = grammar.getProductions();
+	String startVariable = grammar.getStartVariable();
+	// Encode every symbol as an integer.
+	List encoded = new ArrayList();
+	for (int i=0; i<p.length; i++) {
+	    String lhs = p[i].getLHS(), rhs = p[i].getRHS();
+	    int[] production = new int[rhs.length()+1];
+	    production[0] = code(lhs, true, isVariable);
+	    for (int j=0; j<rhs.length(); j++) {
+		String s = rhs.substring(j, j+1);
+		production[j+1] =
+		    code(s, grammar.isVariable(s), isVariable);
+	    }
+	    encoded.add(production);
+	}
+	start = startVariable == null ? -1 :
+	    code(startVariable, true, isVariable);
+	productions = (int[][]) encoded.toArray(new int[0][]);
+	variables = new boolean[isVariable.size()];
+	for (int i=0; i<variables.length; i++)
+	    variables[i] = isVariable.get(i) == Boolean.TRUE;
+    }
+
+    /**
+     * Instantiates a grammar analyzer over already encoded
+     * productions.  This is for converters that keep their own
+     * integer encoding of a grammar.
+     * @param productions the productions, each an array with the code
+     * of the left hand side followed by the codes of the right hand
+     * side
+     * @param variables an array indexed by symbol code telling if the
+     * symbol is a variable
+     * @param start the code of the start variable, or -1 if there is
+     * none
+     */
+    GrammarAnalyzer(List productions, boolean[] variables, int start) {
+	this.productions = (int[][]) productions.toArray(new int[0][]);
+	this.variables = variables;
+	this.start = start;
+    }
+
+    /**
+     * Returns if a variable derives lambda.
+     * @param variable the variable
+     * @return <CODE>true</CODE> if the variable derives lambda
+     */
+    public boolean isNullable(String variable) {
+	return has(nullable(), variable);
+    }
+
+    /**
+     * Returns if a variable derives some string of terminals.
+     * @param variable the variable
+     * @return <CODE>true</CODE> if the variable derives a string of
+     * terminals
+     */
+    public boolean isGenerating(String variable) {
+	return has(generating(), variable);
+    }
+
+    /**
+     * Returns if a variable appears in some sentential form derived
+     * from the start variable.
+     * @param variable the variable
+     * @return <CODE>true</CODE> if the variable is reachable
+     */
+    public boolean isReachable(String variable) {
+	return has(reachable(), variable);
+    }
+
+    /**
+     * Returns all variables that derive lambda.
+     * @return the nullable variables
+     */
+    public String[] getNullableVariables() {
+	return variablesIn(nullable());
+    }
+
+    /**
+     * Returns all variables that derive some string of terminals.
+     * @return the generating variables
+     */
+    public String[] getGeneratingVariables() {
+	return variablesIn(generating());
+    }
+
+    /**
+     * Returns all variables that appear in some sentential form
+     * derived from the start variable.
+     * @return the reachable variables
+     */
+    public String[] getReachableVariables() {
+	return variablesIn(reachable());
+    }
+
+    /**
+     * Returns all variables that are useless, that is, that either
+     * derive no string of terminals, or that cannot be reached from
+     * the start variable by productions with only generating symbols.
+     * @return the useless variables
+     */
+    public String[] getUselessVariables() {
+	boolean[] useful = useful();
+	ArrayList list = new ArrayList();
+	for (int i=0; i<variables.length; i++)
+	    if (variables[i] && !useful[i]) list.add(names.get(i));
+	return (String[]) list.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the variables a variable derives through unit
+     * productions alone, including the variable itself.
+     * @param variable the variable
+     * @return the unit closure of the variable
+     */
+    public String[] getUnitClosure(String variable) {
+	Integer code = (Integer) codes.get(variable);
+	if (code == null) return new String[] {variable};
+	int[] closure = unitClosure(code.intValue());
+	String[] result = new String[closure.length];
+	for (int i=0; i<closure.length; i++)
+	    result[i] = (String) names.get(closure[i]);
+	return result;
+    }
+
+    /**
+     * Computes which symbols derive lambda.
+     * @return an array indexed by symbol telling if it is nullable
+     */
+    boolean[] nullable() {
+	if (nullable == null)
+	    nullable = saturate(new boolean[variables.length]);
+	return nullable;
+    }
+
+    /**
+     * Computes which symbols derive some string of terminals.
+     * Terminals trivially do.
+     * @return an array indexed by symbol telling if it is generating
+     */
+    boolean[] generating() {
+	if (generating == null) {
+	    boolean[] known = new boolean[variables.length];
+	    for (int i=0; i<known.length; i++) known[i] = !variables[i];
+	    generating = saturate(known);
+	}
+	return generating;
+    }
+
+    /**
+     * Computes which symbols appear in some sentential form derived
+     * from the start variable.
+     * @return an array indexed by symbol telling if it is reachable
+     */
+    boolean[] reachable() {
+	if (reachable == null) reachable = reach(null);
+	return reachable;
+    }
+
+    /**
+     * Computes which symbols are useful, that is, those that are
+     * reachable from the start variable through productions that
+     * contain only generating symbols.
+     * @return an array indexed by symbol telling if it is useful
+     */
+    boolean[] useful() {
+	if (useful == null) useful = reach(generating());
+	return useful;
+    }
+
+    /**
+     * Computes the unit closure of a variable with a depth first
+     * walk of the unit productions.
+     * @param variable the code of the variable
+     * @return the codes of the variables in the unit closure, starting
+     * with the variable itself
+     */
+    int[] unitClosure(int variable) {
+	if (units == null) {
+	    int[] count = new int[variables.length];
+	    for (int i=0; i<productions.length; i++)
+		if (isUnit(productions[i])) count[productions[i][0]]++;
+	    units = new int[variables.length][];
+	    for (int i=0; i<units.length; i++) units[i] = new int[count[i]];
+	    for (int i=0; i<productions.length; i++)
+		if (isUnit(productions[i])) {
+		    int lhs = productions[i][0];
+		    units[lhs][--count[lhs]] = productions[i][1];
+		}
+	    mark = new int[variables.length];
+	    stack = new int[variables.length];
+	    closure = new int[variables.length];
+	}
+	int stamp = ++epoch;
+	int size = 0, found = 0;
+	stack[size++] = variable;
+	mark[variable] = stamp;
+	while (size > 0) {
+	    int v = stack[--size];
+	    closure[found++] = v;
+	    for (int i=0; i<units[v].length; i++) {
+		int u = units[v][i];
+		if (mark[u] == stamp) continue;
+		mark[u] = stamp;
+		stack[size++] = u;
+	    }
+	}
+	int[] result = new int[found];
+	System.arraycopy(closure, 0, result, 0, found);
+	return result;
+    }
+
+    /**
+     * Returns if an encoded production is a unit production.
+     * @param production the encoded production
+     * @return <CODE>true</CODE> if the right hand side is a single
+     * variable
+     */
+    boolean isUnit(int[] production) {
+	return production.length == 2 && variables[production[1]];
+    }
+
+    /**
+     * Finds the least set of symbols that contains the given ones and
+     * every left hand side of a production whose right hand side is
+     * entirely in the set.  Each production counts its right hand side
+     * symbols not yet in the set, and each symbol added to the set
+     * decrements the counts of the productions it appears in.
+     * @param known an array indexed by symbol that holds the symbols
+     * initially in the set; this array is filled in and returned
+     * @return the saturated set
+     */
+    private boolean[] saturate(boolean[] known) {
+	int[] remaining = new int[productions.length];
+	// Count the occurrences so the reverse index fits in arrays.
+	int[] occurrences = new int[variables.length+1];
+	for (int i=0; i<productions.length; i++)
+	    for (int j=1; j<productions[i].length; j++)
+		if (!known[productions[i][j]]) {
+		    remaining[i]++;
+		    occurrences[productions[i][j]+1]++;
+		}
+	for (int i=1; i<occurrences.length; i++)
+	    occurrences[i] += occurrences[i-1];
+	int[] users = new int[occurrences[variables.length]];
+	int[] fill = (int[]) occurrences.clone();
+	for (int i=0; i<productions.length; i++)
+	    for (int j=1; j<productions[i].length; j++)
+		if (!known[productions[i][j]])
+		    users[fill[productions[i][j]]++] = i;
+	// Now run the worklist.
+	int[] stack = new int[variables.length];
+	int size = 0;
+	for (int i=0; i<productions.length; i++) {
+	    int lhs = productions[i][0];
+	    if (remaining[i] == 0 && !known[lhs]) {
+		known[lhs] = true;
+		stack[size++] = lhs;
+	    }
+	}
+	while (size > 0) {
+	    int s = stack[--size];
+	    for (int i=occurrences[s]; i<occurrences[s+1]; i++) {
+		int p = users[i];
+		if (--remaining[p] > 0) continue;
+		int lhs = productions[p][0];
+		if (known[lhs]) continue;
+		known[lhs] = true;
+		stack[size++] = lhs;
+	    }
+	}
+	return known;
+    }
+
+    /**
+     * Finds the symbols reachable from the start variable.
+     * @param allowed if not <CODE>null</CODE>, an array indexed by
+     * symbol; productions with a symbol not allowed are ignored
+     * @return an array indexed by symbol telling if it is reachable
+     */
+    private boolean[] reach(boolean[] allowed) {
+	boolean[] reached = new boolean[variables.length];
+	if (start == -1 || (allowed != null && !allowed[start]))
+	    return reached;
+	int[][] from = new int[variables.length][];
+	int[] count = new int[variables.length];
+	for (int i=0; i<productions.length; i++)
+	    if (allowed == null || all(productions[i], allowed))
+		count[productions[i][0]]++;
+	for (int i=0; i<from.length; i++) from[i] = new int[count[i]];
+	for (int i=0; i<productions.length; i++)
+	    if (allowed == null || all(productions[i], allowed)) {
+		int lhs = productions[i][0];
+		from[lhs][--count[lhs]] = i;
+	    }
+	int[] stack = new int[variables.length];
+	int size = 0;
+	reached[start] = true;
+	stack[size++] = start;
+	while (size > 0) {
+	    int s = stack[--size];
+	    for (int i=0; i<from[s].length; i++) {
+		int[] p = productions[from[s][i]];
+		for (int j=1; j<p.length; j++) {
+		    if (reached[p[j]]) continue;
+		    reached[p[j]] = true;
+		    stack[size++] = p[j];
+		}
+	    }
+	}
+	return reached;
+    }
+
+    /**
+     * Returns if all symbols of a production are in a set.
+     * @param production the encoded production
+     * @param set an array indexed by symbol
+     * @return <CODE>true</CODE> if every symbol is in the set
+     */
+    private static boolean all(int[] production, boolean[] set) {
+	for (int i=0; i<production.length; i++)
+	    if (!set[production[i]]) return false;
+	return true;
+    }
+
+    /**
+     * Returns if a variable is in a set.
+     * @param set an array indexed by symbol
+     * @param variable the variable
+     * @return <CODE>true</CODE> if the variable is known and in the
+     * set
+     */
+    private boolean has(boolean[] set, String variable) {
+	Integer code = (Integer) codes.get(variable);
+	return code != null && set[code.intValue()];
+    }
+
+    /**
+     * Returns the names of the variables in a set.
+     * @param set an array indexed by symbol
+     * @return the variables in the set
+     */
+    private String[] variablesIn(boolean[] set) {
+	ArrayList list = new ArrayList();
+	for (int i=0; i<variables.length; i++)
+	    if (variables[i] && set[i]) list.add(names.get(i));
+	return (String[]) list.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the code for a symbol, assigning a new one if the
+     * symbol has not been seen.
+     * @param name the symbol
+     * @param variable if the symbol is a variable
+     * @param isVariable the list of which codes are variables
+     * @return the code for the symbol
+     */
+    private int code(String name, boolean variable, List isVariable) {
+	Integer code = (Integer) codes.get(name);
+	if (code != null) return code.intValue();
+	code = new Integer(names.size());
+	codes.put(name, code);
+	names.add(name);
+	isVariable.add(variable ? Boolean.TRUE : Boolean.FALSE);
+	return code.intValue();
+    }
+
+    /** The encoded productions. */
+    private int[][] productions;
+    /** Whether each symbol is a variable, indexed by code. */
+    private boolean[] variables;
+    /** The code of the start variable, or -1 if there is none. */
+    private int start;
+    /** The names of the symbols, indexed by code, or
+     * <CODE>null</CODE> if the analyzer was given encoded
+     * productions. */
+    private List names = null;
+    /** The map of symbol names to codes, or <CODE>null</CODE> if the
+     * analyzer was given encoded productions. */
+    private Map codes = null;
+
+    /** The cached nullable symbols. */
+    private boolean[] nullable = null;
+    /** The cached generating symbols. */
+    private boolean[] generating = null;
+    /** The cached reachable symbols. */
+    private boolean[] reachable = null;
+    /** The cached useful symbols. */
+    private boolean[] useful = null;
+    /** The unit production targets of each variable. */
+    private int[][] units = null;
+    /** The number of the closure that last visited each variable. */
+    private int[] mark = null;
+    /** The number of the last closure computed. */
+    private int epoch = 0;
+    /** The scratch stack of the closure walk. */
+    private int[] stack = null;
+    /** The scratch list of variables found by the closure walk. */
+    private int[] closure = null;
+}
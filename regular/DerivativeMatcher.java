@@ -0,0 +1,120 @@
+/* -- JFLAP 4.0 --
+ *
+ * Copyright information:
+ *
+ * Susan H. Rodger, Thomas Finley
+ * Computer Science Department
+ * Duke University
+ * April 24, 2003
+ * Supported by National Science Foundation DUE-9752583.
+ *
+ * Copyright (c) 2003
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that the above copyright notice and this paragraph are
+ * duplicated in all such forms and that any documentation,
+ * advertising materials, and other materials related to such
+ * distribution and use acknowledge that the software was developed
+ * by the author.  The name of the author may not be used to
+ * endorse or promote products derived from this software without
+ * specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+ 
+package regular;
+
+import java.util.*;
+
+/**
+ * The derivative matcher tells if strings match a regular expression
+ * without building an automaton first.  To match a string, the
+ * matcher takes the {@link ExpressionNode#derivative derivative} of
+ * the expression with respect to each symbol of the string in turn,
+ * and the string matches if the final derivative matches lambda.
+ * Each derivative computed is remembered, so the matcher builds the
+ * states of the expression's DFA lazily, as strings need them, and
+ * matching against the same expression again runs at DFA speed.  The
+ * number of remembered derivatives is bounded, and those used least
+ * recently are forgotten first.
+ *
+ * @author Thomas Finley
+ */
+
+public class DerivativeMatcher {
+    /**
+     * Instantiates a new derivative matcher with the default cache
+     * size.
+     * @param expression the regular expression to match against
+     * @throws UnsupportedOperationException if the expression is not
+     * properly formed
+     */
+    public DerivativeMatcher(RegularExpression expression) {
+	this(ExpressionParser.parse(expression), DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Instantiates a new derivative matcher.
+     * @param node the root of the parse tree of the expression to
+     * match against
+     * @param cacheSize the most derivatives to remember
+     */
+    public DerivativeMatcher(ExpressionNode node, final int cacheSize) {
+	this.node = node;
+	cache = new LinkedHashMap(16, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+		    return size() > cacheSize;
+		}
+	    };
+    }
+
+    /**
+     * Returns if a string matches the expression.
+     * @param string the string to match
+     * @return <CODE>true</CODE> if the string is in the language of the
+     * expression, <CODE>false</CODE> otherwise
+     */
+    public boolean matches(String string) {
+	ExpressionNode current = node;
+	for (int i=0; i<string.length(); i++) {
+	    current = derivative(current, string.charAt(i));
+	    if (current.getKind() == ExpressionNode.EMPTY_SET) return false;
+	}
+	return current.isNullable();
+    }
+
+    /**
+     * Returns the derivative of a node with respect to a symbol,
+     * computing it only if it is not remembered.
+     * @param node the node
+     * @param c the symbol
+     * @return the derivative of the node
+     */
+    private ExpressionNode derivative(ExpressionNode node, char c) {
+	Long key = new Long(((long) node.getID() << 16) | c);
+	ExpressionNode d = (ExpressionNode) cache.get(key);
+	if (d == null) {
+	    d = node.derivative(c);
+	    cache.put(key, d);
+	}
+	return d;
+    }
+
+    /**
+     * Returns the number of derivatives remembered right now.
+     * @return the number of remembered derivatives
+     */
+    public int getCachedDerivativeCount() {
+	return cache.size();
+    }
+
+    /** The default most derivatives to remember. */
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    /** The expression matched against. */
+    private ExpressionNode node;
+    /** The remembered derivatives, keyed by node ID and symbol. */
+    private LinkedHashMap cache;
+}
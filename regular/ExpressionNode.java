@@ -0,0 +1,527 @@
+/* -- JFLAP 4.0 --
+ *
+ * Copyright information:
+ *
+ * Susan H. Rodger, Thomas Finley
+ * Computer Science Department
+ * Duke University
+ * April 24, 2003
+ * Supported by National Science Foundation DUE-9752583.
+ *
+ * Copyright (c) 2003
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that the above copyright notice and this paragraph are
+ * duplicated in all such forms and that any documentation,
+ * advertising materials, and other materials related to such
+ * distribution and use acknowledge that the software was developed
+ * by the author.  The name of the author may not be used to
+ * endorse or promote products derived from this software without
+ * specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+ 
+package regular;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * An expression node is an immutable node in the parse tree of a
+ * regular expression.  A node is either the empty set, lambda, a
+ * single symbol, the Kleene star of another node, the concatenation
+ * of two or more nodes, or the union of two or more nodes.
+ *
+ * Nodes are only created through the static factory methods, which
+ * put the nodes in a normal form as they are built: the empty set and
+ * lambda are removed where they are identities, nested
+ * concatenations and unions are flattened, the operands of a union
+ * are sorted and duplicates removed, and a star of a star is just the
+ * inner star.  A few more rules shrink the nodes that state
+ * elimination tends to produce: lambda is dropped from a union with
+ * another nullable operand, r*r* is r*, and under a star, lambda and
+ * inner stars are dropped from a union, and a concatenation of
+ * nullable expressions becomes their union.  Two expressions that
+ * differ only by these rules therefore produce equal nodes, which is
+ * what keeps the set of {@link #derivative derivatives} of an
+ * expression finite.
+ *
+ * Nodes are also hash consed: the factories return the existing node
+ * if an equal one is still around, so equal nodes are almost always
+ * the same object, and each node has an {@link #getID ID} that
+ * callers may use as a key in place of the whole tree.
+ *
+ * @author Thomas Finley
+ */
+
+public final class ExpressionNode implements Comparable {
+    /**
+     * Instantiates a new expression node.
+     * @param kind the kind of node
+     * @param symbol the symbol, if this is a symbol node
+     * @param children the operands, if this is an operator node
+     */
+    private ExpressionNode(int kind, char symbol, ExpressionNode[] children) {
+	this.kind = kind;
+	this.symbol = symbol;
+	this.children = children;
+	int h = kind * 31 + symbol, s = 1;
+	for (int i=0; i<children.length; i++) {
+	    h = h * 31 + children[i].hash;
+	    s += children[i].size;
+	}
+	hash = h;
+	size = s;
+	boolean n;
+	switch (kind) {
+	case LAMBDA:
+	case STAR:
+	    n = true;
+	    break;
+	case CAT:
+	    n = true;
+	    for (int i=0; i<children.length; i++) n &= children[i].nullable;
+	    break;
+	case OR:
+	    n = false;
+	    for (int i=0; i<children.length; i++) n |= children[i].nullable;
+	    break;
+	default:
+	    n = false;
+	}
+	nullable = n;
+    }
+
+    /**
+     * Returns the node for the empty set.
+     * @return the node for the empty set
+     */
+    public static ExpressionNode emptySet() {
+	return EMPTY_NODE;
+    }
+
+    /**
+     * Returns the node for lambda, the empty string.
+     * @return the node for lambda
+     */
+    public static ExpressionNode lambda() {
+	return LAMBDA_NODE;
+    }
+
+    /**
+     * Returns the node for a single symbol.
+     * @param symbol the symbol
+     * @return the node for the symbol
+     */
+    public static ExpressionNode symbol(char symbol) {
+	return intern(new ExpressionNode(SYMBOL, symbol, NO_CHILDREN));
+    }
+
+    /**
+     * Returns the node for the Kleene star of a node.
+     * @param node the node to star
+     * @return the node for the star
+     */
+    public static ExpressionNode star(ExpressionNode node) {
+	switch (node.kind) {
+	case EMPTY_SET:
+	case LAMBDA:
+	    return LAMBDA_NODE;
+	case STAR:
+	    return node;
+	case CAT:
+	    if (!node.nullable) break;
+	    // A star of nullable parts is the star of their union.
+	case OR:
+	    // Under a star, lambda and inner stars are redundant.
+	    ExpressionNode[] operands =
+		new ExpressionNode[node.children.length];
+	    boolean changed = node.kind == CAT;
+	    for (int i=0; i<operands.length; i++) {
+		operands[i] = node.children[i];
+		if (operands[i].kind == STAR) {
+		    operands[i] = operands[i].children[0];
+		    changed = true;
+		} else if (operands[i].kind == LAMBDA) {
+		    operands[i] = EMPTY_NODE;
+		    changed = true;
+		}
+	    }
+	    if (changed) return star(or(operands));
+	}
+	return intern(new ExpressionNode
+		      (STAR, '\0', new ExpressionNode[] {node}));
+    }
+
+    /**
+     * Returns the node for the concatenation of two nodes.
+     * @param first the first node
+     * @param second the second node
+     * @return the node for the concatenation
+     */
+    public static ExpressionNode cat(ExpressionNode first,
+				     ExpressionNode second) {
+	return cat(new ExpressionNode[] {first, second});
+    }
+
+    /**
+     * Returns the node for the concatenation of any number of nodes.
+     * @param nodes the nodes to concatenate, in order
+     * @return the node for the concatenation
+     */
+    public static ExpressionNode cat(ExpressionNode[] nodes) {
+	ArrayList list = new ArrayList();
+	for (int i=0; i<nodes.length; i++) {
+	    switch (nodes[i].kind) {
+	    case EMPTY_SET:
+		return EMPTY_NODE;
+	    case LAMBDA:
+		break;
+	    case CAT:
+		list.addAll(Arrays.asList(nodes[i].children));
+		break;
+	    default:
+		list.add(nodes[i]);
+	    }
+	}
+	// Adjacent copies of the same star are the same as one.
+	for (int i=list.size()-1; i>0; i--) {
+	    ExpressionNode node = (ExpressionNode) list.get(i);
+	    if (node.kind == STAR && node.equals(list.get(i-1)))
+		list.remove(i);
+	}
+	if (list.size() == 0) return LAMBDA_NODE;
+	if (list.size() == 1) return (ExpressionNode) list.get(0);
+	return intern(new ExpressionNode(CAT, '\0', (ExpressionNode[])
+					 list.toArray(new ExpressionNode[0])));
+    }
+
+    /**
+     * Returns the node for the union of two nodes.
+     * @param first the first node
+     * @param second the second node
+     * @return the node for the union
+     */
+    public static ExpressionNode or(ExpressionNode first,
+				    ExpressionNode second) {
+	return or(new ExpressionNode[] {first, second});
+    }
+
+    /**
+     * Returns the node for the union of any number of nodes.
+     * @param nodes the nodes to union
+     * @return the node for the union
+     */
+    public static ExpressionNode or(ExpressionNode[] nodes) {
+	TreeSet set = new TreeSet();
+	for (int i=0; i<nodes.length; i++) {
+	    switch (nodes[i].kind) {
+	    case EMPTY_SET:
+		break;
+	    case OR:
+		set.addAll(Arrays.asList(nodes[i].children));
+		break;
+	    default:
+		set.add(nodes[i]);
+	    }
+	}
+	// Lambda is redundant if something else matches it.
+	if (set.size() > 1 && set.contains(LAMBDA_NODE)) {
+	    Iterator it = set.iterator();
+	    while (it.hasNext()) {
+		ExpressionNode node = (ExpressionNode) it.next();
+		if (node.kind != LAMBDA && node.nullable) {
+		    set.remove(LAMBDA_NODE);
+		    break;
+		}
+	    }
+	}
+	if (set.size() == 0) return EMPTY_NODE;
+	if (set.size() == 1) return (ExpressionNode) set.first();
+	return intern(new ExpressionNode(OR, '\0', (ExpressionNode[])
+					 set.toArray(new ExpressionNode[0])));
+    }
+
+    /**
+     * Returns the node equal to a new node that already exists, or
+     * the new node itself if there is none, giving it an ID.
+     * @param node the newly created node
+     * @return the one node equal to the new node
+     */
+    private static synchronized ExpressionNode intern(ExpressionNode node) {
+	WeakReference reference = (WeakReference) INTERNED.get(node);
+	if (reference != null) {
+	    ExpressionNode existing = (ExpressionNode) reference.get();
+	    if (existing != null) return existing;
+	}
+	node.id = nextID++;
+	INTERNED.put(node, new WeakReference(node));
+	return node;
+    }
+
+    /**
+     * Returns the ID of this node.  No two nodes that exist at the
+     * same time have the same ID.
+     * @return the ID of this node
+     */
+    public int getID() {
+	return id;
+    }
+
+    /**
+     * Returns the kind of this node, one of {@link #EMPTY_SET},
+     * {@link #LAMBDA}, {@link #SYMBOL}, {@link #STAR}, {@link #CAT},
+     * or {@link #OR}.
+     * @return the kind of this node
+     */
+    public int getKind() {
+	return kind;
+    }
+
+    /**
+     * Returns the symbol of a symbol node.
+     * @return the symbol of this node, or the null character if this
+     * is not a symbol node
+     */
+    public char getSymbol() {
+	return symbol;
+    }
+
+    /**
+     * Returns the operands of this node.  For a star node this is the
+     * single node starred.  The array should not be modified.
+     * @return the operands of this node, or an empty array if this is
+     * not an operator node
+     */
+    public ExpressionNode[] getChildren() {
+	return children;
+    }
+
+    /**
+     * Returns the size of this expression, that is, the number of
+     * nodes in its tree, counting shared subtrees once per use.
+     * @return the size of this expression
+     */
+    public int getSize() {
+	return size;
+    }
+
+    /**
+     * Returns if the expression matches lambda.
+     * @return <CODE>true</CODE> if the empty string is in the language
+     * of this expression
+     */
+    public boolean isNullable() {
+	return nullable;
+    }
+
+    /**
+     * Returns the derivative of this expression with respect to a
+     * symbol, that is, the expression for the strings <I>w</I> such
+     * that the symbol followed by <I>w</I> matches this expression.
+     * @param c the symbol
+     * @return the derivative of this expression
+     */
+    public ExpressionNode derivative(char c) {
+	switch (kind) {
+	case SYMBOL:
+	    return symbol == c ? LAMBDA_NODE : EMPTY_NODE;
+	case STAR:
+	    return cat(children[0].derivative(c), this);
+	case CAT:
+	    ExpressionNode[] rest = new ExpressionNode[children.length-1];
+	    System.arraycopy(children, 1, rest, 0, rest.length);
+	    ExpressionNode tail = cat(rest);
+	    ExpressionNode d = cat(children[0].derivative(c), tail);
+	    if (!children[0].nullable) return d;
+	    return or(d, tail.derivative(c));
+	case OR:
+	    ExpressionNode[] ds = new ExpressionNode[children.length];
+	    for (int i=0; i<children.length; i++)
+		ds[i] = children[i].derivative(c);
+	    return or(ds);
+	default:
+	    return EMPTY_NODE;
+	}
+    }
+
+    /**
+     * Returns the symbols that appear in this expression.
+     * @return the symbols of this expression, in ascending order
+     */
+    public char[] getSymbols() {
+	TreeSet set = new TreeSet();
+	addSymbols(set);
+	char[] symbols = new char[set.size()];
+	Iterator it = set.iterator();
+	for (int i=0; it.hasNext(); i++)
+	    symbols[i] = ((Character) it.next()).charValue();
+	return symbols;
+    }
+
+    /**
+     * Adds the symbols of this expression to a set.
+     * @param set the set of <CODE>Character</CODE> objects
+     */
+    private void addSymbols(Set set) {
+	if (kind == SYMBOL) set.add(new Character(symbol));
+	for (int i=0; i<children.length; i++) children[i].addSymbols(set);
+    }
+
+    /**
+     * Compares this node to another node.  The order is arbitrary but
+     * consistent with {@link #equals}; it is used to sort the operands
+     * of unions.
+     * @param object the node to compare to
+     * @return a negative number, zero, or a positive number as this
+     * node is less than, equal to, or greater than the other node
+     */
+    public int compareTo(Object object) {
+	ExpressionNode other = (ExpressionNode) object;
+	if (this == other) return 0;
+	if (kind != other.kind) return kind - other.kind;
+	if (symbol != other.symbol) return symbol - other.symbol;
+	if (children.length != other.children.length)
+	    return children.length - other.children.length;
+	for (int i=0; i<children.length; i++) {
+	    int c = children[i].compareTo(other.children[i]);
+	    if (c != 0) return c;
+	}
+	return 0;
+    }
+
+    /**
+     * Returns if this node is the same expression as another node.
+     * @param object the object to compare to
+     * @return <CODE>true</CODE> if the object is an equal node
+     */
+    public boolean equals(Object object) {
+	if (this == object) return true;
+	if (!(object instanceof ExpressionNode)) return false;
+	ExpressionNode other = (ExpressionNode) object;
+	return hash == other.hash && compareTo(other) == 0;
+    }
+
+    /**
+     * Returns the hash code for this node.
+     * @return the hash code for this node
+     */
+    public int hashCode() {
+	return hash;
+    }
+
+    /**
+     * Returns the expression as a string, with only those parentheses
+     * that are needed.  Lambda is written as &lambda; and the empty
+     * set as &oslash;.
+     * @return the expression as a string
+     */
+    public String toString() {
+	StringBuffer buffer = new StringBuffer();
+	write(buffer);
+	return buffer.toString();
+    }
+
+    /**
+     * Writes the expression to a buffer.
+     * @param buffer the buffer to write to
+     */
+    private void write(StringBuffer buffer) {
+	switch (kind) {
+	case EMPTY_SET:
+	    buffer.append(EMPTY_STRING);
+	    break;
+	case LAMBDA:
+	    buffer.append(LAMBDA_STRING);
+	    break;
+	case SYMBOL:
+	    buffer.append(symbol);
+	    break;
+	case STAR:
+	    writeOperand(buffer, children[0], STAR);
+	    buffer.append('*');
+	    break;
+	case CAT:
+	    for (int i=0; i<children.length; i++)
+		writeOperand(buffer, children[i], CAT);
+	    break;
+	case OR:
+	    for (int i=0; i<children.length; i++) {
+		if (i != 0) buffer.append('+');
+		children[i].write(buffer);
+	    }
+	    break;
+	}
+    }
+
+    /**
+     * Writes an operand, in parentheses if it binds less tightly than
+     * the operator it is an operand of.
+     * @param buffer the buffer to write to
+     * @param operand the operand to write
+     * @param operator the kind of the operator
+     */
+    private static void writeOperand(StringBuffer buffer,
+				     ExpressionNode operand, int operator) {
+	boolean parens = operand.kind == OR ||
+	    (operator == STAR && operand.kind == CAT);
+	if (parens) buffer.append('(');
+	operand.write(buffer);
+	if (parens) buffer.append(')');
+    }
+
+    /** The kind for the empty set. */
+    public static final int EMPTY_SET = 0;
+    /** The kind for lambda. */
+    public static final int LAMBDA = 1;
+    /** The kind for a single symbol. */
+    public static final int SYMBOL = 2;
+    /** The kind for a Kleene star. */
+    public static final int STAR = 3;
+    /** The kind for a concatenation. */
+    public static final int CAT = 4;
+    /** The kind for a union. */
+    public static final int OR = 5;
+
+    /** The string for lambda. */
+    public static final String LAMBDA_STRING = "\u03BB";
+    /** The string for the empty set. */
+    public static final String EMPTY_STRING = "\u00F8";
+
+    /** The map of nodes to weak references to themselves, which holds
+     * every node that is still in use. */
+    private static final Map INTERNED = new WeakHashMap();
+    /** The ID for the next interned node. */
+    private static int nextID = 2;
+
+    /** The empty array of children. */
+    private static final ExpressionNode[] NO_CHILDREN = new ExpressionNode[0];
+    /** The node for the empty set. */
+    private static final ExpressionNode EMPTY_NODE =
+	new ExpressionNode(EMPTY_SET, '\0', NO_CHILDREN);
+    /** The node for lambda. */
+    private static final ExpressionNode LAMBDA_NODE =
+	new ExpressionNode(LAMBDA, '\0', NO_CHILDREN);
+    static {
+	EMPTY_NODE.id = 0;
+	LAMBDA_NODE.id = 1;
+    }
+
+    /** The kind of this node. */
+    private final int kind;
+    /** The symbol of a symbol node. */
+    private final char symbol;
+    /** The operands of an operator node. */
+    private final ExpressionNode[] children;
+    /** The ID of this node. */
+    private int id;
+    /** The cached hash code. */
+    private final int hash;
+    /** Whether this expression matches lambda. */
+    private final boolean nullable;
+    /** The number of nodes in the tree of this node. */
+    private final int size;
+}
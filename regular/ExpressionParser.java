@@ -0,0 +1,161 @@
+/* -- JFLAP 4.0 --
+ *
+ * Copyright information:
+ *
+ * Susan H. Rodger, Thomas Finley
+ * Computer Science Department
+ * Duke University
+ * April 24, 2003
+ * Supported by National Science Foundation DUE-9752583.
+ *
+ * Copyright (c) 2003
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that the above copyright notice and this paragraph are
+ * duplicated in all such forms and that any documentation,
+ * advertising materials, and other materials related to such
+ * distribution and use acknowledge that the software was developed
+ * by the author.  The name of the author may not be used to
+ * endorse or promote products derived from this software without
+ * specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+ 
+package regular;
+
+import java.util.ArrayList;
+
+/**
+ * The expression parser turns the string of a regular expression into
+ * a tree of {@link ExpressionNode} objects.  The syntax is that of
+ * {@link RegularExpression}: <CODE>+</CODE> is union,
+ * <CODE>*</CODE> is the Kleene star, juxtaposition is concatenation,
+ * and parentheses group.  Either <CODE>!</CODE> or &lambda; stands for
+ * lambda and &oslash; for the empty set; every other character is a
+ * symbol.  The empty string is lambda.
+ *
+ * @author Thomas Finley
+ */
+
+public class ExpressionParser {
+    /**
+     * This is another one of those static method collections.
+     */
+    private ExpressionParser() {}
+
+    /**
+     * Parses a regular expression.
+     * @param expression the regular expression
+     * @return the root of the parse tree
+     * @throws UnsupportedOperationException if the expression is not
+     * properly formed
+     */
+    public static ExpressionNode parse(RegularExpression expression) {
+	return parse(expression.asString());
+    }
+
+    /**
+     * Parses the string of a regular expression.
+     * @param string the string of the regular expression
+     * @return the root of the parse tree
+     * @throws UnsupportedOperationException if the expression is not
+     * properly formed
+     */
+    public static ExpressionNode parse(String string) {
+	int[] position = new int[] {0};
+	ExpressionNode node = parseOr(string, position);
+	if (position[0] != string.length())
+	    throw new UnsupportedOperationException
+		("The parentheses are unbalanced!");
+	return node;
+    }
+
+    /**
+     * Parses a union, that is, concatenations separated by
+     * <CODE>+</CODE>.
+     * @param string the string of the regular expression
+     * @param position a one element array holding the position to
+     * start at, which is advanced past the union
+     * @return the parsed union
+     */
+    private static ExpressionNode parseOr(String string, int[] position) {
+	ArrayList terms = new ArrayList();
+	while (true) {
+	    int start = position[0];
+	    terms.add(parseCat(string, position));
+	    boolean more = position[0] < string.length() &&
+		string.charAt(position[0]) == '+';
+	    if (more || terms.size() > 1)
+		if (position[0] == start)
+		    throw new UnsupportedOperationException
+			("Operators are poorly formatted.");
+	    if (!more) break;
+	    position[0]++;
+	}
+	return ExpressionNode.or((ExpressionNode[])
+				 terms.toArray(new ExpressionNode[0]));
+    }
+
+    /**
+     * Parses a concatenation of starred atoms.  An empty
+     * concatenation is lambda.
+     * @param string the string of the regular expression
+     * @param position a one element array holding the position to
+     * start at, which is advanced past the concatenation
+     * @return the parsed concatenation
+     */
+    private static ExpressionNode parseCat(String string, int[] position) {
+	ArrayList factors = new ArrayList();
+	while (position[0] < string.length()) {
+	    char c = string.charAt(position[0]);
+	    if (c == '+' || c == ')') break;
+	    if (c == '*')
+		throw new UnsupportedOperationException
+		    ("Operators are poorly formatted.");
+	    ExpressionNode factor = parseAtom(string, position);
+	    while (position[0] < string.length() &&
+		   string.charAt(position[0]) == '*') {
+		factor = ExpressionNode.star(factor);
+		position[0]++;
+	    }
+	    factors.add(factor);
+	}
+	return ExpressionNode.cat((ExpressionNode[])
+				  factors.toArray(new ExpressionNode[0]));
+    }
+
+    /**
+     * Parses a single symbol, lambda, empty set, or parenthesized
+     * expression.
+     * @param string the string of the regular expression
+     * @param position a one element array holding the position to
+     * start at, which is advanced past the atom
+     * @return the parsed atom
+     */
+    private static ExpressionNode parseAtom(String string, int[] position) {
+	char c = string.charAt(position[0]++);
+	switch (c) {
+	case '(':
+	    if (position[0] < string.length() &&
+		string.charAt(position[0]) == ')')
+		throw new UnsupportedOperationException
+		    ("Operators are poorly formatted.");
+	    ExpressionNode node = parseOr(string, position);
+	    if (position[0] == string.length())
+		throw new UnsupportedOperationException
+		    ("The parentheses are unbalanced!");
+	    position[0]++;
+	    return node;
+	case '!':
+	case '\u03BB':
+	    return ExpressionNode.lambda();
+	case '\u00F8':
+	    return ExpressionNode.emptySet();
+	default:
+	    return ExpressionNode.symbol(c);
+	}
+    }
+}
@@ -0,0 +1,355 @@
+/* -- JFLAP 4.0 --
+ *
+ * Copyright information:
+ *
+ * Susan H. Rodger, Thomas Finley
+ * Computer Science Department
+ * Duke University
+ * April 24, 2003
+ * Supported by National Science Foundation DUE-9752583.
+ *
+ * Copyright (c) 2003
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms are permitted
+ * provided that the above copyright notice and this paragraph are
+ * duplicated in all such forms and that any documentation,
+ * advertising materials, and other materials related to such
+ * distribution and use acknowledge that the software was developed
+ * by the author.  The name of the author may not be used to
+ * endorse or promote products derived from this software without
+ * specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED ``AS IS'' AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+ 
+package regular;
+
+import automata.State;
+import automata.StatePlacer;
+import automata.fsa.FSATransition;
+import automata.fsa.FiniteStateAutomaton;
+import java.util.*;
+
+/**
+ * The regular expression to FSA converter builds a finite state
+ * automaton that accepts the language of a regular expression.  There
+ * are three constructions to choose from.  The Thompson construction
+ * is the textbook one, with lambda transitions gluing together small
+ * automata for each operator; it has at most two states per symbol
+ * and operator.  The Glushkov construction builds the position
+ * automaton, which has one state per symbol occurrence plus an
+ * initial state and no lambda transitions at all.  Last, the
+ * derivative construction builds a DFA directly, with one state per
+ * distinct {@link ExpressionNode#derivative derivative} of the
+ * expression.
+ *
+ * @author Thomas Finley
+ */
+
+public class RegularExpressionToFSAConverter {
+    /**
+     * Instantiates a new converter.
+     */
+    public RegularExpressionToFSAConverter() {
+
+    }
+
+    /**
+     * Builds a lambda-NFA for an expression by the Thompson
+     * construction.
+     * @param expression the regular expression
+     * @return an automaton that accepts the language of the expression
+     * @throws UnsupportedOperationException if the expression is not
+     * properly formed
+     */
+    public FiniteStateAutomaton convertToThompsonAutomaton
+	(RegularExpression expression) {
+	return convertToThompsonAutomaton(ExpressionParser.parse(expression));
+    }
+
+    /**
+     * Builds a lambda-NFA for an expression by the Thompson
+     * construction.
+     * @param node the root of the expression's parse tree
+     * @return an automaton that accepts the language of the expression
+     */
+    public FiniteStateAutomaton convertToThompsonAutomaton
+	(ExpressionNode node) {
+	FiniteStateAutomaton automaton = new FiniteStateAutomaton();
+	State[] fragment = thompson(node, automaton);
+	automaton.setInitialState(fragment[0]);
+	automaton.addFinalState(fragment[1]);
+	return automaton;
+    }
+
+    /**
+     * Builds the part of a Thompson automaton for a node.
+     * @param node the node to build the automaton part for
+     * @param automaton the automaton to add states and transitions to
+     * @return a two element array with the entry and exit states of
+     * the part
+     */
+    private State[] thompson(ExpressionNode node,
+			     FiniteStateAutomaton automaton) {
+	ExpressionNode[] children = node.getChildren();
+	State[] fragment;
+	switch (node.getKind()) {
+	case ExpressionNode.CAT:
+	    State[] first = thompson(children[0], automaton), last = first;
+	    for (int i=1; i<children.length; i++) {
+		State[] next = thompson(children[i], automaton);
+		automaton.addTransition(new FSATransition
+					(last[1], next[0], LAMBDA));
+		last = next;
+	    }
+	    return new State[] {first[0], last[1]};
+	case ExpressionNode.OR:
+	    fragment = createFragment(automaton);
+	    for (int i=0; i<children.length; i++) {
+		State[] branch = thompson(children[i], automaton);
+		automaton.addTransition(new FSATransition
+					(fragment[0], branch[0], LAMBDA));
+		automaton.addTransition(new FSATransition
+					(branch[1], fragment[1], LAMBDA));
+	    }
+	    return fragment;
+	case ExpressionNode.STAR:
+	    fragment = createFragment(automaton);
+	    State[] body = thompson(children[0], automaton);
+	    automaton.addTransition(new FSATransition
+				    (fragment[0], body[0], LAMBDA));
+	    automaton.addTransition(new FSATransition
+				    (body[1], body[0], LAMBDA));
+	    automaton.addTransition(new FSATransition
+				    (body[1], fragment[1], LAMBDA));
+	    automaton.addTransition(new FSATransition
+				    (fragment[0], fragment[1], LAMBDA));
+	    return fragment;
+	case ExpressionNode.SYMBOL:
+	    fragment = createFragment(automaton);
+	    automaton.addTransition(new FSATransition
+				    (fragment[0], fragment[1],
+				     String.valueOf(node.getSymbol())));
+	    return fragment;
+	case ExpressionNode.LAMBDA:
+	    fragment = createFragment(automaton);
+	    automaton.addTransition(new FSATransition
+				    (fragment[0], fragment[1], LAMBDA));
+	    return fragment;
+	default:
+	    return createFragment(automaton);
+	}
+    }
+
+    /**
+     * Creates the entry and exit states for a part of a Thompson
+     * automaton.
+     * @param automaton the automaton to add the states to
+     * @return a two element array with the new entry and exit states
+     */
+    private State[] createFragment(FiniteStateAutomaton automaton) {
+	return new State[] {
+	    automaton.createState(placer.getPointForState(automaton)),
+	    automaton.createState(placer.getPointForState(automaton)) };
+    }
+
+    /**
+     * Builds a lambda-free NFA for an expression by the Glushkov
+     * construction.
+     * @param expression the regular expression
+     * @return an automaton that accepts the language of the expression
+     * @throws UnsupportedOperationException if the expression is not
+     * properly formed
+     */
+    public FiniteStateAutomaton convertToGlushkovAutomaton
+	(RegularExpression expression) {
+	return convertToGlushkovAutomaton(ExpressionParser.parse(expression));
+    }
+
+    /**
+     * Builds a lambda-free NFA for an expression by the Glushkov
+     * construction.  Each occurrence of a symbol in the expression is
+     * a position, and gets its own state; every transition into that
+     * state reads the position's symbol.  The initial state goes to
+     * the positions that can come first, each position goes to the
+     * positions that can follow it, and the positions that can come
+     * last are final.
+     * @param node the root of the expression's parse tree
+     * @return an automaton that accepts the language of the expression
+     */
+    public FiniteStateAutomaton convertToGlushkovAutomaton
+	(ExpressionNode node) {
+	StringBuffer positions = new StringBuffer();
+	ArrayList follow = new ArrayList();
+	BitSet[] info = glushkov(node, positions, follow);
+
+	FiniteStateAutomaton automaton = new FiniteStateAutomaton();
+	State initial =
+	    automaton.createState(placer.getPointForState(automaton));
+	automaton.setInitialState(initial);
+	if (node.isNullable()) automaton.addFinalState(initial);
+	State[] states = new State[positions.length()];
+	for (int i=0; i<states.length; i++)
+	    states[i] =
+		automaton.createState(placer.getPointForState(automaton));
+	addTransitions(automaton, initial, info[0], states, positions);
+	for (int i=0; i<states.length; i++) {
+	    addTransitions(automaton, states[i], (BitSet) follow.get(i),
+			   states, positions);
+	    if (info[1].get(i)) automaton.addFinalState(states[i]);
+	}
+	return automaton;
+    }
+
+    /**
+     * Computes the first and last positions of a node, numbering its
+     * positions and recording which positions follow which.
+     * @param node the node
+     * @param positions the symbols of the positions numbered so far,
+     * which the positions of this node are appended to
+     * @param follow the list of the sets of positions that can follow
+     * each position, indexed by position
+     * @return a two element array with the sets of positions that can
+     * come first and last in strings matched by the node
+     */
+    private BitSet[] glushkov(ExpressionNode node, StringBuffer positions,
+			      List follow) {
+	ExpressionNode[] children = node.getChildren();
+	BitSet first = new BitSet(), last = new BitSet();
+	switch (node.getKind()) {
+	case ExpressionNode.SYMBOL:
+	    first.set(positions.length());
+	    last.set(positions.length());
+	    positions.append(node.getSymbol());
+	    follow.add(new BitSet());
+	    break;
+	case ExpressionNode.STAR:
+	    BitSet[] body = glushkov(children[0], positions, follow);
+	    first = body[0];
+	    last = body[1];
+	    addFollow(follow, last, first);
+	    break;
+	case ExpressionNode.OR:
+	    for (int i=0; i<children.length; i++) {
+		BitSet[] branch = glushkov(children[i], positions, follow);
+		first.or(branch[0]);
+		last.or(branch[1]);
+	    }
+	    break;
+	case ExpressionNode.CAT:
+	    boolean prefixNullable = true;
+	    for (int i=0; i<children.length; i++) {
+		BitSet[] part = glushkov(children[i], positions, follow);
+		addFollow(follow, last, part[0]);
+		if (prefixNullable) first.or(part[0]);
+		prefixNullable &= children[i].isNullable();
+		if (!children[i].isNullable()) last.clear();
+		last.or(part[1]);
+	    }
+	    break;
+	}
+	return new BitSet[] {first, last};
+    }
+
+    /**
+     * Adds a set of positions to the follow sets of other positions.
+     * @param follow the list of follow sets, indexed by position
+     * @param from the positions whose follow sets grow
+     * @param to the positions to add to the follow sets
+     */
+    private static void addFollow(List follow, BitSet from, BitSet to) {
+	for (int i=from.nextSetBit(0); i>=0; i=from.nextSetBit(i+1))
+	    ((BitSet) follow.get(i)).or(to);
+    }
+
+    /**
+     * Adds transitions from a state of a Glushkov automaton to the
+     * states of a set of positions.
+     * @param automaton the automaton
+     * @param from the state the transitions come from
+     * @param to the positions the transitions go to
+     * @param states the states of the positions
+     * @param positions the symbols of the positions
+     */
+    private static void addTransitions(FiniteStateAutomaton automaton,
+				       State from, BitSet to, State[] states,
+				       StringBuffer positions) {
+	for (int i=to.nextSetBit(0); i>=0; i=to.nextSetBit(i+1))
+	    automaton.addTransition(new FSATransition
+				    (from, states[i],
+				     String.valueOf(positions.charAt(i))));
+    }
+
+    /**
+     * Builds a DFA for an expression from the derivatives of the
+     * expression.
+     * @param expression the regular expression
+     * @return a DFA that accepts the language of the expression
+     * @throws UnsupportedOperationException if the expression is not
+     * properly formed
+     */
+    public FiniteStateAutomaton convertToDerivativeDFA
+	(RegularExpression expression) {
+	return convertToDerivativeDFA(ExpressionParser.parse(expression));
+    }
+
+    /**
+     * Builds a DFA for an expression from the derivatives of the
+     * expression.  Each state stands for a derivative; the state for
+     * the derivative <I>r</I> goes to the state for the derivative of
+     * <I>r</I> with respect to <I>a</I> on <I>a</I>, and is final if
+     * <I>r</I> matches lambda.  Derivatives that are the empty set get
+     * no state, so the DFA is not necessarily complete.
+     * @param node the root of the expression's parse tree
+     * @return a DFA that accepts the language of the expression
+     */
+    public FiniteStateAutomaton convertToDerivativeDFA(ExpressionNode node) {
+	FiniteStateAutomaton automaton = new FiniteStateAutomaton();
+	char[] alphabet = node.getSymbols();
+	HashMap stateForNode = new HashMap();
+	LinkedList queue = new LinkedList();
+	State initial = derivativeState(node, automaton, stateForNode, queue);
+	automaton.setInitialState(initial);
+	while (!queue.isEmpty()) {
+	    ExpressionNode current = (ExpressionNode) queue.removeFirst();
+	    State from = (State) stateForNode.get(current);
+	    for (int i=0; i<alphabet.length; i++) {
+		ExpressionNode d = current.derivative(alphabet[i]);
+		if (d.getKind() == ExpressionNode.EMPTY_SET) continue;
+		State to = derivativeState(d, automaton, stateForNode, queue);
+		automaton.addTransition(new FSATransition
+					(from, to,
+					 String.valueOf(alphabet[i])));
+	    }
+	}
+	return automaton;
+    }
+
+    /**
+     * Returns the state for a derivative, creating it and queueing the
+     * derivative if there is no state yet.
+     * @param node the derivative
+     * @param automaton the automaton being built
+     * @param stateForNode the map of derivatives to states
+     * @param queue the queue of derivatives to expand
+     * @return the state for the derivative
+     */
+    private State derivativeState(ExpressionNode node,
+				  FiniteStateAutomaton automaton,
+				  Map stateForNode, LinkedList queue) {
+	State state = (State) stateForNode.get(node);
+	if (state != null) return state;
+	state = automaton.createState(placer.getPointForState(automaton));
+	if (node.isNullable()) automaton.addFinalState(state);
+	stateForNode.put(node, state);
+	queue.add(node);
+	return state;
+    }
+
+    /** The string for a lambda transition. */
+    private static final String LAMBDA = "";
+    /** The placer for new states. */
+    private StatePlacer placer = new StatePlacer();
+}